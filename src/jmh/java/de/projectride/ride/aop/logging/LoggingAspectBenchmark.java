@@ -0,0 +1,57 @@
+package de.projectride.ride.aop.logging;
+
+import de.projectride.ride.service.util.RideIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the overhead of {@link LoggingAspect#logAround}, with debug logging off, on a cheap call of a
+ * class matched by its pointcut.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    private RideIndex rideIndex;
+
+    private RideIndex loggedRideIndex;
+
+    @Setup
+    public void setUp() {
+        rideIndex = new RideIndex();
+        LoggingAspect loggingAspect = new LoggingAspect();
+        ReflectionTestUtils.setField(loggingAspect, "env", new StandardEnvironment());
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(rideIndex);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(loggingAspect);
+        loggedRideIndex = proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public boolean direct() {
+        return rideIndex.contains(42L);
+    }
+
+    @Benchmark
+    public boolean throughLoggingAspect() {
+        return loggedRideIndex.contains(42L);
+    }
+}
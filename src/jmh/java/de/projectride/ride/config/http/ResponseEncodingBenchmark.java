@@ -0,0 +1,113 @@
+package de.projectride.ride.config.http;
+
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Benchmark of the CPU time to write a list of rides as GET /api/rides does, in JSON or in CBOR, and compressed with
+ * gzip or not, as Undertow compresses the responses.
+ *
+ * <p>
+ * The size of the written list, the bytes on the wire, is printed when the benchmark is set up.
+ * </p>
+ *
+ * @see MappingJackson2CborHttpMessageConverter
+ * @see CompressiblePredicate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    private static final String[] CITIES = {"Mannheim", "Berlin", "Stuttgart", "Frankfurt", "Hamburg", "Leipzig"};
+
+    @Param({"20", "500"})
+    private int numberOfRides;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+
+    private List<Ride> rides;
+
+    @Setup
+    public void createRides() throws IOException {
+        // configured as by application.yml
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper = "cbor".equals(format)
+            ? MappingJackson2CborHttpMessageConverter.cborObjectMapper(builder) : builder.build();
+        Random random = new Random(42);
+        ZonedDateTime now = ZonedDateTime.now().withNano(0);
+        rides = new ArrayList<>();
+        for (long id = 1; id <= numberOfRides; id++) {
+            Ride ride = new Ride()
+                .driverId(1000L + random.nextInt(1000))
+                .numberOfSeats(1 + random.nextInt(4))
+                .price(5 + random.nextInt(40) + random.nextInt(100) / 100f)
+                .description("Ride " + id + ", no smoking")
+                .deleted(false)
+                .createdAt(now.minusMinutes(random.nextInt(100_000)))
+                .startDateTime(now.plusMinutes(random.nextInt(100_000)))
+                .startPlace(place(random))
+                .endPlace(place(random));
+            ride.setId(id);
+            ride.setVersion((long) random.nextInt(10));
+            rides.add(ride);
+        }
+        System.out.println();
+        System.out.println(numberOfRides + " rides in " + format + (gzip ? " with gzip: " : ": ") + write().length
+            + " bytes");
+    }
+
+    private static Place place(Random random) {
+        Place place = new Place()
+            .cityName(CITIES[random.nextInt(CITIES.length)])
+            .postcode(10000 + random.nextInt(89999))
+            .latitude(47 + random.nextDouble() * 8)
+            .longitude(6 + random.nextDouble() * 9);
+        place.setId((long) random.nextInt(100_000));
+        return place;
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (OutputStream outputStream = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            objectMapper.writeValue(outputStream, rides);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,85 @@
+package de.projectride.ride.domain;
+
+import de.projectride.ride.config.DatabaseConfiguration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the JSON serialization of a ride with its places, with the object mapper the REST controllers
+ * use, which has the Hibernate4Module of {@link DatabaseConfiguration}, and without that module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RideSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper hibernateObjectMapper;
+
+    private Ride ride;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // configured like Spring Boot configures the object mapper of the application
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        hibernateObjectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new DatabaseConfiguration().hibernate4Module())
+            .build();
+        ride = new Ride()
+            .driverId(42L)
+            .startDateTime(ZonedDateTime.now().plusDays(1))
+            .flexibleStartPlace(5)
+            .flexibleEndPlace(5)
+            .price(12.5f)
+            .numberOfSeats(3)
+            .description("Mannheim to Berlin, via Frankfurt")
+            .createdAt(ZonedDateTime.now())
+            .deleted(false)
+            .startPlace(new Place().cityName("Mannheim").postcode(68159).latitude(49.4875).longitude(8.4660))
+            .endPlace(new Place().cityName("Berlin").postcode(10115).latitude(52.5200).longitude(13.4050));
+        ride.setId(1L);
+        ride.getStartPlace().setId(1L);
+        ride.getEndPlace().setId(2L);
+        json = hibernateObjectMapper.writeValueAsBytes(ride);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(ride);
+    }
+
+    @Benchmark
+    public byte[] serializeWithHibernate4Module() throws IOException {
+        return hibernateObjectMapper.writeValueAsBytes(ride);
+    }
+
+    @Benchmark
+    public Ride deserialize() throws IOException {
+        return hibernateObjectMapper.readValue(json, Ride.class);
+    }
+}
@@ -0,0 +1,70 @@
+package de.projectride.ride.security.jwt;
+
+import de.projectride.ride.config.JHipsterProperties;
+
+import com.codahale.metrics.MetricRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the JWT handling done on every authenticated request, with and without the authentication cache.
+ *
+ * @see TokenProvider
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private TokenProvider tokenProvider;
+
+    private TokenProvider uncachedTokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = createTokenProvider(10000);
+        uncachedTokenProvider = createTokenProvider(0);
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user", "",
+            AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN")), false);
+    }
+
+    @Benchmark
+    public Authentication getValidAuthentication() {
+        return tokenProvider.getValidAuthentication(token);
+    }
+
+    @Benchmark
+    public Authentication getValidAuthenticationWithoutCache() {
+        return uncachedTokenProvider.getValidAuthentication(token);
+    }
+
+    private static TokenProvider createTokenProvider(int cacheMaxEntries) {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret("140a6ee30aa734d05dbc912eddcaef5eedbfb331");
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setCacheMaxEntries(cacheMaxEntries);
+        TokenProvider tokenProvider = new TokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jHipsterProperties", jHipsterProperties);
+        ReflectionTestUtils.setField(tokenProvider, "metricRegistry", new MetricRegistry());
+        tokenProvider.init();
+        return tokenProvider;
+    }
+}
@@ -0,0 +1,87 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Reservation;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the seat reservations from concurrent threads, in the application context of the tests, against H2.
+ *
+ * <p>
+ * Each operation reserves a seat of a random ride, and cancels the reservation if it got one, so that the seats
+ * don't run out: with a single ride every reservation contends for the same row, while with many rides they
+ * rarely conflict.
+ * </p>
+ *
+ * @see ReservationService#reserveSeat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ReservationThroughputBenchmark {
+
+    @Param({"1", "100"})
+    private int numberOfRides;
+
+    private ConfigurableApplicationContext context;
+
+    private ReservationService reservationService;
+
+    private List<Long> rideIds;
+
+    @Setup
+    public void startApplication() {
+        // without logging the SQL, which would take most of the time of a reservation
+        context = new SpringApplicationBuilder(RideApp.class).web(false).properties("spring.jpa.show-sql=false").run();
+        reservationService = context.getBean(ReservationService.class);
+        RideRepository rideRepository = context.getBean(RideRepository.class);
+        rideIds = new ArrayList<>();
+        for (int i = 0; i < numberOfRides; i++) {
+            rideIds.add(rideRepository.save(new Ride().numberOfSeats(7).deleted(false)).getId());
+        }
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Reservation reserveSeat() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Reservation reservation = reservationService.reserveSeat(rideIds.get(random.nextInt(rideIds.size())),
+                random.nextLong(Long.MAX_VALUE));
+            reservationService.delete(reservation.getId());
+            return reservation;
+        } catch (NoSeatAvailableException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.util.GeoUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark of the rides starting within a radius, found with the geohash prefixes of the covering cells as
+ * GET /api/rides/nearby does, and with a brute-force scan of all the rides, in the application context of the
+ * tests, against H2.
+ *
+ * @see RideService#findNearby
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RideNearbyBenchmark {
+
+    private static final double LATITUDE = 49.4875;
+
+    private static final double LONGITUDE = 8.4660;
+
+    @Param({"2000", "20000"})
+    private int numberOfRides;
+
+    @Param({"5", "25"})
+    private double radiusKm;
+
+    private ConfigurableApplicationContext context;
+
+    private RideService rideService;
+
+    private RideRepository rideRepository;
+
+    @Setup
+    public void startApplication() {
+        // without logging the SQL, which would take most of the time of a search
+        context = new SpringApplicationBuilder(RideApp.class).web(false).properties("spring.jpa.show-sql=false").run();
+        rideService = context.getBean(RideService.class);
+        rideRepository = context.getBean(RideRepository.class);
+        // rides starting all over Germany
+        Random random = new Random(42);
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < numberOfRides; i++) {
+            rides.add(new Ride()
+                .numberOfSeats(3)
+                .deleted(false)
+                .startPlace(new Place().latitude(47.5 + random.nextDouble() * 7).longitude(6 + random.nextDouble() * 9)));
+            if (rides.size() == 1000) {
+                rideService.saveAll(rides);
+                rides.clear();
+            }
+        }
+        rideService.saveAll(rides);
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Ride> geohash() {
+        return rideService.findNearby(LATITUDE, LONGITUDE, radiusKm, new PageRequest(0, 20));
+    }
+
+    @Benchmark
+    public List<Ride> bruteForce() {
+        return rideRepository.findAll().stream()
+            .filter(ride -> ride.getStartPlace() != null && ride.getStartPlace().getLatitude() != null)
+            .filter(ride -> GeoUtil.distanceKm(LATITUDE, LONGITUDE,
+                ride.getStartPlace().getLatitude(), ride.getStartPlace().getLongitude()) <= radiusKm)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,109 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the pages of the rides ordered by start date time, read with offset pagination, and with keyset
+ * pagination as GET /api/rides/seek does, in the application context of the tests, against H2.
+ *
+ * <p>
+ * The time to read an offset page grows with its number, as the previous pages are read and skipped, while the
+ * time to read a keyset page stays the same.
+ * </p>
+ *
+ * @see RideService#findAllOrderByStartDateTime
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RidePaginationBenchmark {
+
+    private static final int NUMBER_OF_RIDES = 50_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "100", "1000", "2400"})
+    private int page;
+
+    private ConfigurableApplicationContext context;
+
+    private RideService rideService;
+
+    private RideRepository rideRepository;
+
+    private Ride lastOfPreviousPage;
+
+    @Setup
+    public void startApplication() {
+        // without logging the SQL, which would take most of the time of a page
+        context = new SpringApplicationBuilder(RideApp.class).web(false).properties("spring.jpa.show-sql=false").run();
+        rideService = context.getBean(RideService.class);
+        rideRepository = context.getBean(RideRepository.class);
+        ZonedDateTime now = ZonedDateTime.now().withNano(0);
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_RIDES; i++) {
+            // two rides per minute, so that the id breaks the ties
+            rides.add(new Ride()
+                .numberOfSeats(3)
+                .price(10f)
+                .deleted(false)
+                .startDateTime(now.plusMinutes(i / 2))
+                .startPlace(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660))
+                .endPlace(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050)));
+            if (rides.size() == 1000) {
+                rideService.saveAll(rides);
+                rides.clear();
+            }
+        }
+        if (page > 0) {
+            List<Ride> previousPage = rideRepository.findAllOrderByStartDateTime(new PageRequest(page - 1, PAGE_SIZE));
+            lastOfPreviousPage = previousPage.get(previousPage.size() - 1);
+        }
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ride> offset() {
+        return rideRepository.findAllOrderByStartDateTime(new PageRequest(page, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<Ride> keyset() {
+        if (lastOfPreviousPage == null) {
+            return rideService.findAllOrderByStartDateTime(null, null, PAGE_SIZE);
+        }
+        return rideService.findAllOrderByStartDateTime(lastOfPreviousPage.getStartDateTime(),
+            lastOfPreviousPage.getId(), PAGE_SIZE);
+    }
+}
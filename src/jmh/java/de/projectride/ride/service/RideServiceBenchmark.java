@@ -0,0 +1,87 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark of the RideService service, in the application context of the tests, against H2.
+ *
+ * @see RideService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RideServiceBenchmark {
+
+    private static final int NUMBER_OF_RIDES = 1000;
+
+    private ConfigurableApplicationContext context;
+
+    private RideService rideService;
+
+    private List<Long> rideIds;
+
+    @Setup
+    public void startApplication() {
+        context = new SpringApplicationBuilder(RideApp.class).web(false).run();
+        rideService = context.getBean(RideService.class);
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_RIDES; i++) {
+            rides.add(new Ride()
+                .numberOfSeats(3)
+                .price(10f)
+                .deleted(false)
+                .startDateTime(ZonedDateTime.now().plusDays(1))
+                .startPlace(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660))
+                .endPlace(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050)));
+        }
+        rideIds = rideService.saveAll(rides).stream().map(BulkItemResultDTO::getId).collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ride> findAll() {
+        return rideService.findAll();
+    }
+
+    @Benchmark
+    public Ride findOne() {
+        return rideService.findOne(rideIds.get(ThreadLocalRandom.current().nextInt(rideIds.size())));
+    }
+
+    @Benchmark
+    public Ride save() {
+        return rideService.save(new Ride().numberOfSeats(3).price(10f).deleted(false)
+            .startDateTime(ZonedDateTime.now().plusDays(1)));
+    }
+}
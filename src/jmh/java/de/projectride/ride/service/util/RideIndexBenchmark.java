@@ -0,0 +1,104 @@
+package de.projectride.ride.service.util;
+
+import de.projectride.ride.service.RideMatchingService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the ride matching in a {@link RideIndex} of 1 million synthetic rides between German cities,
+ * starting within the next 30 days, about 1400 per hour.
+ *
+ * <p>
+ * A window of 2 hours holds less than {@link RideIndex#PARALLEL_THRESHOLD} rides, which are scored by the calling
+ * thread. A window of 12 hours holds about 35000 of them, scored in parallel on a pool like the cpuExecutor, or by
+ * the calling thread with {@link #matchSequentially}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RideIndexBenchmark {
+
+    private static final int NUMBER_OF_RIDES = 1_000_000;
+
+    private static final long NOW = 1_500_000_000L;
+
+    private static final long THIRTY_DAYS = TimeUnit.DAYS.toSeconds(30);
+
+    private static final double[][] CITIES = {
+        {49.4875, 8.4660}, {52.5200, 13.4050}, {48.1351, 11.5820}, {50.1109, 8.6821}, {53.5511, 9.9937},
+        {50.9375, 6.9603}, {48.7758, 9.1829}, {51.2277, 6.7735}, {51.3397, 12.3731}, {49.3988, 8.6724}
+    };
+
+    private static final RideIndex.MatchScorer SCORER = (detourKm, deviationSeconds, price) ->
+        RideMatchingService.DETOUR_KM_WEIGHT * detourKm
+            + RideMatchingService.DEVIATION_HOUR_WEIGHT * deviationSeconds / 3600
+            + RideMatchingService.PRICE_WEIGHT * price;
+
+    @Param({"2", "12"})
+    private int windowHours;
+
+    private RideIndex rideIndex;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void buildIndex() {
+        Random random = new Random(42);
+        rideIndex = new RideIndex();
+        for (long id = 1; id <= NUMBER_OF_RIDES; id++) {
+            double[] start = CITIES[random.nextInt(CITIES.length)];
+            double[] end = CITIES[random.nextInt(CITIES.length)];
+            // within about 5 km of the city centers
+            rideIndex.put(id,
+                start[0] + random.nextGaussian() * 0.03, start[1] + random.nextGaussian() * 0.03,
+                end[0] + random.nextGaussian() * 0.03, end[1] + random.nextGaussian() * 0.03,
+                NOW + (long) (random.nextDouble() * THIRTY_DAYS),
+                random.nextInt(20), random.nextInt(20), 5 + random.nextInt(40));
+        }
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<RideIndex.Match> match() {
+        return rideIndex.match(49.4875, 8.4660, 52.5200, 13.4050, NOW + THIRTY_DAYS / 2,
+            TimeUnit.HOURS.toSeconds(windowHours), 30, SCORER, executor);
+    }
+
+    @Benchmark
+    public List<RideIndex.Match> matchSequentially() {
+        return rideIndex.match(49.4875, 8.4660, 52.5200, 13.4050, NOW + THIRTY_DAYS / 2,
+            TimeUnit.HOURS.toSeconds(windowHours), 30, SCORER, Runnable::run);
+    }
+
+    @Benchmark
+    public long[] query() {
+        return rideIndex.query(49.4875, 8.4660, 52.5200, 13.4050, NOW + THIRTY_DAYS / 2,
+            TimeUnit.HOURS.toSeconds(windowHours));
+    }
+}
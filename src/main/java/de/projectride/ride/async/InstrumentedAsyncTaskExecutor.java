@@ -0,0 +1,93 @@
+package de.projectride.ride.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Records the time tasks wait in the queue of an executor, in the "name.wait" timer, and the time they run, in
+ * the "name.run" timer.
+ */
+public class InstrumentedAsyncTaskExecutor implements AsyncTaskExecutor,
+    InitializingBean, DisposableBean {
+
+    private final AsyncTaskExecutor executor;
+
+    private final Timer waits;
+
+    private final Timer runs;
+
+    public InstrumentedAsyncTaskExecutor(AsyncTaskExecutor executor, MetricRegistry metricRegistry, String name) {
+        this.executor = executor;
+        this.waits = metricRegistry.timer(MetricRegistry.name(name, "wait"));
+        this.runs = metricRegistry.timer(MetricRegistry.name(name, "run"));
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(createWrappedRunnable(task));
+    }
+
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        executor.execute(createWrappedRunnable(task), startTimeout);
+    }
+
+    private <T> Callable<T> createCallable(final Callable<T> task) {
+        long submitted = System.nanoTime();
+        return () -> {
+            waits.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            final Timer.Context context = runs.time();
+            try {
+                return task.call();
+            } finally {
+                context.stop();
+            }
+        };
+    }
+
+    private Runnable createWrappedRunnable(final Runnable task) {
+        long submitted = System.nanoTime();
+        return () -> {
+            waits.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            final Timer.Context context = runs.time();
+            try {
+                task.run();
+            } finally {
+                context.stop();
+            }
+        };
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return executor.submit(createWrappedRunnable(task));
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(createCallable(task));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (executor instanceof DisposableBean) {
+            DisposableBean bean = (DisposableBean) executor;
+            bean.destroy();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (executor instanceof InitializingBean) {
+            InitializingBean bean = (InitializingBean) executor;
+            bean.afterPropertiesSet();
+        }
+    }
+}
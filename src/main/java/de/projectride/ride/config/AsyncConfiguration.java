@@ -1,20 +1,38 @@
 package de.projectride.ride.config;
 
 import de.projectride.ride.async.ExceptionHandlingAsyncTaskExecutor;
+import de.projectride.ride.async.InstrumentedAsyncTaskExecutor;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.annotation.*;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
 
 import javax.inject.Inject;
 
+/**
+ * Configures the executors of the application, each with its own thread pool, see
+ * {@link JHipsterProperties.Async}.
+ *
+ * <p>
+ * Each executor "name" is measured in the metric registry: the "name.active", "name.queue" and "name.completed"
+ * gauges, the "name.rejected" meter, and the "name.wait" and "name.run" timers of its tasks.
+ * </p>
+ */
 @Configuration
 @EnableAsync
 @EnableScheduling
@@ -25,20 +43,96 @@ public class AsyncConfiguration implements AsyncConfigurer {
     @Inject
     private JHipsterProperties jHipsterProperties;
 
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    /**
+     * Executor of the I/O-bound tasks, the default executor of the @Async methods.
+     */
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
         log.debug("Creating Async Task Executor");
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(jHipsterProperties.getAsync().getCorePoolSize());
-        executor.setMaxPoolSize(jHipsterProperties.getAsync().getMaxPoolSize());
-        executor.setQueueCapacity(jHipsterProperties.getAsync().getQueueCapacity());
-        executor.setThreadNamePrefix("ride-Executor-");
-        return new ExceptionHandlingAsyncTaskExecutor(executor);
+        return createExecutor("taskExecutor", "ride-Executor-", jHipsterProperties.getAsync().getIo());
+    }
+
+    /**
+     * Executor of the CPU-bound tasks, with about one thread per processor.
+     */
+    @Bean(name = "cpuExecutor")
+    public AsyncTaskExecutor cpuExecutor() {
+        log.debug("Creating CPU Task Executor");
+        return createExecutor("cpuExecutor", "ride-Cpu-", jHipsterProperties.getAsync().getCpu());
+    }
+
+    /**
+     * Executor of the asynchronous ride searches, separate from the taskExecutor so that searches don't wait
+     * behind other tasks. Its queue is bounded: when it is full, tasks are rejected with a TaskRejectedException.
+     */
+    @Bean(name = "searchExecutor")
+    public AsyncTaskExecutor searchExecutor() {
+        log.debug("Creating Search Task Executor");
+        return createExecutor("searchExecutor", "ride-Search-", jHipsterProperties.getAsync().getSearch());
+    }
+
+    /**
+     * Executor of the event streams, separate from the taskExecutor so that slow subscribers, which block the
+     * threads sending them the events, don't hold the threads of the other tasks.
+     */
+    @Bean(name = "streamExecutor")
+    public AsyncTaskExecutor streamExecutor() {
+        log.debug("Creating Stream Task Executor");
+        return createExecutor("streamExecutor", "ride-Stream-", jHipsterProperties.getAsync().getStream());
+    }
+
+    /**
+     * Scheduler of the @Scheduled methods, instead of the default single thread.
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        log.debug("Creating Task Scheduler");
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(jHipsterProperties.getAsync().getScheduled().getPoolSize());
+        scheduler.setThreadNamePrefix("ride-Scheduler-");
+        Meter rejections = metricRegistry.meter(MetricRegistry.name("taskScheduler", "rejected"));
+        scheduler.setRejectedExecutionHandler((task, pool) -> {
+            rejections.mark();
+            throw new RejectedExecutionException("Task Scheduler is shut down");
+        });
+        registerGauges("taskScheduler", scheduler::getScheduledThreadPoolExecutor);
+        return scheduler;
     }
 
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
     }
+
+    private AsyncTaskExecutor createExecutor(String name, String threadNamePrefix, JHipsterProperties.Async.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(pool.getMaxPoolSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setThreadNamePrefix(threadNamePrefix);
+        Meter rejections = metricRegistry.meter(MetricRegistry.name(name, "rejected"));
+        executor.setRejectedExecutionHandler((task, threadPool) -> {
+            rejections.mark();
+            throw new RejectedExecutionException(name + " is saturated, " + threadPool.getQueue().size() +
+                " tasks waiting");
+        });
+        registerGauges(name, executor::getThreadPoolExecutor);
+        return new InstrumentedAsyncTaskExecutor(new ExceptionHandlingAsyncTaskExecutor(executor), metricRegistry, name);
+    }
+
+    /**
+     * The gauges read the pool lazily, as it is created when its executor is initialized.
+     */
+    private void registerGauges(String name, Supplier<? extends ThreadPoolExecutor> pool) {
+        metricRegistry.register(MetricRegistry.name(name, "active"),
+            (Gauge<Integer>) () -> pool.get().getActiveCount());
+        metricRegistry.register(MetricRegistry.name(name, "queue"),
+            (Gauge<Integer>) () -> pool.get().getQueue().size());
+        metricRegistry.register(MetricRegistry.name(name, "completed"),
+            (Gauge<Long>) () -> pool.get().getCompletedTaskCount());
+    }
 }
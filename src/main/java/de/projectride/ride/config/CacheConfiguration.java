@@ -1,36 +1,108 @@
 package de.projectride.ride.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.ehcache.EhCacheCacheManager;
 import org.springframework.context.annotation.*;
-import org.springframework.cache.support.NoOpCacheManager; 
+import org.springframework.util.Assert;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.PluralAttribute;
+import java.util.Set;
 
 @SuppressWarnings("unused")
 @Configuration
 @EnableCaching
+@Profile("!" + Constants.SPRING_PROFILE_HAZELCAST)
 @AutoConfigureAfter(value = { MetricsConfiguration.class, DatabaseConfiguration.class })
 public class CacheConfiguration {
 
+    private static final String[] QUERY_CACHES = {
+        "org.hibernate.cache.internal.StandardQueryCache",
+        "org.hibernate.cache.spi.UpdateTimestampsCache"
+    };
+
     private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
 
-    private CacheManager cacheManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private net.sf.ehcache.CacheManager cacheManager;
 
     @PreDestroy
     public void destroy() {
+        log.info("Remove Cache Manager metrics");
+        metricRegistry.removeMatching((name, metric) -> name.startsWith("cache."));
         log.info("Closing Cache Manager");
+        cacheManager.shutdown();
     }
 
     @Bean
-    public CacheManager cacheManager() {
-        log.debug("No cache");
-        cacheManager = new NoOpCacheManager();
-        return cacheManager;
+    public CacheManager cacheManager(JHipsterProperties jHipsterProperties) {
+        log.debug("Starting Ehcache");
+        // the same singleton is used by Hibernate, see hibernate.cache.region.factory_class
+        cacheManager = net.sf.ehcache.CacheManager.create();
+        log.debug("Registering Ehcache Metrics gauges");
+        Set<EntityType<?>> entities = entityManager.getMetamodel().getEntities();
+        for (EntityType<?> entity : entities) {
+            String name = entity.getJavaType().getName();
+            Assert.notNull(name, "entity cannot exist without an identifier");
+            JHipsterProperties.Cache.Entity entityProperties =
+                jHipsterProperties.getCache().getEntities().get(entity.getName());
+            reconfigureCache(name, jHipsterProperties, entityProperties);
+            for (PluralAttribute pluralAttribute : entity.getPluralAttributes()) {
+                reconfigureCache(name + "." + pluralAttribute.getName(), jHipsterProperties, entityProperties);
+            }
+        }
+        for (String name : QUERY_CACHES) {
+            reconfigureCache(name, jHipsterProperties, null);
+        }
+        EhCacheCacheManager ehCacheManager = new EhCacheCacheManager();
+        ehCacheManager.setCacheManager(cacheManager);
+        return ehCacheManager;
     }
 
+    private void reconfigureCache(String name, JHipsterProperties jHipsterProperties,
+                                  JHipsterProperties.Cache.Entity entityProperties) {
+        net.sf.ehcache.Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            return;
+        }
+        long timeToLiveSeconds = jHipsterProperties.getCache().getTimeToLiveSeconds();
+        long maxEntriesLocalHeap = jHipsterProperties.getCache().getEhcache().getMaxEntriesLocalHeap();
+        if (entityProperties != null && entityProperties.getTimeToLiveSeconds() != null) {
+            timeToLiveSeconds = entityProperties.getTimeToLiveSeconds();
+        }
+        if (entityProperties != null && entityProperties.getMaxEntriesLocalHeap() != null) {
+            maxEntriesLocalHeap = entityProperties.getMaxEntriesLocalHeap();
+        }
+        if (!name.equals("org.hibernate.cache.spi.UpdateTimestampsCache")) {
+            // the update timestamps must outlive the cached queries, so they never expire
+            cache.getCacheConfiguration().setTimeToLiveSeconds(timeToLiveSeconds);
+            cache.getCacheConfiguration().setMaxEntriesLocalHeap(maxEntriesLocalHeap);
+        }
+        String prefix = MetricRegistry.name("cache", name);
+        metricRegistry.register(MetricRegistry.name(prefix, "hits"),
+            (Gauge<Long>) () -> cache.getStatistics().cacheHitCount());
+        metricRegistry.register(MetricRegistry.name(prefix, "misses"),
+            (Gauge<Long>) () -> cache.getStatistics().cacheMissCount());
+        metricRegistry.register(MetricRegistry.name(prefix, "evictions"),
+            (Gauge<Long>) () -> cache.getStatistics().cacheEvictedCount());
+        metricRegistry.register(MetricRegistry.name(prefix, "expirations"),
+            (Gauge<Long>) () -> cache.getStatistics().cacheExpiredCount());
+        metricRegistry.register(MetricRegistry.name(prefix, "size"),
+            (Gauge<Long>) () -> cache.getStatistics().getSize());
+    }
 }
@@ -0,0 +1,33 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.config.http.MappingJackson2CborHttpMessageConverter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * Adds the CBOR message converter, for the resources which produce application/cbor.
+ *
+ * <p>
+ * It is added after the other converters, and not as a bean, which Spring Boot would put before them: the responses
+ * are only written in CBOR when the client asks for it, with Accept: application/cbor, and never in place of JSON.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jhipster.http", name = "cbor-enabled", matchIfMissing = true)
+public class CborConfiguration extends WebMvcConfigurerAdapter {
+
+    @Inject
+    private Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2CborHttpMessageConverter(jacksonObjectMapperBuilder));
+    }
+}
@@ -18,6 +18,8 @@ public final class Constants {
     public static final String SPRING_PROFILE_SWAGGER = "swagger";
     // Spring profile used to disable running liquibase
     public static final String SPRING_PROFILE_NO_LIQUIBASE = "no-liquibase";
+    // Spring profile used to share the caches between all instances of the service with Hazelcast
+    public static final String SPRING_PROFILE_HAZELCAST = "hazelcast";
 
     public static final String SYSTEM_ACCOUNT = "system";
 
@@ -15,6 +15,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
@@ -62,6 +63,16 @@ public class DatabaseConfiguration {
         return liquibase;
     }
 
+    /**
+     * Validator of the entities saved in bulk, which aren't validated by Spring MVC.
+     *
+     * @return the Bean Validation validator
+     */
+    @Bean
+    public LocalValidatorFactoryBean validator() {
+        return new LocalValidatorFactoryBean();
+    }
+
     @Bean
     public Hibernate4Module hibernate4Module() {
         return new Hibernate4Module();
@@ -0,0 +1,225 @@
+package de.projectride.ride.config;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.monitor.NearCacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.PluralAttribute;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clustered replacement of {@link CacheConfiguration}, enabled with the "hazelcast" profile.
+ *
+ * <p>
+ * All the instances of the service registered in Eureka join one Hazelcast cluster, which holds the Hibernate
+ * 2nd level cache and the Spring caches. An entity saved by one instance is therefore never served stale by
+ * another: the cluster invalidates the near caches that the instances keep for the hot entities, see
+ * {@link JHipsterProperties.Cache.Entity#isNearCache()}.
+ * </p>
+ */
+@SuppressWarnings("unused")
+@Configuration
+@EnableCaching
+@Profile(Constants.SPRING_PROFILE_HAZELCAST)
+@AutoConfigureAfter(value = { MetricsConfiguration.class })
+public class HazelcastCacheConfiguration {
+
+    public static final String INSTANCE_NAME = "ride";
+
+    private static final String DOMAIN_PACKAGE = "de.projectride.ride.domain";
+
+    private final Logger log = LoggerFactory.getLogger(HazelcastCacheConfiguration.class);
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private Environment env;
+
+    @Inject
+    private ServerProperties serverProperties;
+
+    @Inject
+    private DiscoveryClient discoveryClient;
+
+    private HazelcastInstance hazelcastInstance;
+
+    @PreDestroy
+    public void destroy() {
+        log.info("Remove Cache Manager metrics");
+        metricRegistry.removeMatching((name, metric) -> name.startsWith("cache."));
+        log.info("Closing Cluster Cache Manager");
+        hazelcastInstance.shutdown();
+    }
+
+    @Bean
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+        log.debug("Configuring Hazelcast");
+        JHipsterProperties.Cache cacheProperties = jHipsterProperties.getCache();
+        // The serviceId is by default the application's name, see Spring Boot's eureka.instance.appname property
+        String serviceId = discoveryClient.getLocalServiceInstance().getServiceId();
+        log.debug("Configuring Hazelcast clustering for serviceId: {}", serviceId);
+        List<String> members = new ArrayList<>();
+        int port = cacheProperties.getHazelcast().getPort();
+        Config config;
+        if (env.acceptsProfiles(Constants.SPRING_PROFILE_DEVELOPMENT)) {
+            // In development, everything goes through 127.0.0.1, with a port offset by the server port
+            log.debug("Application is running with the \"dev\" profile, Hazelcast " +
+                "cluster will only work with localhost instances");
+            for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                members.add("127.0.0.1:" + (instance.getPort() + port));
+            }
+            config = createConfig(INSTANCE_NAME, serverProperties.getPort() + port, members, cacheProperties);
+            config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        } else {
+            // In production, one host per instance, all using the same port
+            for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                members.add(instance.getHost() + ":" + port);
+            }
+            config = createConfig(INSTANCE_NAME, port, members, cacheProperties);
+        }
+        log.debug("Adding Hazelcast cluster members {}", members);
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        return hazelcastInstance;
+    }
+
+    @Bean
+    public CacheManager cacheManager(HazelcastInstance hazelcastInstance, EntityManagerFactory entityManagerFactory) {
+        log.debug("Starting HazelcastCacheManager");
+        log.debug("Registering Hazelcast Metrics gauges");
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            String name = entity.getJavaType().getName();
+            registerMetrics(hazelcastInstance.getMap(name));
+            for (PluralAttribute pluralAttribute : entity.getPluralAttributes()) {
+                registerMetrics(hazelcastInstance.getMap(name + "." + pluralAttribute.getName()));
+            }
+        }
+        return new com.hazelcast.spring.cache.HazelcastCacheManager(hazelcastInstance);
+    }
+
+    /**
+     * Create the configuration of a cluster member joining the given members with TCP/IP.
+     *
+     * @param instanceName the name of the Hazelcast instance, used by Hibernate to look it up
+     * @param port the port of the member
+     * @param members the addresses of the other members, as "host:port"
+     * @param cacheProperties the cache settings
+     * @return the member configuration
+     */
+    public static Config createConfig(String instanceName, int port, List<String> members,
+                                      JHipsterProperties.Cache cacheProperties) {
+        Config config = new Config();
+        config.setInstanceName(instanceName);
+        config.setProperty("hazelcast.logging.type", "slf4j");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        // the instance is shut down with the Spring context, see destroy()
+        config.setProperty("hazelcast.shutdownhook.enabled", "false");
+        // send near cache invalidations right away, instead of batching them for up to 10 seconds
+        config.setProperty("hazelcast.map.invalidation.batch.enabled", "false");
+        config.getNetworkConfig().setPort(port);
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).setMembers(members);
+        config.addMapConfig(createMapConfig("default", cacheProperties, null));
+        for (Map.Entry<String, JHipsterProperties.Cache.Entity> entry : cacheProperties.getEntities().entrySet()) {
+            String region = DOMAIN_PACKAGE + "." + entry.getKey();
+            MapConfig entityMapConfig = createMapConfig(region, cacheProperties, entry.getValue());
+            if (entry.getValue().isNearCache()) {
+                entityMapConfig.setNearCacheConfig(createNearCacheConfig(entityMapConfig));
+            }
+            config.addMapConfig(entityMapConfig);
+            // the collection regions of the entity, like de.projectride.ride.domain.Ride.reservations
+            config.addMapConfig(createMapConfig(region + ".*", cacheProperties, entry.getValue()));
+        }
+        return config;
+    }
+
+    private static MapConfig createMapConfig(String name, JHipsterProperties.Cache cacheProperties,
+                                             JHipsterProperties.Cache.Entity entityProperties) {
+        int timeToLiveSeconds = cacheProperties.getTimeToLiveSeconds();
+        int maxSize = cacheProperties.getHazelcast().getMaxSizePerNode();
+        if (entityProperties != null && entityProperties.getTimeToLiveSeconds() != null) {
+            timeToLiveSeconds = entityProperties.getTimeToLiveSeconds();
+        }
+        if (entityProperties != null && entityProperties.getMaxEntriesLocalHeap() != null) {
+            maxSize = entityProperties.getMaxEntriesLocalHeap().intValue();
+        }
+        MapConfig mapConfig = new MapConfig(name);
+        mapConfig.setBackupCount(cacheProperties.getHazelcast().getBackupCount());
+        mapConfig.setTimeToLiveSeconds(timeToLiveSeconds);
+        mapConfig.setEvictionPolicy(EvictionPolicy.LRU);
+        mapConfig.setMaxSizeConfig(new MaxSizeConfig(maxSize, MaxSizeConfig.MaxSizePolicy.PER_NODE));
+        return mapConfig;
+    }
+
+    private static NearCacheConfig createNearCacheConfig(MapConfig mapConfig) {
+        NearCacheConfig nearCacheConfig = new NearCacheConfig();
+        // entries updated or removed on any member are evicted from the near caches of all the members
+        nearCacheConfig.setInvalidateOnChange(true);
+        nearCacheConfig.setCacheLocalEntries(true);
+        nearCacheConfig.setInMemoryFormat(InMemoryFormat.OBJECT);
+        nearCacheConfig.setEvictionPolicy(EvictionPolicy.LRU.name());
+        nearCacheConfig.setMaxSize(mapConfig.getMaxSizeConfig().getSize());
+        nearCacheConfig.setTimeToLiveSeconds(mapConfig.getTimeToLiveSeconds());
+        return nearCacheConfig;
+    }
+
+    private void registerMetrics(IMap<?, ?> map) {
+        String prefix = MetricRegistry.name("cache", map.getName());
+        metricRegistry.register(MetricRegistry.name(prefix, "hits"),
+            (Gauge<Long>) () -> map.getLocalMapStats().getHits());
+        metricRegistry.register(MetricRegistry.name(prefix, "size"),
+            (Gauge<Long>) () -> map.getLocalMapStats().getOwnedEntryCount());
+        if (map.getLocalMapStats().getNearCacheStats() != null) {
+            metricRegistry.register(MetricRegistry.name(prefix, "near", "hits"),
+                (Gauge<Long>) () -> nearCacheStats(map).getHits());
+            metricRegistry.register(MetricRegistry.name(prefix, "near", "misses"),
+                (Gauge<Long>) () -> nearCacheStats(map).getMisses());
+        }
+    }
+
+    private static NearCacheStats nearCacheStats(IMap<?, ?> map) {
+        return map.getLocalMapStats().getNearCacheStats();
+    }
+
+    /**
+     * Hibernate must find the Hazelcast instance started above, see hibernate.cache.hazelcast.instance_name.
+     */
+    @Configuration
+    @Profile(Constants.SPRING_PROFILE_HAZELCAST)
+    protected static class HazelcastJpaDependencyConfiguration extends EntityManagerFactoryDependsOnPostProcessor {
+
+        public HazelcastJpaDependencyConfiguration() {
+            super("hazelcastInstance");
+        }
+    }
+}
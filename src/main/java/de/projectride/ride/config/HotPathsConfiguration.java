@@ -0,0 +1,54 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.config.metrics.HotPathInterceptor;
+import de.projectride.ride.config.metrics.HotPathRecorder;
+import de.projectride.ride.config.metrics.HotPathsEndpoint;
+import de.projectride.ride.config.metrics.RepositoryHotPathAspect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import javax.inject.Inject;
+
+/**
+ * Records the latencies of a sample of the calls at the REST and repository boundaries only, unlike the
+ * LoggingAspect of the dev profile which proxies every service call, and lists them at /management/hotpaths.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+@ConditionalOnProperty(prefix = "jhipster.metrics.hotPaths", name = "enabled")
+public class HotPathsConfiguration extends WebMvcConfigurerAdapter {
+
+    private final Logger log = LoggerFactory.getLogger(HotPathsConfiguration.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Bean
+    public HotPathRecorder hotPathRecorder() {
+        double sampleRate = jHipsterProperties.getMetrics().getHotPaths().getSampleRate();
+        log.info("Recording the hot paths of {}% of the calls", sampleRate * 100);
+        return new HotPathRecorder(sampleRate);
+    }
+
+    @Bean
+    public RepositoryHotPathAspect repositoryHotPathAspect() {
+        return new RepositoryHotPathAspect(hotPathRecorder());
+    }
+
+    @Bean
+    public HotPathsEndpoint hotPathsEndpoint() {
+        return new HotPathsEndpoint(hotPathRecorder());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HotPathInterceptor(hotPathRecorder())).addPathPatterns("/api/**");
+    }
+}
@@ -1,8 +1,12 @@
 package de.projectride.ride.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.DeprecatedConfigurationProperty;
 import org.springframework.web.cors.CorsConfiguration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Properties specific to JHipster.
  *
@@ -15,6 +19,12 @@ public class JHipsterProperties {
 
     private final Async async = new Async();
 
+    private final Archive archive = new Archive();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Availability availability = new Availability();
+
     private final Http http = new Http();
 
     private final Cache cache = new Cache();
@@ -35,6 +45,18 @@ public class JHipsterProperties {
         return async;
     }
 
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Availability getAvailability() {
+        return availability;
+    }
+
     public Http getHttp() {
         return http;
     }
@@ -69,34 +91,388 @@ public class JHipsterProperties {
 
     public static class Async {
 
-        private int corePoolSize = 2;
+        private final Pool io = new Pool(10, 50, 1000);
+
+        private final Pool cpu = new Pool(Runtime.getRuntime().availableProcessors(),
+            Runtime.getRuntime().availableProcessors(), 1000);
+
+        private final Pool search = new Pool(8, 8, 100);
+
+        private final Pool stream = new Pool(4, 4, 1000);
+
+        private final Scheduled scheduled = new Scheduled();
+
+        /**
+         * The pool of the taskExecutor, which runs the I/O-bound tasks: the @Async methods without qualifier,
+         * and Liquibase.
+         */
+        public Pool getIo() {
+            return io;
+        }
+
+        /**
+         * The pool of the cpuExecutor, which runs the CPU-bound tasks.
+         */
+        public Pool getCpu() {
+            return cpu;
+        }
+
+        /**
+         * The pool of the searchExecutor, which runs the asynchronous ride searches. It is bounded so that
+         * requests are rejected instead of waiting behind a long queue.
+         */
+        public Pool getSearch() {
+            return search;
+        }
 
-        private int maxPoolSize = 50;
+        /**
+         * The pool of the streamExecutor, which sends the change events to the subscribers of GET /api/events,
+         * one task per subscriber at most.
+         */
+        public Pool getStream() {
+            return stream;
+        }
 
-        private int queueCapacity = 10000;
+        public Scheduled getScheduled() {
+            return scheduled;
+        }
 
+        /**
+         * Alias of jhipster.async.io.corePoolSize, the single pool of the previous versions.
+         */
+        @Deprecated
+        @DeprecatedConfigurationProperty(replacement = "jhipster.async.io.core-pool-size")
         public int getCorePoolSize() {
-            return corePoolSize;
+            return io.getCorePoolSize();
         }
 
+        @Deprecated
         public void setCorePoolSize(int corePoolSize) {
-            this.corePoolSize = corePoolSize;
+            io.setCorePoolSize(corePoolSize);
         }
 
+        /**
+         * Alias of jhipster.async.io.maxPoolSize, the single pool of the previous versions.
+         */
+        @Deprecated
+        @DeprecatedConfigurationProperty(replacement = "jhipster.async.io.max-pool-size")
         public int getMaxPoolSize() {
-            return maxPoolSize;
+            return io.getMaxPoolSize();
         }
 
+        @Deprecated
         public void setMaxPoolSize(int maxPoolSize) {
-            this.maxPoolSize = maxPoolSize;
+            io.setMaxPoolSize(maxPoolSize);
         }
 
+        /**
+         * Alias of jhipster.async.io.queueCapacity, the single pool of the previous versions.
+         */
+        @Deprecated
+        @DeprecatedConfigurationProperty(replacement = "jhipster.async.io.queue-capacity")
         public int getQueueCapacity() {
-            return queueCapacity;
+            return io.getQueueCapacity();
         }
 
+        @Deprecated
         public void setQueueCapacity(int queueCapacity) {
-            this.queueCapacity = queueCapacity;
+            io.setQueueCapacity(queueCapacity);
+        }
+
+        /**
+         * A thread pool. Threads are added above the core pool size only when the queue is full, and tasks are
+         * rejected when the maximum pool size is reached too.
+         */
+        public static class Pool {
+
+            private int corePoolSize;
+
+            private int maxPoolSize;
+
+            private int queueCapacity;
+
+            public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+                this.corePoolSize = corePoolSize;
+                this.maxPoolSize = maxPoolSize;
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getCorePoolSize() {
+                return corePoolSize;
+            }
+
+            public void setCorePoolSize(int corePoolSize) {
+                this.corePoolSize = corePoolSize;
+            }
+
+            public int getMaxPoolSize() {
+                return maxPoolSize;
+            }
+
+            public void setMaxPoolSize(int maxPoolSize) {
+                this.maxPoolSize = maxPoolSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
+        /**
+         * The pool of the taskScheduler, which runs the @Scheduled methods.
+         */
+        public static class Scheduled {
+
+            private int poolSize = 2;
+
+            public int getPoolSize() {
+                return poolSize;
+            }
+
+            public void setPoolSize(int poolSize) {
+                this.poolSize = poolSize;
+            }
+        }
+    }
+
+    /**
+     * The archiving of the rides, by {@link de.projectride.ride.service.RideArchiveService}.
+     */
+    public static class Archive {
+
+        private int deletedRetentionDays = 30;
+
+        private int completedRetentionDays = 7;
+
+        private int batchSize = 500;
+
+        private long batchDelayMillis = 200;
+
+        private int partitionMonthsAhead = 3;
+
+        /**
+         * The number of days deleted rides are kept in the ride table, before they are archived.
+         */
+        public int getDeletedRetentionDays() {
+            return deletedRetentionDays;
+        }
+
+        public void setDeletedRetentionDays(int deletedRetentionDays) {
+            this.deletedRetentionDays = deletedRetentionDays;
+        }
+
+        /**
+         * The number of days rides are kept in the ride table once they have started, before they are archived.
+         */
+        public int getCompletedRetentionDays() {
+            return completedRetentionDays;
+        }
+
+        public void setCompletedRetentionDays(int completedRetentionDays) {
+            this.completedRetentionDays = completedRetentionDays;
+        }
+
+        /**
+         * The number of rides archived per transaction.
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * The pause between two batches, which throttles the archiving.
+         */
+        public long getBatchDelayMillis() {
+            return batchDelayMillis;
+        }
+
+        public void setBatchDelayMillis(long batchDelayMillis) {
+            this.batchDelayMillis = batchDelayMillis;
+        }
+
+        /**
+         * The number of months after the current one which have their own partition of the archive tables, on
+         * MySQL.
+         */
+        public int getPartitionMonthsAhead() {
+            return partitionMonthsAhead;
+        }
+
+        public void setPartitionMonthsAhead(int partitionMonthsAhead) {
+            this.partitionMonthsAhead = partitionMonthsAhead;
+        }
+    }
+
+    /**
+     * The change events of the outbox, published by {@link de.projectride.ride.service.OutboxRelayService} and
+     * streamed by {@link de.projectride.ride.service.EventStreamService}.
+     */
+    public static class Outbox {
+
+        private int batchSize = 500;
+
+        private long relayDelayMillis = 500;
+
+        private int retentionDays = 7;
+
+        private int streamBufferSize = 1000;
+
+        private long streamTimeoutMillis = 1800000;
+
+        private long streamPollMillis = 5000;
+
+        private final Kafka kafka = new Kafka();
+
+        /**
+         * The number of events published per transaction.
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * The pause between two runs of the relay, which bounds the delay before an event is published.
+         */
+        public long getRelayDelayMillis() {
+            return relayDelayMillis;
+        }
+
+        public void setRelayDelayMillis(long relayDelayMillis) {
+            this.relayDelayMillis = relayDelayMillis;
+        }
+
+        /**
+         * The number of days published events are kept, during which a stream can be resumed from them.
+         */
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        /**
+         * The number of the latest events kept in memory, from which the streams are sent.
+         */
+        public int getStreamBufferSize() {
+            return streamBufferSize;
+        }
+
+        public void setStreamBufferSize(int streamBufferSize) {
+            this.streamBufferSize = streamBufferSize;
+        }
+
+        /**
+         * The time after which a stream is closed, for the client to resume it.
+         */
+        public long getStreamTimeoutMillis() {
+            return streamTimeoutMillis;
+        }
+
+        public void setStreamTimeoutMillis(long streamTimeoutMillis) {
+            this.streamTimeoutMillis = streamTimeoutMillis;
+        }
+
+        /**
+         * The pause between two checks for events published by the other instances of the application.
+         */
+        public long getStreamPollMillis() {
+            return streamPollMillis;
+        }
+
+        public void setStreamPollMillis(long streamPollMillis) {
+            this.streamPollMillis = streamPollMillis;
+        }
+
+        public Kafka getKafka() {
+            return kafka;
+        }
+
+        public static class Kafka {
+
+            private String bootstrapServers = "localhost:9092";
+
+            private String topic = "ride-change-events";
+
+            private long sendTimeoutMillis = 10000;
+
+            /**
+             * The brokers the producer connects to first, as host:port separated by commas.
+             */
+            public String getBootstrapServers() {
+                return bootstrapServers;
+            }
+
+            public void setBootstrapServers(String bootstrapServers) {
+                this.bootstrapServers = bootstrapServers;
+            }
+
+            /**
+             * The topic of the events, keyed by their aggregate.
+             */
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+
+            /**
+             * The time a batch waits for the acknowledgement of its events, before it is rolled back.
+             */
+            public long getSendTimeoutMillis() {
+                return sendTimeoutMillis;
+            }
+
+            public void setSendTimeoutMillis(long sendTimeoutMillis) {
+                this.sendTimeoutMillis = sendTimeoutMillis;
+            }
+        }
+    }
+
+    /**
+     * The streams of the seats of the rides, by {@link de.projectride.ride.service.SeatAvailabilityService}.
+     */
+    public static class Availability {
+
+        private long streamTimeoutMillis = 1800000;
+
+        private int fanOutChunkSize = 500;
+
+        /**
+         * The time after which a stream is closed, for the client to open it again.
+         */
+        public long getStreamTimeoutMillis() {
+            return streamTimeoutMillis;
+        }
+
+        public void setStreamTimeoutMillis(long streamTimeoutMillis) {
+            this.streamTimeoutMillis = streamTimeoutMillis;
+        }
+
+        /**
+         * The number of subscribers a change of the seats is sent to per task of the taskExecutor.
+         */
+        public int getFanOutChunkSize() {
+            return fanOutChunkSize;
+        }
+
+        public void setFanOutChunkSize(int fanOutChunkSize) {
+            this.fanOutChunkSize = fanOutChunkSize;
         }
     }
 
@@ -104,10 +480,20 @@ public class JHipsterProperties {
 
         private final Cache cache = new Cache();
 
+        private boolean cborEnabled = true;
+
         public Cache getCache() {
             return cache;
         }
 
+        public boolean isCborEnabled() {
+            return cborEnabled;
+        }
+
+        public void setCborEnabled(boolean cborEnabled) {
+            this.cborEnabled = cborEnabled;
+        }
+
         public static class Cache {
 
             private int timeToLiveInDays = 1461;
@@ -126,6 +512,13 @@ public class JHipsterProperties {
 
         private int timeToLiveSeconds = 3600;
 
+        private final Ehcache ehcache = new Ehcache();
+
+        private final Hazelcast hazelcast = new Hazelcast();
+
+        /** Cache settings overriding the defaults, keyed by entity name, for example "Ride". */
+        private final Map<String, Entity> entities = new HashMap<>();
+
         public int getTimeToLiveSeconds() {
             return timeToLiveSeconds;
         }
@@ -133,6 +526,99 @@ public class JHipsterProperties {
         public void setTimeToLiveSeconds(int timeToLiveSeconds) {
             this.timeToLiveSeconds = timeToLiveSeconds;
         }
+
+        public Ehcache getEhcache() {
+            return ehcache;
+        }
+
+        public Hazelcast getHazelcast() {
+            return hazelcast;
+        }
+
+        public Map<String, Entity> getEntities() {
+            return entities;
+        }
+
+        public static class Ehcache {
+
+            private long maxEntriesLocalHeap = 10000;
+
+            public long getMaxEntriesLocalHeap() {
+                return maxEntriesLocalHeap;
+            }
+
+            public void setMaxEntriesLocalHeap(long maxEntriesLocalHeap) {
+                this.maxEntriesLocalHeap = maxEntriesLocalHeap;
+            }
+        }
+
+        public static class Hazelcast {
+
+            /** Cluster port; in development each instance uses this port plus its server port. */
+            private int port = 5701;
+
+            private int backupCount = 1;
+
+            private int maxSizePerNode = 10000;
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public int getBackupCount() {
+                return backupCount;
+            }
+
+            public void setBackupCount(int backupCount) {
+                this.backupCount = backupCount;
+            }
+
+            public int getMaxSizePerNode() {
+                return maxSizePerNode;
+            }
+
+            public void setMaxSizePerNode(int maxSizePerNode) {
+                this.maxSizePerNode = maxSizePerNode;
+            }
+        }
+
+        public static class Entity {
+
+            private Integer timeToLiveSeconds;
+
+            private Long maxEntriesLocalHeap;
+
+            /** Whether each instance keeps a near cache of the entity, only used by the clustered cache. */
+            private boolean nearCache;
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getMaxEntriesLocalHeap() {
+                return maxEntriesLocalHeap;
+            }
+
+            public void setMaxEntriesLocalHeap(Long maxEntriesLocalHeap) {
+                this.maxEntriesLocalHeap = maxEntriesLocalHeap;
+            }
+
+            public boolean isNearCache() {
+                return nearCache;
+            }
+
+            public void setNearCache(boolean nearCache) {
+                this.nearCache = nearCache;
+            }
+        }
     }
 
     public static class Mail {
@@ -171,6 +657,8 @@ public class JHipsterProperties {
 
                 private long tokenValidityInSecondsForRememberMe = 2592000;
 
+                private int cacheMaxEntries = 10000;
+
                 public String getSecret() {
                     return secret;
                 }
@@ -194,6 +682,17 @@ public class JHipsterProperties {
                 public void setTokenValidityInSecondsForRememberMe(long tokenValidityInSecondsForRememberMe) {
                     this.tokenValidityInSecondsForRememberMe = tokenValidityInSecondsForRememberMe;
                 }
+
+                /**
+                 * @return the maximum number of validated tokens whose authentication is kept, 0 to parse every token
+                 */
+                public int getCacheMaxEntries() {
+                    return cacheMaxEntries;
+                }
+
+                public void setCacheMaxEntries(int cacheMaxEntries) {
+                    this.cacheMaxEntries = cacheMaxEntries;
+                }
             }
         }
     }
@@ -301,6 +800,10 @@ public class JHipsterProperties {
 
         private final Logs logs = new Logs();
 
+        private final HotPaths hotPaths = new HotPaths();
+
+        private final Jdbc jdbc = new Jdbc();
+
         public Jmx getJmx() {
             return jmx;
         }
@@ -317,6 +820,14 @@ public class JHipsterProperties {
             return logs;
         }
 
+        public HotPaths getHotPaths() {
+            return hotPaths;
+        }
+
+        public Jdbc getJdbc() {
+            return jdbc;
+        }
+
         public static class Jmx {
 
             private boolean enabled = true;
@@ -428,6 +939,85 @@ public class JHipsterProperties {
                 this.enabled = enabled;
             }
         }
+
+        /**
+         * Latency histograms of a sample of the REST requests and repository calls, see /management/hotpaths.
+         */
+        public static class HotPaths {
+
+            private boolean enabled = false;
+
+            private double sampleRate = 0.1;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getSampleRate() {
+                return sampleRate;
+            }
+
+            public void setSampleRate(double sampleRate) {
+                this.sampleRate = sampleRate;
+            }
+        }
+
+        /**
+         * Timing of the JDBC statements per SQL shape, and log of the slow statements, see /management/slowqueries.
+         */
+        public static class Jdbc {
+
+            private boolean enabled = false;
+
+            private long slowQueryThreshold = 200;
+
+            private int topN = 20;
+
+            private boolean redactParameters = true;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            /**
+             * The duration in milliseconds from which a statement is logged as slow.
+             */
+            public long getSlowQueryThreshold() {
+                return slowQueryThreshold;
+            }
+
+            public void setSlowQueryThreshold(long slowQueryThreshold) {
+                this.slowQueryThreshold = slowQueryThreshold;
+            }
+
+            public int getTopN() {
+                return topN;
+            }
+
+            public void setTopN(int topN) {
+                this.topN = topN;
+            }
+
+            /**
+             * Whether the bind parameters of the slow statements are logged with their types only, instead of their
+             * values.
+             */
+            public boolean isRedactParameters() {
+                return redactParameters;
+            }
+
+            public void setRedactParameters(boolean redactParameters) {
+                this.redactParameters = redactParameters;
+            }
+        }
     }
 
     private final Logging logging = new Logging();
@@ -0,0 +1,76 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.config.jdbc.InstrumentedDataSource;
+import de.projectride.ride.config.jdbc.InstrumentedDataSourcePostProcessor;
+import de.projectride.ride.config.jdbc.JdbcRecorder;
+import de.projectride.ride.config.jdbc.SlowQueriesEndpoint;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.boot.autoconfigure.jdbc.metadata.HikariDataSourcePoolMetadata;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Instruments the data source, to time the JDBC statements per SQL shape and log the slow ones, see
+ * /management/slowqueries.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jhipster.metrics.jdbc", name = "enabled")
+public class JdbcMetricsConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(JdbcMetricsConfiguration.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    /**
+     * Static, as a post processor is created before the other beans.
+     */
+    @Bean
+    public static InstrumentedDataSourcePostProcessor instrumentedDataSourcePostProcessor(
+        ObjectFactory<JdbcRecorder> jdbcRecorder) {
+        return new InstrumentedDataSourcePostProcessor(jdbcRecorder);
+    }
+
+    /**
+     * The metadata of the Hikari pool behind the instrumentation, for the datasource.primary.* metrics, as Spring
+     * Boot only recognizes the pool itself.
+     */
+    @Bean
+    public DataSourcePoolMetadataProvider instrumentedDataSourcePoolMetadataProvider() {
+        return dataSource -> {
+            if (dataSource instanceof InstrumentedDataSource) {
+                DataSource target = ((InstrumentedDataSource) dataSource).getTargetDataSource();
+                if (target instanceof HikariDataSource) {
+                    return new HikariDataSourcePoolMetadata((HikariDataSource) target);
+                }
+            }
+            return null;
+        };
+    }
+
+    @Bean
+    public JdbcRecorder jdbcRecorder() {
+        JHipsterProperties.Metrics.Jdbc properties = jHipsterProperties.getMetrics().getJdbc();
+        log.info("Recording the JDBC statements, logging the ones slower than {} ms",
+            properties.getSlowQueryThreshold());
+        return new JdbcRecorder(metricRegistry, properties);
+    }
+
+    @Bean
+    public SlowQueriesEndpoint slowQueriesEndpoint() {
+        return new SlowQueriesEndpoint(jdbcRecorder());
+    }
+}
@@ -0,0 +1,55 @@
+package de.projectride.ride.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The producer of the change events, used by {@link de.projectride.ride.service.KafkaOutboxEventSink}.
+ *
+ * <p>
+ * An event is acknowledged once all the in-sync replicas have it, and one request at a time is in flight per
+ * broker, so that a retried send does not reorder the events of a partition.
+ * </p>
+ */
+@Configuration
+@Profile(Constants.SPRING_PROFILE_PRODUCTION)
+public class KafkaConfiguration {
+
+    private final Logger log = LoggerFactory.getLogger(KafkaConfiguration.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Bean
+    public ProducerFactory<String, String> kafkaProducerFactory() {
+        JHipsterProperties.Outbox.Kafka kafka = jHipsterProperties.getOutbox().getKafka();
+        log.info("Configuring the Kafka producer of the change events, on {}", kafka.getBootstrapServers());
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafka.getBootstrapServers());
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.RETRIES_CONFIG, 3);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new DefaultKafkaProducerFactory<>(config);
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate(ProducerFactory<String, String> kafkaProducerFactory) {
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(kafkaProducerFactory);
+        template.setDefaultTopic(jHipsterProperties.getOutbox().getKafka().getTopic());
+        return template;
+    }
+}
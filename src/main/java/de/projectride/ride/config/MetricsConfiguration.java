@@ -28,8 +28,10 @@ import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.sql.DataSource;
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
+import java.sql.SQLException;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
@@ -52,7 +54,7 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
     private JHipsterProperties jHipsterProperties;
 
     @Autowired(required = false)
-    private HikariDataSource hikariDataSource;
+    private DataSource dataSource;
 
     @Override
     @Bean
@@ -74,6 +76,7 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         metricRegistry.register(PROP_METRIC_REG_JVM_THREADS, new ThreadStatesGaugeSet());
         metricRegistry.register(PROP_METRIC_REG_JVM_FILES, new FileDescriptorRatioGauge());
         metricRegistry.register(PROP_METRIC_REG_JVM_BUFFERS, new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
+        HikariDataSource hikariDataSource = hikariDataSource();
         if (hikariDataSource != null) {
             log.debug("Monitoring the datasource");
             hikariDataSource.setMetricRegistry(metricRegistry);
@@ -95,6 +98,20 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         }
     }
 
+    /**
+     * @return the Hikari pool, which may be wrapped by the JDBC instrumentation, or null
+     */
+    private HikariDataSource hikariDataSource() {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not find the Hikari pool of the datasource: {}", e.getMessage());
+        }
+        return null;
+    }
+
     @Configuration
     @ConditionalOnClass(Graphite.class)
     public static class GraphiteRegistry {
@@ -1,14 +1,27 @@
 package de.projectride.ride.config;
 
+import de.projectride.ride.config.http.CompressiblePredicate;
+import de.projectride.ride.config.http.DeferredFlushFilter;
+
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.servlet.InstrumentedFilter;
 import com.codahale.metrics.servlets.MetricsServlet;
+import io.undertow.attribute.ExchangeAttributes;
+import io.undertow.predicate.Predicate;
+import io.undertow.predicate.Predicates;
+import io.undertow.server.handlers.encoding.ContentEncodingRepository;
+import io.undertow.server.handlers.encoding.EncodingHandler;
+import io.undertow.server.handlers.encoding.GzipEncodingProvider;
+import io.undertow.util.Headers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.boot.context.embedded.*;
+import org.springframework.boot.context.embedded.undertow.UndertowEmbeddedServletContainerFactory;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -52,16 +65,47 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
     }
 
     /**
-     * Customize the Servlet engine: Mime types, the document root, the cache.
+     * Customize the Servlet engine: Mime types, the compression.
      */
     @Override
     public void customize(ConfigurableEmbeddedServletContainer container) {
         MimeMappings mappings = new MimeMappings(MimeMappings.DEFAULT);
         // IE issue, see https://github.com/jhipster/generator-jhipster/pull/711
         mappings.add("html", "text/html;charset=utf-8");
-        // CloudFoundry issue, see https://github.com/cloudfoundry/gorouter/issues/64
-        mappings.add("json", "text/html;charset=utf-8");
         container.setMimeMappings(mappings);
+        if (container instanceof UndertowEmbeddedServletContainerFactory) {
+            initCompression((UndertowEmbeddedServletContainerFactory) container);
+        }
+    }
+
+    /**
+     * Compresses the responses with gzip as configured by server.compression, but with a
+     * {@link CompressiblePredicate} instead of the predicate of Spring Boot, which leaves the large responses
+     * uncompressed.
+     */
+    private void initCompression(UndertowEmbeddedServletContainerFactory container) {
+        Compression compression = container.getCompression();
+        if (compression == null || !compression.getEnabled()) {
+            return;
+        }
+        log.debug("Configuring the compression of the responses of {} bytes or more", compression.getMinResponseSize());
+        container.setCompression(null);
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(new CompressiblePredicate(compression.getMimeTypes(), compression.getMinResponseSize()));
+        if (compression.getExcludedUserAgents() != null) {
+            for (String agent : compression.getExcludedUserAgents()) {
+                predicates.add(Predicates.not(Predicates.regex(ExchangeAttributes.requestHeader(Headers.USER_AGENT),
+                    agent)));
+            }
+        }
+        ContentEncodingRepository encodings = new ContentEncodingRepository().addEncodingHandler("gzip",
+            new GzipEncodingProvider(), 50, Predicates.and(predicates.toArray(new Predicate[predicates.size()])));
+        container.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.addInitialHandlerChainWrapper(
+            handler -> new EncodingHandler(exchange -> {
+                // the caches must not serve a compressed response to a client which doesn't accept it
+                exchange.getResponseHeaders().add(Headers.VARY, Headers.ACCEPT_ENCODING_STRING);
+                handler.handleRequest(exchange);
+            }, encodings)));
     }
 
     /**
@@ -90,6 +134,15 @@ public class WebConfigurer implements ServletContextInitializer, EmbeddedServlet
         metricsAdminServlet.setLoadOnStartup(2);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+    public FilterRegistrationBean deferredFlushFilter(ServerProperties serverProperties) {
+        log.debug("Registering deferred flush filter");
+        Compression compression = serverProperties.getCompression();
+        return new FilterRegistrationBean(new DeferredFlushFilter(
+            new CompressiblePredicate(compression.getMimeTypes(), compression.getMinResponseSize())));
+    }
+
     @Bean
     @ConditionalOnProperty(name = "jhipster.cors.allowed-origins")
     public CorsFilter corsFilter() {
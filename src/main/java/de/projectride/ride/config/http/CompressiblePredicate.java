@@ -0,0 +1,55 @@
+package de.projectride.ride.config.http;
+
+import io.undertow.predicate.Predicate;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Tells if a response is compressed, from its content type and its length, when it is committed.
+ *
+ * <p>
+ * A response which fits in the response buffer is committed when it is complete, with its Content-Length, and is
+ * compressed if it is at least minResponseSize bytes long. A larger response, as a list of rides, is committed when
+ * the buffer is full, without a Content-Length, and is always compressed. The predicate of Spring Boot requires the
+ * Content-Length, so that it never compresses those. As Spring MVC flushes the responses it writes, which commits
+ * them, the {@link DeferredFlushFilter} ignores these flushes.
+ * </p>
+ */
+public class CompressiblePredicate implements Predicate {
+
+    private final List<String> mimeTypes;
+
+    private final int minResponseSize;
+
+    public CompressiblePredicate(String[] mimeTypes, int minResponseSize) {
+        this.mimeTypes = Arrays.stream(mimeTypes).map(String::trim).collect(Collectors.toList());
+        this.minResponseSize = minResponseSize;
+    }
+
+    @Override
+    public boolean resolve(HttpServerExchange exchange) {
+        String contentType = exchange.getResponseHeaders().getFirst(Headers.CONTENT_TYPE);
+        if (!isCompressible(contentType)) {
+            return false;
+        }
+        String contentLength = exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH);
+        return contentLength == null || Long.parseLong(contentLength) >= minResponseSize;
+    }
+
+    /**
+     * @param contentType the content type of a response, with or without parameters
+     * @return true if the response is of one of the compressed mime types
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        int parameters = contentType.indexOf(';');
+        String mimeType = (parameters < 0 ? contentType : contentType.substring(0, parameters)).trim();
+        return mimeTypes.stream().anyMatch(mimeType::equalsIgnoreCase);
+    }
+}
@@ -0,0 +1,110 @@
+package de.projectride.ride.config.http;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+
+/**
+ * Ignores the flushes of the responses which can be compressed, so that they are committed when they are complete,
+ * with their Content-Length, or when the response buffer is full.
+ *
+ * <p>
+ * Spring MVC flushes the responses once written, before they are complete, which commits them without a
+ * Content-Length, so that the {@link CompressiblePredicate} would compress them whatever their size.
+ * The other responses, as the event streams, are still flushed.
+ * </p>
+ */
+public class DeferredFlushFilter implements Filter {
+
+    private final CompressiblePredicate compressiblePredicate;
+
+    public DeferredFlushFilter(CompressiblePredicate compressiblePredicate) {
+        this.compressiblePredicate = compressiblePredicate;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        // Nothing to initialize
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+        chain.doFilter(request, new DeferredFlushResponse((HttpServletResponse) response));
+    }
+
+    @Override
+    public void destroy() {
+        // Nothing to destroy
+    }
+
+    private class DeferredFlushResponse extends HttpServletResponseWrapper {
+
+        DeferredFlushResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            ServletOutputStream outputStream = super.getOutputStream();
+            if (compressiblePredicate.isCompressible(getContentType())) {
+                return new DeferredFlushOutputStream(outputStream);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (!compressiblePredicate.isCompressible(getContentType())) {
+                super.flushBuffer();
+            }
+        }
+    }
+
+    private static class DeferredFlushOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream outputStream;
+
+        DeferredFlushOutputStream(ServletOutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            outputStream.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            outputStream.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            // flushed by the servlet container, when the buffer is full or the response complete
+        }
+
+        @Override
+        public void close() throws IOException {
+            outputStream.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return outputStream.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            outputStream.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.projectride.ride.config.http;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Reads and writes application/cbor, the binary encoding of JSON (RFC 7049), with Jackson.
+ *
+ * <p>
+ * Its object mapper is configured by the builder of the JSON one, so that a ride has the same fields in CBOR and in
+ * JSON.
+ * </p>
+ */
+public class MappingJackson2CborHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    public static final MediaType APPLICATION_CBOR = MediaType.valueOf(APPLICATION_CBOR_VALUE);
+
+    public MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        super(cborObjectMapper(builder), APPLICATION_CBOR);
+        // binary content, without a charset
+        setDefaultCharset(null);
+    }
+
+    public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = new ObjectMapper(new CBORFactory());
+        builder.configure(objectMapper);
+        return objectMapper;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * HTTP response encodings: compression and binary formats.
+ */
+package de.projectride.ride.config.http;
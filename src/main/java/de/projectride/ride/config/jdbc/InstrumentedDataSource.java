@@ -0,0 +1,302 @@
+package de.projectride.ride.config.jdbc;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DataSource recording the time to acquire its connections and the execution of their statements with a
+ * {@link JdbcRecorder}.
+ *
+ * <p>
+ * The connections, statements and result sets are wrapped in dynamic proxies. The rows of a query are counted while
+ * its result set is read, and recorded when it is read entirely or closed.
+ * </p>
+ *
+ * <p>
+ * Closing it closes the target data source, so that the pool is still shut down with the application context.
+ * </p>
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements Closeable {
+
+    private final ObjectFactory<JdbcRecorder> recorderFactory;
+
+    private volatile JdbcRecorder recorder;
+
+    /**
+     * @param targetDataSource the data source to instrument
+     * @param recorderFactory the recorder, looked up on the first connection, as the data source is created early
+     */
+    public InstrumentedDataSource(DataSource targetDataSource, ObjectFactory<JdbcRecorder> recorderFactory) {
+        super(targetDataSource);
+        this.recorderFactory = recorderFactory;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = getTargetDataSource().getConnection();
+        return instrument(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = getTargetDataSource().getConnection(username, password);
+        return instrument(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof Closeable) {
+            ((Closeable) target).close();
+        }
+    }
+
+    private Connection instrument(Connection connection, long acquireNanos) {
+        JdbcRecorder jdbcRecorder = recorder;
+        if (jdbcRecorder == null) {
+            jdbcRecorder = recorderFactory.getObject();
+            recorder = jdbcRecorder;
+        }
+        jdbcRecorder.recordAcquire(acquireNanos);
+        return proxy(Connection.class, new ConnectionHandler(connection, jdbcRecorder));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[] {type},
+            handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Handles equals, hashCode and toString of the proxies.
+     */
+    private abstract static class Handler implements InvocationHandler {
+
+        private final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return target.toString();
+                default:
+                    return handle(proxy, method, args);
+            }
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+    }
+
+    private static class ConnectionHandler extends Handler {
+
+        private final Connection target;
+
+        private final JdbcRecorder recorder;
+
+        ConnectionHandler(Connection target, JdbcRecorder recorder) {
+            super(target);
+            this.target = target;
+            this.recorder = recorder;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class,
+                        new StatementHandler((Statement) result, null, (Connection) proxy, recorder));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0], (Connection) proxy, recorder));
+                case "prepareCall":
+                    return proxy(CallableStatement.class,
+                        new StatementHandler((Statement) result, (String) args[0], (Connection) proxy, recorder));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    private static class StatementHandler extends Handler {
+
+        private final Statement target;
+
+        private final Connection connection;
+
+        private final JdbcRecorder recorder;
+
+        // the SQL of a prepared statement, or the last SQL executed by a statement
+        private String sql;
+
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        private boolean batch;
+
+        StatementHandler(Statement target, String sql, Connection connection, JdbcRecorder recorder) {
+            super(target);
+            this.target = target;
+            this.sql = sql;
+            this.connection = connection;
+            this.recorder = recorder;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                batch = true;
+                if (args != null && sql == null) {
+                    sql = (String) args[0];
+                }
+            } else if (name.equals("clearBatch")) {
+                batch = false;
+            } else if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            } else if (name.equals("getResultSet")) {
+                return resultSet((ResultSet) InstrumentedDataSource.invoke(target, method, args), (Statement) proxy);
+            } else if (name.equals("getConnection")) {
+                return connection;
+            }
+            return InstrumentedDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            boolean batchExecution = method.getName().startsWith("executeLargeBatch") ||
+                method.getName().startsWith("executeBatch");
+            long start = System.nanoTime();
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            long duration = System.nanoTime() - start;
+            if (sql != null) {
+                recorder.recordExecution(sql, batch && batchExecution ? null : new TreeMap<>(parameters), duration,
+                    rows(result));
+            }
+            if (batchExecution) {
+                batch = false;
+            }
+            if (result instanceof ResultSet) {
+                return resultSet((ResultSet) result, (Statement) proxy);
+            }
+            return result;
+        }
+
+        private Object resultSet(ResultSet resultSet, Statement statement) {
+            if (resultSet == null || sql == null) {
+                return resultSet;
+            }
+            return proxy(ResultSet.class, new ResultSetHandler(resultSet, statement, sql, recorder));
+        }
+
+        private static Long rows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+                return rows;
+            }
+            return null;
+        }
+    }
+
+    private static class ResultSetHandler extends Handler {
+
+        private final ResultSet target;
+
+        private final Statement statement;
+
+        private final String sql;
+
+        private final JdbcRecorder recorder;
+
+        private long rows;
+
+        private boolean recorded;
+
+        ResultSetHandler(ResultSet target, Statement statement, String sql, JdbcRecorder recorder) {
+            super(target);
+            this.target = target;
+            this.statement = statement;
+            this.sql = sql;
+            this.recorder = recorder;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    Object hasNext = InstrumentedDataSource.invoke(target, method, args);
+                    if ((Boolean) hasNext) {
+                        rows++;
+                    } else {
+                        recordRows();
+                    }
+                    return hasNext;
+                case "close":
+                    recordRows();
+                    return InstrumentedDataSource.invoke(target, method, args);
+                case "getStatement":
+                    return statement;
+                default:
+                    return InstrumentedDataSource.invoke(target, method, args);
+            }
+        }
+
+        private void recordRows() {
+            if (!recorded) {
+                recorded = true;
+                recorder.recordRows(sql, rows);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package de.projectride.ride.config.jdbc;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data sources in an {@link InstrumentedDataSource}.
+ *
+ * <p>
+ * It is priority ordered, so that it is registered before the post processors of the metrics configuration, which
+ * injects the data source.
+ * </p>
+ */
+public class InstrumentedDataSourcePostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+    private final ObjectFactory<JdbcRecorder> recorderFactory;
+
+    public InstrumentedDataSourcePostProcessor(ObjectFactory<JdbcRecorder> recorderFactory) {
+        this.recorderFactory = recorderFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource((DataSource) bean, recorderFactory);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
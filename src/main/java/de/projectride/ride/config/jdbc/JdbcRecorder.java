@@ -0,0 +1,242 @@
+package de.projectride.ride.config.jdbc;
+
+import de.projectride.ride.config.JHipsterProperties;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records the JDBC statements of an {@link InstrumentedDataSource} in the metric registry: the "jdbc.verb.table.hash"
+ * timer and "jdbc.verb.table.hash.rows" histogram of each SQL shape, and the "jdbc.connection.acquire" timer.
+ *
+ * <p>
+ * The statements lasting longer than the slow query threshold are logged, and the slowest of them are kept.
+ * Their bind parameters are logged with their types only, unless redaction is disabled.
+ * </p>
+ */
+public class JdbcRecorder {
+
+    private static final int MAX_SHAPES = 1000;
+
+    private static final String OTHER_SHAPE = "other";
+
+    private final Logger log = LoggerFactory.getLogger(JdbcRecorder.class);
+
+    private final MetricRegistry metricRegistry;
+
+    private final long slowQueryThresholdNanos;
+
+    private final int topN;
+
+    private final boolean redactParameters;
+
+    private final Timer acquires;
+
+    private final ConcurrentMap<String, StatementMetrics> statementsBySql = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, StatementMetrics> statementsByShape = new ConcurrentHashMap<>();
+
+    // the head is the fastest of the slowest executions
+    private final PriorityQueue<SlowExecution> slowest =
+        new PriorityQueue<>(Comparator.comparingLong(SlowExecution::getDurationNanos));
+
+    public JdbcRecorder(MetricRegistry metricRegistry, JHipsterProperties.Metrics.Jdbc properties) {
+        this.metricRegistry = metricRegistry;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowQueryThreshold());
+        this.topN = properties.getTopN();
+        this.redactParameters = properties.isRedactParameters();
+        this.acquires = metricRegistry.timer(MetricRegistry.name("jdbc", "connection", "acquire"));
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    public void recordAcquire(long durationNanos) {
+        acquires.update(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param sql the executed SQL
+     * @param parameters the bind parameters by index, or null if unknown
+     * @param durationNanos the execution time
+     * @param rows the number of updated rows, or null if unknown
+     */
+    public void recordExecution(String sql, Map<Integer, Object> parameters, long durationNanos, Long rows) {
+        StatementMetrics statement = metricsOf(sql);
+        statement.timer.update(durationNanos, TimeUnit.NANOSECONDS);
+        if (rows != null) {
+            statement.rows.update(rows);
+        }
+        if (durationNanos >= slowQueryThresholdNanos) {
+            String formattedParameters = formatParameters(parameters);
+            log.warn("Slow statement, {} ms: {} with parameters {}", TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                statement.shape, formattedParameters);
+            addSlowExecution(new SlowExecution(statement.shape, durationNanos, formattedParameters, Instant.now()));
+        }
+    }
+
+    /**
+     * @param sql the executed query
+     * @param rows the number of rows read from its result set
+     */
+    public void recordRows(String sql, long rows) {
+        metricsOf(sql).rows.update(rows);
+    }
+
+    public Collection<StatementMetrics> getStatements() {
+        return Collections.unmodifiableCollection(statementsByShape.values());
+    }
+
+    /**
+     * @return the slowest executions, slowest first
+     */
+    public List<SlowExecution> getSlowest() {
+        synchronized (slowest) {
+            return slowest.stream()
+                .sorted(Comparator.comparingLong(SlowExecution::getDurationNanos).reversed())
+                .collect(Collectors.toList());
+        }
+    }
+
+    private StatementMetrics metricsOf(String sql) {
+        StatementMetrics statement = statementsBySql.get(sql);
+        if (statement == null) {
+            String shape = SqlShapes.shapeOf(sql);
+            statement = statementsByShape.get(shape);
+            if (statement == null) {
+                // don't register a metric per statement when the SQL is built with its values
+                String key = statementsByShape.size() < MAX_SHAPES ? shape : OTHER_SHAPE;
+                statement = statementsByShape.computeIfAbsent(key, this::createMetrics);
+            }
+            if (statementsBySql.size() < MAX_SHAPES) {
+                statementsBySql.put(sql, statement);
+            }
+        }
+        return statement;
+    }
+
+    private StatementMetrics createMetrics(String shape) {
+        String name = MetricRegistry.name("jdbc", OTHER_SHAPE.equals(shape) ? OTHER_SHAPE : SqlShapes.nameOf(shape));
+        return new StatementMetrics(shape, name, metricRegistry.timer(name),
+            metricRegistry.histogram(MetricRegistry.name(name, "rows")));
+    }
+
+    private void addSlowExecution(SlowExecution execution) {
+        synchronized (slowest) {
+            slowest.add(execution);
+            if (slowest.size() > topN) {
+                slowest.poll();
+            }
+        }
+    }
+
+    private String formatParameters(Map<Integer, Object> parameters) {
+        if (parameters == null) {
+            return "unknown";
+        }
+        return parameters.entrySet().stream()
+            .map(parameter -> parameter.getKey() + ": " + formatParameter(parameter.getValue()))
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private String formatParameter(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        return redactParameters ? "<" + value.getClass().getSimpleName() + ">" : String.valueOf(value);
+    }
+
+    /**
+     * The metrics of the statements of a SQL shape.
+     */
+    public static class StatementMetrics {
+
+        private final String shape;
+
+        private final String name;
+
+        private final Timer timer;
+
+        private final Histogram rows;
+
+        StatementMetrics(String shape, String name, Timer timer, Histogram rows) {
+            this.shape = shape;
+            this.name = name;
+            this.timer = timer;
+            this.rows = rows;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Timer getTimer() {
+            return timer;
+        }
+
+        public Histogram getRows() {
+            return rows;
+        }
+    }
+
+    /**
+     * A statement which lasted longer than the slow query threshold.
+     */
+    public static class SlowExecution {
+
+        private final String shape;
+
+        private final long durationNanos;
+
+        private final String parameters;
+
+        private final Instant executedAt;
+
+        SlowExecution(String shape, long durationNanos, String parameters, Instant executedAt) {
+            this.shape = shape;
+            this.durationNanos = durationNanos;
+            this.parameters = parameters;
+            this.executedAt = executedAt;
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public String getParameters() {
+            return parameters;
+        }
+
+        public Instant getExecutedAt() {
+            return executedAt;
+        }
+    }
+}
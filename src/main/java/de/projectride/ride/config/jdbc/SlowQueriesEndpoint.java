@@ -0,0 +1,66 @@
+package de.projectride.ride.config.jdbc;
+
+import com.codahale.metrics.Snapshot;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Endpoint listing the top N statement shapes by 99th percentile, and the N slowest statements logged, with their
+ * durations in milliseconds.
+ */
+public class SlowQueriesEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    private final JdbcRecorder recorder;
+
+    public SlowQueriesEndpoint(JdbcRecorder recorder) {
+        super("slowqueries");
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Map<String, Object> invoke() {
+        List<Map<String, Object>> statements = recorder.getStatements().stream()
+            .map(statement -> {
+                Snapshot durations = statement.getTimer().getSnapshot();
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("sql", statement.getShape());
+                entry.put("metric", statement.getName());
+                entry.put("count", statement.getTimer().getCount());
+                entry.put("mean", millis(durations.getMean()));
+                entry.put("p99", millis(durations.get99thPercentile()));
+                entry.put("max", millis(durations.getMax()));
+                entry.put("meanRows", statement.getRows().getSnapshot().getMean());
+                return entry;
+            })
+            .sorted(Comparator.comparing((Map<String, Object> entry) -> (Double) entry.get("p99")).reversed())
+            .limit(recorder.getTopN())
+            .collect(Collectors.toList());
+
+        List<Map<String, Object>> slowest = recorder.getSlowest().stream()
+            .map(execution -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("sql", execution.getShape());
+                entry.put("duration", millis(execution.getDurationNanos()));
+                entry.put("parameters", execution.getParameters());
+                entry.put("executedAt", execution.getExecutedAt().toString());
+                return entry;
+            })
+            .collect(Collectors.toList());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("slowQueryThreshold", recorder.getSlowQueryThresholdMillis());
+        result.put("statements", statements);
+        result.put("slowest", slowest);
+        return result;
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / TimeUnit.MICROSECONDS.toNanos(1)) / 1000.0;
+    }
+}
@@ -0,0 +1,45 @@
+package de.projectride.ride.config.jdbc;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for the shape of SQL statements: the SQL without its literals and with its IN lists collapsed, so
+ * that the statements differing only by their values have the same shape.
+ */
+public final class SqlShapes {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private SqlShapes() {
+    }
+
+    public static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return IN_LIST.matcher(shape).replaceAll("in (?...)");
+    }
+
+    /**
+     * @return a metric name for a shape, made of its verb, its first table and its hash, e.g.
+     * "select.ride.5f0e0c1a"
+     */
+    public static String nameOf(String shape) {
+        int verbEnd = shape.indexOf(' ');
+        String verb = (verbEnd > 0 ? shape.substring(0, verbEnd) : shape).toLowerCase(Locale.ROOT);
+        Matcher table = TABLE.matcher(shape);
+        return verb + "." + (table.find() ? table.group(1).toLowerCase(Locale.ROOT) : "none") + "." +
+            Integer.toHexString(shape.hashCode());
+    }
+}
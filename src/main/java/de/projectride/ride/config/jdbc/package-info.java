@@ -0,0 +1,4 @@
+/**
+ * JDBC instrumentation.
+ */
+package de.projectride.ride.config.jdbc;
@@ -0,0 +1,74 @@
+package de.projectride.ride.config.liquibase;
+
+import de.projectride.ride.service.util.GeoUtil;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.SetupException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Liquibase change computing the geohash of the places which have coordinates but no geohash, that is the places
+ * created before the geohash column, as PlaceService.save computes it.
+ */
+public class PlaceGeohashChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private int updated;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, latitude, longitude from place " +
+                    "where geohash is null and latitude is not null and longitude is not null");
+             PreparedStatement update = connection.prepareStatement("update place set geohash = ? where id = ?");
+             ResultSet places = select.executeQuery()) {
+            int batched = 0;
+            while (places.next()) {
+                update.setString(1, GeoUtil.encode(places.getDouble("latitude"), places.getDouble("longitude"),
+                    GeoUtil.GEOHASH_PRECISION));
+                update.setLong(2, places.getLong("id"));
+                update.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    update.executeBatch();
+                    updated += batched;
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                update.executeBatch();
+                updated += batched;
+            }
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Could not compute the geohash of the places", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Computed the geohash of " + updated + " places";
+    }
+
+    @Override
+    public void setUp() throws SetupException {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
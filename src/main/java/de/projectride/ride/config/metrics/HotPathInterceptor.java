@@ -0,0 +1,43 @@
+package de.projectride.ride.config.metrics;
+
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records the latency of a sample of the requests, per method and URL pattern, e.g. "GET /api/rides/{id}".
+ *
+ * <p>
+ * The latency of an asynchronous request lasts until the completion of its async dispatch.
+ * </p>
+ */
+public class HotPathInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String START_ATTRIBUTE = HotPathInterceptor.class.getName() + ".start";
+
+    private final HotPathRecorder recorder;
+
+    public HotPathInterceptor(HotPathRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null && recorder.sample()) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (start != null && pattern != null) {
+            recorder.record(request.getMethod() + " " + pattern, System.nanoTime() - (Long) start);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.projectride.ride.config.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latencies of a sample of the calls of each path, in microseconds, in an HdrHistogram per path.
+ *
+ * <p>
+ * The paths are the REST endpoints and the repository methods. The histograms cover the calls since the start of
+ * the application.
+ * </p>
+ */
+public class HotPathRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final double sampleRate;
+
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public HotPathRecorder(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return whether the current call should be recorded
+     */
+    public boolean sample() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    public void record(String path, long durationNanos) {
+        histograms.computeIfAbsent(path, key -> new ConcurrentHistogram(SIGNIFICANT_DIGITS))
+            .recordValue(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+}
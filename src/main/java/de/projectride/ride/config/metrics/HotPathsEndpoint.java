@@ -0,0 +1,51 @@
+package de.projectride.ride.config.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint listing the latency percentiles of the recorded paths, in milliseconds, the paths taking the most
+ * time in total first. The counts are the number of sampled calls.
+ */
+public class HotPathsEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+    private final HotPathRecorder recorder;
+
+    public HotPathsEndpoint(HotPathRecorder recorder) {
+        super("hotpaths");
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Map<String, Object> invoke() {
+        List<Map<String, Object>> paths = new ArrayList<>();
+        recorder.getHistograms().forEach((path, recordedHistogram) -> {
+            Histogram histogram = recordedHistogram.copy();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("path", path);
+            entry.put("count", histogram.getTotalCount());
+            entry.put("total", millis(histogram.getMean() * histogram.getTotalCount()));
+            entry.put("p50", millis(histogram.getValueAtPercentile(50)));
+            entry.put("p99", millis(histogram.getValueAtPercentile(99)));
+            entry.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            entry.put("max", millis(histogram.getMaxValue()));
+            paths.add(entry);
+        });
+        paths.sort(Comparator.comparing((Map<String, Object> entry) -> (Double) entry.get("total")).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleRate", recorder.getSampleRate());
+        result.put("paths", paths);
+        return result;
+    }
+
+    private static double millis(double micros) {
+        return Math.round(micros) / 1000.0;
+    }
+}
@@ -0,0 +1,50 @@
+package de.projectride.ride.config.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Records the latency of a sample of the repository calls, per repository method, e.g. "RideRepository.findOne".
+ */
+@Aspect
+public class RepositoryHotPathAspect {
+
+    private static final String REPOSITORY_PACKAGE = "de.projectride.ride.repository";
+
+    private final HotPathRecorder recorder;
+
+    public RepositoryHotPathAspect(HotPathRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Pointcut("execution(public * org.springframework.data.repository.Repository+.*(..)) && " +
+        "target(org.springframework.data.repository.Repository)")
+    public void repositoryPointcut() {
+    }
+
+    @Around("repositoryPointcut()")
+    public Object recordAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!recorder.sample()) {
+            return joinPoint.proceed();
+        }
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            recorder.record(repositoryName(joinPoint.getTarget()) + "." + joinPoint.getSignature().getName(),
+                System.nanoTime() - start);
+        }
+    }
+
+    private static String repositoryName(Object repository) {
+        for (Class<?> type : ClassUtils.getAllInterfaces(repository)) {
+            if (type.getName().startsWith(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(repository).getSimpleName();
+    }
+}
@@ -32,7 +32,7 @@ public abstract class AbstractAuditingEntity implements Serializable {
     private String createdBy;
 
     @CreatedDate
-    @Column(name = "created_date", nullable = false)
+    @Column(name = "created_date", nullable = false, updatable = false)
     @JsonIgnore
     private ZonedDateTime createdDate = ZonedDateTime.now();
 
@@ -1,5 +1,7 @@
 package de.projectride.ride.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -10,7 +12,8 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "car")
-public class Car implements Serializable {
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+public class Car extends AbstractAuditingEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
@@ -30,6 +33,10 @@ public class Car implements Serializable {
     @Column(name = "color")
     private String color;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -90,6 +97,14 @@ public class Car implements Serializable {
         this.color = color;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -118,6 +133,7 @@ public class Car implements Serializable {
             ", brand='" + brand + "'" +
             ", model='" + model + "'" +
             ", color='" + color + "'" +
+            ", version='" + version + "'" +
             '}';
     }
 }
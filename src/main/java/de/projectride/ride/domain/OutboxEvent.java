@@ -0,0 +1,194 @@
+package de.projectride.ride.domain;
+
+import de.projectride.ride.domain.enumeration.EventType;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * A change of a ride, reservation, place or car, appended to the outbox in the transaction of the change, and
+ * published by the {@link de.projectride.ride.service.OutboxRelayService}.
+ *
+ * <p>
+ * The events are published in the order they were appended, by creation time: an entity being locked by the
+ * transaction which changes it until it commits, the events of an entity are appended in the order of its
+ * changes, as long as the clocks of the instances of the application are synchronized. The sequence number, given when the event is published, is the position of the event in the stream.
+ * </p>
+ */
+@Entity
+@Table(name = "outbox")
+public class OutboxEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The events are inserted by {@link de.projectride.ride.service.OutboxService}, in a JDBC batch. Their ids
+     * don't follow the order of the events across the instances of the application.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "aggregate_type", length = 50, nullable = false)
+    private String aggregateType;
+
+    @NotNull
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", length = 20, nullable = false)
+    private EventType eventType;
+
+    /** The entity as JSON after the change, or null when it was deleted. */
+    @Column(name = "payload")
+    private String payload;
+
+    /** The time the event was appended, once the changes of its transaction were flushed. */
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @Column(name = "sequence_number")
+    private Long sequenceNumber;
+
+    @Column(name = "published_at")
+    private ZonedDateTime publishedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public OutboxEvent aggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+        return this;
+    }
+
+    public void setAggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public OutboxEvent aggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+        return this;
+    }
+
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    public OutboxEvent eventType(EventType eventType) {
+        this.eventType = eventType;
+        return this;
+    }
+
+    public void setEventType(EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public OutboxEvent payload(String payload) {
+        this.payload = payload;
+        return this;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public ZonedDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public OutboxEvent createdAt(ZonedDateTime createdAt) {
+        this.createdAt = createdAt;
+        return this;
+    }
+
+    public void setCreatedAt(ZonedDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public OutboxEvent sequenceNumber(Long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+        return this;
+    }
+
+    public void setSequenceNumber(Long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    public ZonedDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public OutboxEvent publishedAt(ZonedDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+        return this;
+    }
+
+    public void setPublishedAt(ZonedDateTime publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        OutboxEvent outboxEvent = (OutboxEvent) o;
+        if(outboxEvent.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, outboxEvent.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+            "id=" + id +
+            ", aggregateType='" + aggregateType + "'" +
+            ", aggregateId='" + aggregateId + "'" +
+            ", eventType='" + eventType + "'" +
+            ", createdAt='" + createdAt + "'" +
+            ", sequenceNumber='" + sequenceNumber + "'" +
+            ", publishedAt='" + publishedAt + "'" +
+            '}';
+    }
+}
@@ -1,5 +1,9 @@
 package de.projectride.ride.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -10,12 +14,19 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "place")
-public class Place implements Serializable {
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+public class Place extends AbstractAuditingEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "placeIdGenerator")
+    @GenericGenerator(name = "placeIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+        @Parameter(name = "table_name", value = "sequence_generator"),
+        @Parameter(name = "segment_value", value = "place"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @Column(name = "latitude")
@@ -30,6 +41,13 @@ public class Place implements Serializable {
     @Column(name = "city_name")
     private String cityName;
 
+    @Column(name = "geohash", length = 12)
+    private String geohash;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -90,6 +108,27 @@ public class Place implements Serializable {
         this.cityName = cityName;
     }
 
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public Place geohash(String geohash) {
+        this.geohash = geohash;
+        return this;
+    }
+
+    public void setGeohash(String geohash) {
+        this.geohash = geohash;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -118,6 +157,8 @@ public class Place implements Serializable {
             ", longitude='" + longitude + "'" +
             ", postcode='" + postcode + "'" +
             ", cityName='" + cityName + "'" +
+            ", geohash='" + geohash + "'" +
+            ", version='" + version + "'" +
             '}';
     }
 }
@@ -1,5 +1,7 @@
 package de.projectride.ride.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -10,6 +12,7 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "reservation")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Reservation implements Serializable {
 
     private static final long serialVersionUID = 1L;
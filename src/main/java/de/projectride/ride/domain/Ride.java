@@ -1,6 +1,15 @@
 package de.projectride.ride.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -12,15 +21,35 @@ import java.util.Objects;
 
 /**
  * A Ride.
+ *
+ * <p>
+ * Rides are soft deleted: removing a ride flags it as deleted, and the deleted rides are left out of every query
+ * and load of the entity, so they only stay in the table until
+ * {@link de.projectride.ride.service.RideArchiveService} moves them to the ride_archive table.
+ * </p>
  */
 @Entity
 @Table(name = "ride")
-public class Ride implements Serializable {
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
+@SQLDelete(sql = "update ride set deleted = true, deleted_at = current_timestamp, version = version + 1 " +
+    "where id = ? and version = ?")
+@Where(clause = "deleted = 0")
+public class Ride extends AbstractAuditingEntity implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Ids are allocated in blocks from the sequence_generator table, so that inserts can be batched, which they
+     * can't with identity columns.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "rideIdGenerator")
+    @GenericGenerator(name = "rideIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+        @Parameter(name = "table_name", value = "sequence_generator"),
+        @Parameter(name = "segment_value", value = "ride"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @Column(name = "driver_id")
@@ -49,19 +78,54 @@ public class Ride implements Serializable {
     @Column(name = "created_at")
     private ZonedDateTime createdAt;
 
-    @Column(name = "deleted")
-    private Boolean deleted;
+    @NotNull
+    @Column(name = "deleted", nullable = false)
+    private Boolean deleted = false;
 
+    /**
+     * When the ride was deleted, from which its retention in the table is counted.
+     */
+    @JsonIgnore
+    @Column(name = "deleted_at")
+    private ZonedDateTime deletedAt;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    /**
+     * The number of seats held by reservations which are not cancled. It is only changed by the conditional
+     * updates of {@link de.projectride.ride.repository.RideRepository#takeSeat(Long)} and
+     * {@link de.projectride.ride.repository.RideRepository#releaseSeat(Long)}, never by saving the ride.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "seats_taken", updatable = false)
+    private Integer seatsTaken = 0;
+
+    /**
+     * The version of {@link #seatsTaken}, incremented with it. It is kept apart from the optimistic locking
+     * version, so that reservations don't make the concurrent updates of the ride fail.
+     */
+    @JsonIgnore
+    @Column(name = "seats_version", updatable = false)
+    private Long seatsVersion = 0L;
+
+    /**
+     * The places of an archived ride may have been deleted, as ride_archive has no foreign keys: they are then null.
+     */
     @OneToOne
     @JoinColumn(unique = true)
+    @NotFound(action = NotFoundAction.IGNORE)
     private Place startPlace;
 
     @OneToOne
     @JoinColumn(unique = true)
+    @NotFound(action = NotFoundAction.IGNORE)
     private Place endPlace;
 
     @OneToMany(mappedBy = "ride")
     @JsonIgnore
+    @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
     private Set<Reservation> reservations = new HashSet<>();
 
     public Long getId() {
@@ -189,6 +253,43 @@ public class Ride implements Serializable {
         this.deleted = deleted;
     }
 
+    public ZonedDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public Ride deletedAt(ZonedDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+        return this;
+    }
+
+    public void setDeletedAt(ZonedDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getSeatsVersion() {
+        return seatsVersion;
+    }
+
+    public void setSeatsVersion(Long seatsVersion) {
+        this.seatsVersion = seatsVersion;
+    }
+
+    public Integer getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    public void setSeatsTaken(Integer seatsTaken) {
+        this.seatsTaken = seatsTaken;
+    }
+
     public Place getStartPlace() {
         return startPlace;
     }
@@ -273,6 +374,10 @@ public class Ride implements Serializable {
             ", description='" + description + "'" +
             ", createdAt='" + createdAt + "'" +
             ", deleted='" + deleted + "'" +
+            ", deletedAt='" + deletedAt + "'" +
+            ", version='" + version + "'" +
+            ", seatsTaken='" + seatsTaken + "'" +
+            ", seatsVersion='" + seatsVersion + "'" +
             '}';
     }
 }
@@ -0,0 +1,8 @@
+package de.projectride.ride.domain.enumeration;
+
+/**
+ * The EventType enumeration: the change an {@link de.projectride.ride.domain.OutboxEvent} records.
+ */
+public enum EventType {
+    CREATED, UPDATED, DELETED
+}
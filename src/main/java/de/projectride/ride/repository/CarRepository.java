@@ -1,9 +1,12 @@
 package de.projectride.ride.repository;
 
 import de.projectride.ride.domain.Car;
+import de.projectride.ride.service.dto.EntityVersionDTO;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -12,4 +15,12 @@ import java.util.List;
 @SuppressWarnings("unused")
 public interface CarRepository extends JpaRepository<Car,Long> {
 
+    /**
+     * Get the version of a car, without loading it. Results are kept in the query cache, which is invalidated on
+     * car updates.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select new de.projectride.ride.service.dto.EntityVersionDTO(car.version, car.lastModifiedDate) " +
+        "from Car car where car.id = :id")
+    EntityVersionDTO findVersionById(@Param("id") Long id);
 }
@@ -0,0 +1,57 @@
+package de.projectride.ride.repository;
+
+import de.projectride.ride.domain.OutboxEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the OutboxEvent entity.
+ */
+@SuppressWarnings("unused")
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent,Long> {
+
+    /**
+     * Get the events which are not published yet, in the order they were appended, using the
+     * idx_outbox_sequence_number index.
+     */
+    @Query("select event from OutboxEvent event where event.sequenceNumber is null " +
+        "order by event.createdAt, event.id")
+    List<OutboxEvent> findUnpublished(Pageable pageable);
+
+    /**
+     * Get the published events following the given sequence number, in order, using the
+     * idx_outbox_sequence_number index.
+     */
+    List<OutboxEvent> findBySequenceNumberGreaterThanOrderBySequenceNumber(Long sequenceNumber, Pageable pageable);
+
+    /**
+     * Get the sequence number of the last published event, or null if there is none.
+     */
+    @Query("select max(event.sequenceNumber) from OutboxEvent event")
+    Long findLastSequenceNumber();
+
+    /**
+     * Get the sequence number of the first published event kept, or null if there is none.
+     */
+    @Query("select min(event.sequenceNumber) from OutboxEvent event")
+    Long findFirstSequenceNumber();
+
+    /**
+     * Get the sequence number the next published event will have.
+     */
+    @Query(value = "select next_val from sequence_generator where sequence_name = 'outbox_sequence_number'",
+        nativeQuery = true)
+    Long findNextSequenceNumber();
+
+    /**
+     * Delete the events published before the given time.
+     */
+    @Modifying
+    @Query("delete from OutboxEvent event where event.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") ZonedDateTime before);
+}
@@ -1,9 +1,12 @@
 package de.projectride.ride.repository;
 
 import de.projectride.ride.domain.Place;
+import de.projectride.ride.service.dto.EntityVersionDTO;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -12,4 +15,12 @@ import java.util.List;
 @SuppressWarnings("unused")
 public interface PlaceRepository extends JpaRepository<Place,Long> {
 
+    /**
+     * Get the version of a place, without loading it. Results are kept in the query cache, which is invalidated on
+     * place updates.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select new de.projectride.ride.service.dto.EntityVersionDTO(place.version, place.lastModifiedDate) " +
+        "from Place place where place.id = :id")
+    EntityVersionDTO findVersionById(@Param("id") Long id);
 }
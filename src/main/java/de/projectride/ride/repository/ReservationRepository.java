@@ -2,7 +2,10 @@ package de.projectride.ride.repository;
 
 import de.projectride.ride.domain.Reservation;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -12,4 +15,37 @@ import java.util.List;
 @SuppressWarnings("unused")
 public interface ReservationRepository extends JpaRepository<Reservation,Long> {
 
+    /**
+     * Get the reservations of a ride, with the ride fetched in the same query.
+     */
+    @EntityGraph(attributePaths = {"ride", "ride.startPlace", "ride.endPlace"})
+    Page<Reservation> findByRideId(Long rideId, Pageable pageable);
+
+    /**
+     * Get the reservations of a passenger, with their rides fetched in the same query.
+     */
+    @EntityGraph(attributePaths = {"ride", "ride.startPlace", "ride.endPlace"})
+    Page<Reservation> findByPassengerId(Long passengerId, Pageable pageable);
+
+    /**
+     * Get the reservations of a ride following the given id, ordered by id, with their rides fetched in the
+     * same query.
+     */
+    @EntityGraph(attributePaths = {"ride", "ride.startPlace", "ride.endPlace"})
+    List<Reservation> findByRideIdAndIdGreaterThanOrderById(Long rideId, Long afterId, Pageable pageable);
+
+    /**
+     * Get the reservations of a passenger following the given id, ordered by id, with their rides fetched in the
+     * same query.
+     */
+    @EntityGraph(attributePaths = {"ride", "ride.startPlace", "ride.endPlace"})
+    List<Reservation> findByPassengerIdAndIdGreaterThanOrderById(Long passengerId, Long afterId, Pageable pageable);
+
+    /**
+     * Count the reservations of a ride which are not cancled, using only the idx_reservation_ride_id index.
+     */
+    @Query("select count(reservation) from Reservation reservation where reservation.ride.id = :rideId " +
+        "and (reservation.cancled is null or reservation.cancled = false)")
+    long countNotCancledByRideId(@Param("rideId") Long rideId);
+
 }
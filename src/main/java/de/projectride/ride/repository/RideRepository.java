@@ -1,15 +1,187 @@
 package de.projectride.ride.repository;
 
 import de.projectride.ride.domain.Ride;
+import de.projectride.ride.service.dto.EntityVersionDTO;
+import de.projectride.ride.service.dto.SeatAvailabilityDTO;
+import de.projectride.ride.service.dto.RideSummaryDTO;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for the Ride entity.
  */
 @SuppressWarnings("unused")
-public interface RideRepository extends JpaRepository<Ride,Long> {
+public interface RideRepository extends JpaRepository<Ride,Long>, RideRepositoryCustom {
 
+    /**
+     * The criteria of the ride searches, on a ride joined with its startPlace and endPlace.
+     * A null criterion is not applied. Like every query of the rides, the deleted ones are left out by the
+     * restriction of the entity.
+     */
+    String SEARCH_CONDITIONS = "where (:startCity is null or startPlace.cityName = :startCity) " +
+        "and (:endCity is null or endPlace.cityName = :endCity) " +
+        "and (:startPostcode is null or startPlace.postcode = :startPostcode) " +
+        "and (:endPostcode is null or endPlace.postcode = :endPostcode) " +
+        "and (:from is null or ride.startDateTime >= :from) " +
+        "and (:to is null or ride.startDateTime < :to) " +
+        "and (:maxPrice is null or ride.price <= :maxPrice) " +
+        "and (:minFreeSeats is null or ride.numberOfSeats - ride.seatsTaken >= :minFreeSeats)";
+
+    String SEARCH_COUNT_QUERY = "select count(ride) from Ride ride " +
+        "left join ride.startPlace startPlace left join ride.endPlace endPlace " + SEARCH_CONDITIONS;
+
+    /**
+     * The cosine of the angular distance between the start place of a ride and a center, given by the sine and
+     * cosine of its latitude and its longitude in radians: the greater, the nearer.
+     */
+    String COSINE_OF_DISTANCE = "(sin(radians(startPlace.latitude)) * :sinLatitude + " +
+        "cos(radians(startPlace.latitude)) * :cosLatitude * cos(radians(startPlace.longitude) - :longitudeRadians))";
+
+    /**
+     * The criteria of the nearby rides: a geohash prefix, which uses the geohash index, a bounding box, and the
+     * cosine of the radius, on a ride joined with its startPlace.
+     */
+    String NEARBY_CONDITIONS = "where startPlace.geohash like :geohashPattern " +
+        "and startPlace.latitude between :minLatitude and :maxLatitude " +
+        "and startPlace.longitude between :minLongitude and :maxLongitude " +
+        "and " + COSINE_OF_DISTANCE + " >= :cosRadius";
+
+    /**
+     * Get all the rides which are not deleted, with their places fetched in the same query.
+     */
+    @EntityGraph(attributePaths = {"startPlace", "endPlace"})
+    @Query("select ride from Ride ride")
+    List<Ride> findAllWithPlaces();
+
+    /**
+     * Search the rides which are not deleted, filtered on the given criteria, with their places fetched in the
+     * same query. Results are kept in the query cache, which is invalidated on ride updates.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query(value = "select ride from Ride ride " +
+        "left join fetch ride.startPlace startPlace left join fetch ride.endPlace endPlace " + SEARCH_CONDITIONS,
+        countQuery = SEARCH_COUNT_QUERY)
+    Page<Ride> search(@Param("startCity") String startCity,
+                      @Param("endCity") String endCity,
+                      @Param("startPostcode") Integer startPostcode,
+                      @Param("endPostcode") Integer endPostcode,
+                      @Param("from") ZonedDateTime from,
+                      @Param("to") ZonedDateTime to,
+                      @Param("maxPrice") Float maxPrice,
+                      @Param("minFreeSeats") Integer minFreeSeats,
+                      Pageable pageable);
+
+    /**
+     * Search like {@link #search}, reading only the fields of the ride summaries, in a single query.
+     */
+    @Query(value = "select new de.projectride.ride.service.dto.RideSummaryDTO(ride.id, ride.startDateTime, " +
+        "ride.price, ride.numberOfSeats, ride.seatsTaken, startPlace.cityName, startPlace.latitude, " +
+        "startPlace.longitude, endPlace.cityName, endPlace.latitude, endPlace.longitude) from Ride ride " +
+        "left join ride.startPlace startPlace left join ride.endPlace endPlace " + SEARCH_CONDITIONS,
+        countQuery = SEARCH_COUNT_QUERY)
+    Page<RideSummaryDTO> searchSummaries(@Param("startCity") String startCity,
+                                         @Param("endCity") String endCity,
+                                         @Param("startPostcode") Integer startPostcode,
+                                         @Param("endPostcode") Integer endPostcode,
+                                         @Param("from") ZonedDateTime from,
+                                         @Param("to") ZonedDateTime to,
+                                         @Param("maxPrice") Float maxPrice,
+                                         @Param("minFreeSeats") Integer minFreeSeats,
+                                         Pageable pageable);
+
+    /**
+     * Get the version of a ride which is not deleted, without loading it, from its version, the version of its
+     * seats and the versions of its places, which are part of its representation, and the last modification of
+     * the ride or its places. Results are kept in the query cache, which is invalidated on ride and place updates.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("select new de.projectride.ride.service.dto.EntityVersionDTO(ride.version, ride.seatsVersion, " +
+        "startPlace.version, endPlace.version, ride.lastModifiedDate, startPlace.lastModifiedDate, " +
+        "endPlace.lastModifiedDate) from Ride ride " +
+        "left join ride.startPlace startPlace left join ride.endPlace endPlace where ride.id = :id")
+    EntityVersionDTO findVersionById(@Param("id") Long id);
+
+    /**
+     * Get the seats of a ride which is not deleted, without loading it.
+     */
+    @Query("select new de.projectride.ride.service.dto.SeatAvailabilityDTO(ride.id, ride.seatsVersion, " +
+        "ride.numberOfSeats, ride.seatsTaken) from Ride ride where ride.id = :id")
+    SeatAvailabilityDTO findSeatAvailabilityById(@Param("id") Long id);
+
+    /**
+     * Get a page of the rides which are not deleted and start within a radius around a center, nearest first,
+     * among the ones whose start place geohash matches the given LIKE pattern. The pattern is expected to be a
+     * geohash prefix followed by '%', so the geohash index can be used.
+     */
+    @Query(value = "select ride from Ride ride join fetch ride.startPlace startPlace left join fetch ride.endPlace " +
+        NEARBY_CONDITIONS + " order by " + COSINE_OF_DISTANCE + " desc, ride.id",
+        countQuery = "select count(ride) from Ride ride join ride.startPlace startPlace " + NEARBY_CONDITIONS)
+    Page<Ride> findNearbyByStartPlaceGeohashLike(@Param("geohashPattern") String geohashPattern,
+                                                 @Param("minLatitude") double minLatitude,
+                                                 @Param("maxLatitude") double maxLatitude,
+                                                 @Param("minLongitude") double minLongitude,
+                                                 @Param("maxLongitude") double maxLongitude,
+                                                 @Param("sinLatitude") double sinLatitude,
+                                                 @Param("cosLatitude") double cosLatitude,
+                                                 @Param("longitudeRadians") double longitudeRadians,
+                                                 @Param("cosRadius") double cosRadius,
+                                                 Pageable pageable);
+
+    /**
+     * Get the rides which are not deleted, start after the given time and start or end at the given place, with
+     * their start and end places.
+     */
+    @Query("select ride from Ride ride join fetch ride.startPlace startPlace join fetch ride.endPlace endPlace " +
+        "where (startPlace.id = :placeId or endPlace.id = :placeId) and ride.startDateTime >= :from")
+    List<Ride> findAllWithPlacesByPlaceIdStartingFrom(@Param("placeId") Long placeId,
+                                                      @Param("from") ZonedDateTime from);
+
+    /**
+     * Get the rides which are not deleted among the given ids, with their start and end places.
+     */
+    @Query("select ride from Ride ride join fetch ride.startPlace join fetch ride.endPlace " +
+        "where ride.id in :ids")
+    List<Ride> findAllWithPlacesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Get the first rides which are not deleted and have a start date time, ordered by start date time and id.
+     */
+    @Query("select ride from Ride ride left join fetch ride.startPlace left join fetch ride.endPlace " +
+        "where ride.startDateTime is not null " +
+        "order by ride.startDateTime, ride.id")
+    List<Ride> findAllOrderByStartDateTime(Pageable pageable);
+
+    /**
+     * Get the rides which are not deleted and follow the given start date time and id, ordered by start date
+     * time and id. The first of them is found with a seek in the idx_ride_deleted_start_date_time index, on the
+     * startDateTime >= :afterStartDateTime condition, which the databases can't derive from the disjunction.
+     */
+    @Query("select ride from Ride ride left join fetch ride.startPlace left join fetch ride.endPlace " +
+        "where ride.startDateTime >= :afterStartDateTime " +
+        "and (ride.startDateTime > :afterStartDateTime or ride.id > :afterId) " +
+        "order by ride.startDateTime, ride.id")
+    List<Ride> findAllOrderByStartDateTimeAfter(@Param("afterStartDateTime") ZonedDateTime afterStartDateTime,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Stream all the rides which are not deleted with their places, ordered by id, to export them.
+     * Rows are fetched from a forward-only cursor in blocks of the fetch size, and the loaded rides are not put in
+     * the 2nd level cache. The stream must be consumed, and closed, within a transaction.
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    @Query("select ride from Ride ride left join fetch ride.startPlace left join fetch ride.endPlace order by ride.id")
+    Stream<Ride> streamAll();
 }
@@ -0,0 +1,24 @@
+package de.projectride.ride.repository;
+
+/**
+ * Custom methods of {@link RideRepository}, implemented by {@link RideRepositoryImpl}.
+ */
+public interface RideRepositoryCustom {
+
+    /**
+     * Hold a seat of the ride if one is free, in a single conditional update, so concurrent reservations never
+     * overbook the ride. The version of the seats is incremented and the last modification time is set, but not
+     * the optimistic locking version, so concurrent updates of the ride by its driver don't fail.
+     * Rides already loaded in the persistence context are not refreshed.
+     *
+     * @return 1 if a seat was held, 0 if the ride is full, deleted or doesn't exist
+     */
+    int takeSeat(Long id);
+
+    /**
+     * Release a seat held with {@link #takeSeat(Long)}.
+     *
+     * @return 1 if a seat was released, 0 if no seat was held
+     */
+    int releaseSeat(Long id);
+}
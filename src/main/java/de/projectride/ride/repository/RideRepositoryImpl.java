@@ -0,0 +1,91 @@
+package de.projectride.ride.repository;
+
+import de.projectride.ride.domain.Ride;
+
+import org.hibernate.Session;
+import org.hibernate.cache.spi.UpdateTimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+
+/**
+ * Implementation of {@link RideRepositoryCustom}.
+ *
+ * <p>
+ * The seats are updated with JDBC, on the connection of the transaction. A bulk update of Hibernate would clear
+ * the whole second-level cache region of the rides on every reservation, while only the updated ride is evicted
+ * here. The cached queries of the rides, which filter and count the free seats, are invalidated as Hibernate
+ * does it.
+ * </p>
+ */
+public class RideRepositoryImpl implements RideRepositoryCustom {
+
+    private static final String TAKE_SEAT = "update ride set seats_taken = seats_taken + 1, " +
+        "seats_version = seats_version + 1, last_modified_date = ? " +
+        "where id = ? and seats_taken < number_of_seats and deleted = false";
+
+    private static final String RELEASE_SEAT = "update ride set seats_taken = seats_taken - 1, " +
+        "seats_version = seats_version + 1, last_modified_date = ? " +
+        "where id = ? and seats_taken > 0";
+
+    private static final Serializable[] QUERY_SPACES = { "ride" };
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int takeSeat(Long id) {
+        return updateSeats(TAKE_SEAT, id);
+    }
+
+    @Override
+    @Transactional
+    public int releaseSeat(Long id) {
+        return updateSeats(RELEASE_SEAT, id);
+    }
+
+    private int updateSeats(String sql, Long id) {
+        Session session = entityManager.unwrap(Session.class);
+        int updated = session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+                statement.setLong(2, id);
+                return statement.executeUpdate();
+            }
+        });
+        if (updated > 0) {
+            evict((SessionImplementor) session, id);
+        }
+        return updated;
+    }
+
+    /**
+     * Evict the ride now, so that it isn't read from the cache in this transaction, and once the transaction is
+     * completed, so that a concurrent transaction doesn't leave the ride read before the update in the cache.
+     */
+    private void evict(SessionImplementor session, Long id) {
+        entityManager.getEntityManagerFactory().getCache().evict(Ride.class, id);
+        UpdateTimestampsCache timestamps = ((SessionFactoryImplementor) session.getFactory()).getUpdateTimestampsCache();
+        if (timestamps != null) {
+            timestamps.preInvalidate(QUERY_SPACES, session);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                entityManager.getEntityManagerFactory().getCache().evict(Ride.class, id);
+                if (timestamps != null) {
+                    timestamps.invalidate(QUERY_SPACES, session);
+                }
+            }
+        });
+    }
+}
@@ -3,10 +3,18 @@ package de.projectride.ride.security.jwt;
 import de.projectride.ride.config.JHipsterProperties;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,6 +26,17 @@ import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.*;
 
+/**
+ * Creates the JWT tokens, and authenticates the requests carrying them.
+ *
+ * <p>
+ * Verifying the HS512 signature of a token is the main cost of authenticating a request, so the authentication of a
+ * verified token is cached until the token expires. The cache is concurrent, so that the requests don't wait on each
+ * other to read it: when it is full, the tokens used least recently are evicted, see
+ * {@link JHipsterProperties.Security.Authentication.Jwt#getCacheMaxEntries()}, and the tokens are evicted at the
+ * latest once the longest token validity has elapsed since they were cached.
+ * </p>
+ */
 @Component
 public class TokenProvider {
 
@@ -31,9 +50,22 @@ public class TokenProvider {
 
     private long tokenValidityInSecondsForRememberMe;
 
+    private int cacheMaxEntries;
+
+    private Cache<String, CachedAuthentication> authenticationCache;
+
     @Inject
     private JHipsterProperties jHipsterProperties;
 
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private Meter cacheHits;
+
+    private Meter cacheMisses;
+
+    private Timer parses;
+
     @PostConstruct
     public void init() {
         this.secretKey =
@@ -43,6 +75,26 @@ public class TokenProvider {
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
         this.tokenValidityInSecondsForRememberMe =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSecondsForRememberMe();
+        this.cacheMaxEntries = jHipsterProperties.getSecurity().getAuthentication().getJwt().getCacheMaxEntries();
+        this.authenticationCache = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(cacheMaxEntries, 0))
+            .expireAfterWrite(Math.max(tokenValidityInSeconds, tokenValidityInSecondsForRememberMe),
+                TimeUnit.MILLISECONDS)
+            .build();
+
+        cacheHits = metricRegistry.meter(MetricRegistry.name(TokenProvider.class, "cache", "hits"));
+        cacheMisses = metricRegistry.meter(MetricRegistry.name(TokenProvider.class, "cache", "misses"));
+        parses = metricRegistry.timer(MetricRegistry.name(TokenProvider.class, "parses"));
+        metricRegistry.register(MetricRegistry.name(TokenProvider.class, "cache", "size"),
+            (Gauge<Long>) authenticationCache::size);
+        metricRegistry.register(MetricRegistry.name(TokenProvider.class, "cache", "hitRatio"), new RatioGauge() {
+
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(cacheHits.getOneMinuteRate(),
+                    cacheHits.getOneMinuteRate() + cacheMisses.getOneMinuteRate());
+            }
+        });
     }
 
     public String createToken(Authentication authentication, Boolean rememberMe) {
@@ -66,11 +118,34 @@ public class TokenProvider {
             .compact();
     }
 
+    /**
+     * Get the authentication of a token, verifying the token only if it isn't in the cache.
+     *
+     * @param token the token
+     * @return the authentication
+     * @throws JwtException if the token is not valid, an {@link ExpiredJwtException} if it has expired
+     */
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-            .setSigningKey(secretKey)
-            .parseClaimsJws(token)
-            .getBody();
+        CachedAuthentication cached = authenticationCache.getIfPresent(token);
+        if (cached != null) {
+            if (cached.expiration > System.currentTimeMillis()) {
+                cacheHits.mark();
+                return cached.authentication;
+            }
+            // parsed again below, which throws the ExpiredJwtException
+            authenticationCache.invalidate(token);
+        }
+        cacheMisses.mark();
+        Claims claims;
+        final Timer.Context context = parses.time();
+        try {
+            claims = Jwts.parser()
+                .setSigningKey(secretKey)
+                .parseClaimsJws(token)
+                .getBody();
+        } finally {
+            context.stop();
+        }
 
         Collection<? extends GrantedAuthority> authorities =
             Arrays.asList(claims.get(AUTHORITIES_KEY).toString().split(",")).stream()
@@ -80,16 +155,49 @@ public class TokenProvider {
         User principal = new User(claims.getSubject(), "",
             authorities);
 
-        return new UsernamePasswordAuthenticationToken(principal, "", authorities);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, "", authorities);
+        cache(token, claims.getExpiration(), authentication);
+        return authentication;
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * Get the authentication of a token, in a single verification of the token.
+     *
+     * @param token the token
+     * @return the authentication, or null if the signature of the token is not valid
+     * @throws ExpiredJwtException if the token has expired
+     */
+    public Authentication getValidAuthentication(String token) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken);
-            return true;
+            return getAuthentication(token);
         } catch (SignatureException e) {
             log.info("Invalid JWT signature: " + e.getMessage());
-            return false;
+            return null;
+        }
+    }
+
+    public boolean validateToken(String authToken) {
+        return getValidAuthentication(authToken) != null;
+    }
+
+    private void cache(String token, Date expiration, Authentication authentication) {
+        if (cacheMaxEntries <= 0) {
+            return;
+        }
+        // evicts the least recently used tokens when the cache is full
+        long expirationMillis = expiration != null ? expiration.getTime() : Long.MAX_VALUE;
+        authenticationCache.put(token, new CachedAuthentication(authentication, expirationMillis));
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+
+        private final long expiration;
+
+        private CachedAuthentication(Authentication authentication, long expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
         }
     }
 }
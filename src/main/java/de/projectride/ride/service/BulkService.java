@@ -0,0 +1,173 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+import de.projectride.ride.service.dto.BulkItemResultDTO.Status;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Service applying bulk operations in chunks of {@link #CHUNK_SIZE} items, one transaction per chunk, so that
+ * the statements of a chunk are sent to the database in JDBC batches, see hibernate.jdbc.batch_size.
+ *
+ * <p>
+ * When a chunk fails, it is rolled back and its items are applied again one per transaction, so that a faulty
+ * item fails alone. The result of every item is reported, in the order of the request.
+ * </p>
+ */
+@Service
+public class BulkService {
+
+    public static final int CHUNK_SIZE = 500;
+
+    public static final int MAX_ITEMS = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(BulkService.class);
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    private Validator validator;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Save entities in bulk, after validating them.
+     *
+     * @param entities the entities to save, created when they have no id, updated otherwise
+     * @param getId the id of an entity
+     * @param exists whether the entity with the given id exists: an entity with the id of no entity is not found,
+     * instead of being created with another id
+     * @param check additional validation of an entity, returning its errors
+     * @param save saves an entity, in the transaction of its chunk
+     * @return the result of each entity
+     */
+    public <T extends Serializable> List<BulkItemResultDTO> saveAll(List<T> entities, Function<T, Long> getId,
+                                                                   Predicate<Long> exists,
+                                                                   Function<T, List<String>> check,
+                                                                   UnaryOperator<T> save) {
+        BulkItemResultDTO[] results = new BulkItemResultDTO[entities.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int index = 0; index < entities.size(); index++) {
+            T entity = entities.get(index);
+            List<String> errors = new ArrayList<>(check.apply(entity));
+            for (ConstraintViolation<T> violation : validator.validate(entity)) {
+                errors.add(violation.getPropertyPath() + " " + violation.getMessage());
+            }
+            if (errors.isEmpty()) {
+                validIndexes.add(index);
+            } else {
+                results[index] = new BulkItemResultDTO(index, getId.apply(entity), Status.INVALID, errors);
+            }
+        }
+        // entities left half saved by a failed chunk are saved again from copies
+        applyInChunks(entities, validIndexes, SerializationUtils::clone, getId, results, (index, entity) -> {
+            Long id = getId.apply(entity);
+            if (id != null && !exists.test(id)) {
+                return new BulkItemResultDTO(index, id, Status.NOT_FOUND);
+            }
+            Status status = id == null ? Status.CREATED : Status.UPDATED;
+            T result = save.apply(entity);
+            return new BulkItemResultDTO(index, getId.apply(result), status);
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Delete entities in bulk.
+     *
+     * @param ids the ids of the entities to delete
+     * @param exists whether the entity with the given id exists
+     * @param delete deletes an entity, in the transaction of its chunk
+     * @return the result of each id
+     */
+    public List<BulkItemResultDTO> deleteAll(List<Long> ids, Predicate<Long> exists, Consumer<Long> delete) {
+        BulkItemResultDTO[] results = new BulkItemResultDTO[ids.size()];
+        List<Integer> indexes = new ArrayList<>();
+        for (int index = 0; index < ids.size(); index++) {
+            indexes.add(index);
+        }
+        applyInChunks(ids, indexes, UnaryOperator.identity(), Function.identity(), results, (index, id) -> {
+            if (id == null || !exists.test(id)) {
+                return new BulkItemResultDTO(index, id, Status.NOT_FOUND);
+            }
+            delete.accept(id);
+            return new BulkItemResultDTO(index, id, Status.DELETED);
+        });
+        return Arrays.asList(results);
+    }
+
+    private <T> void applyInChunks(List<T> items, List<Integer> indexes, UnaryOperator<T> copy,
+                                   Function<T, Long> getId, BulkItemResultDTO[] results,
+                                   BulkOperation<T> operation) {
+        for (int from = 0; from < indexes.size(); from += CHUNK_SIZE) {
+            List<Integer> chunk = indexes.subList(from, Math.min(from + CHUNK_SIZE, indexes.size()));
+            List<T> copies = chunk.stream().map(index -> copy.apply(items.get(index))).collect(Collectors.toList());
+            try {
+                inTransaction(() -> {
+                    chunk.forEach(index -> results[index] = operation.apply(index, items.get(index)));
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.warn("Bulk chunk of {} items failed, applying them one by one: {}", chunk.size(), e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    int index = chunk.get(i);
+                    T item = copies.get(i);
+                    try {
+                        results[index] = inTransaction(() -> operation.apply(index, item));
+                    } catch (RuntimeException itemException) {
+                        results[index] = new BulkItemResultDTO(index, getId.apply(item), Status.FAILED,
+                            Collections.singletonList(ExceptionUtils.getRootCauseMessage(itemException)));
+                    }
+                }
+            }
+        }
+    }
+
+    private <R> R inTransaction(Supplier<R> work) {
+        return transactionTemplate.execute(status -> {
+            R result = work.get();
+            // fail inside the transaction, and don't keep the entities of previous chunks in memory
+            entityManager.flush();
+            entityManager.clear();
+            return result;
+        });
+    }
+
+    @FunctionalInterface
+    private interface BulkOperation<T> {
+
+        BulkItemResultDTO apply(int index, T item);
+    }
+}
@@ -1,7 +1,9 @@
 package de.projectride.ride.service;
 
 import de.projectride.ride.domain.Car;
+import de.projectride.ride.domain.enumeration.EventType;
 import de.projectride.ride.repository.CarRepository;
+import de.projectride.ride.service.dto.EntityVersionDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +24,9 @@ public class CarService {
     @Inject
     private CarRepository carRepository;
 
+    @Inject
+    private OutboxService outboxService;
+
     /**
      * Save a car.
      *
@@ -30,7 +35,9 @@ public class CarService {
      */
     public Car save(Car car) {
         log.debug("Request to save Car : {}", car);
+        boolean created = car.getId() == null;
         Car result = carRepository.save(car);
+        outboxService.append("Car", result.getId(), created ? EventType.CREATED : EventType.UPDATED, result);
         return result;
     }
 
@@ -60,6 +67,18 @@ public class CarService {
         return car;
     }
 
+    /**
+     *  Get the version of a car by id, without loading it.
+     *
+     *  @param id the id of the entity
+     *  @return the version of the entity, or null if it doesn't exist
+     */
+    @Transactional(readOnly = true)
+    public EntityVersionDTO findVersion(Long id) {
+        log.debug("Request to get the version of Car : {}", id);
+        return carRepository.findVersionById(id);
+    }
+
     /**
      *  Delete the  car by id.
      *
@@ -68,5 +87,6 @@ public class CarService {
     public void delete(Long id) {
         log.debug("Request to delete Car : {}", id);
         carRepository.delete(id);
+        outboxService.append("Car", id, EventType.DELETED, null);
     }
 }
@@ -0,0 +1,264 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.config.JHipsterProperties;
+import de.projectride.ride.repository.OutboxEventRepository;
+import de.projectride.ride.service.dto.ChangeEventDTO;
+import de.projectride.ride.service.util.TransactionUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Service streaming the published change events to the subscribers of GET /api/events, as Server-Sent Events.
+ *
+ * <p>
+ * It is the {@link OutboxEventSink} of the application: the latest jhipster.outbox.stream-buffer-size events it
+ * published are kept in memory, and sent from there to the subscribers, so that a new event costs no query per
+ * subscriber. A subscriber which is further behind, because it resumes an older stream or the events were
+ * published by another instance of the application, is sent the events read from the outbox, page by page. The
+ * events of the other instances are looked for every jhipster.outbox.stream-poll-millis.
+ * </p>
+ * <p>
+ * The events are sent to each subscriber by one task at a time of the streamExecutor, with their sequence number as
+ * event id, from which a client resumes the stream. A task sends at most jhipster.outbox.batch-size events, and
+ * queues the next task of the subscriber if there are more, so that the subscribers far behind take turns with the
+ * others. A stream resumed from an event whose successors were deleted,
+ * after jhipster.outbox.retention-days, starts with a "reset" event instead: the client reloads the entities, and
+ * the stream continues with the events published from now on.
+ * </p>
+ */
+@Service
+public class EventStreamService implements OutboxEventSink {
+
+    /** The name of the event sent first to a stream which cannot be resumed. */
+    public static final String RESET_EVENT = "reset";
+
+    private final Logger log = LoggerFactory.getLogger(EventStreamService.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    @Qualifier("streamExecutor")
+    private TaskExecutor streamExecutor;
+
+    /** The latest published events, with consecutive sequence numbers; guarded by itself. */
+    private final Deque<ChangeEventDTO> latestEvents = new ArrayDeque<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Keep the events once their sequence numbers are committed, and send them to the subscribers.
+     */
+    @Override
+    public void publish(List<ChangeEventDTO> events) {
+        TransactionUtil.afterCommit(() -> append(events));
+    }
+
+    /**
+     * Subscribe to the events published after the given sequence number.
+     *
+     * @param lastEventId the sequence number of the last event received, or null to receive the events published
+     * from now on
+     * @return the emitter of the events, starting with a "reset" event if the events following lastEventId were
+     * deleted
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        log.debug("Request to subscribe to the events after {}", lastEventId);
+        SseEmitter emitter = new SseEmitter(jHipsterProperties.getOutbox().getStreamTimeoutMillis());
+        long lastSequence;
+        if (lastEventId == null) {
+            lastSequence = lastPublishedSequence();
+        } else if (lastEventId + 1 < firstRetainedSequence()) {
+            lastSequence = lastPublishedSequence();
+            log.debug("The events after {} were deleted, resetting the stream to {}", lastEventId, lastSequence);
+            try {
+                // sent once the request is handled, before the events which the subscriber sends
+                emitter.send(SseEmitter.event()
+                    .id(String.valueOf(lastSequence))
+                    .name(RESET_EVENT)
+                    .data(Collections.singletonMap("lastEventId", lastEventId), MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+        } else {
+            lastSequence = lastEventId;
+        }
+        Subscriber subscriber = new Subscriber(emitter, lastSequence);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        subscribers.add(subscriber);
+        subscriber.wakeUp();
+        return emitter;
+    }
+
+    /**
+     * Look for the events published by the other instances of the application, every
+     * jhipster.outbox.stream-poll-millis.
+     */
+    @Scheduled(initialDelayString = "${jhipster.outbox.streamPollMillis:5000}",
+        fixedDelayString = "${jhipster.outbox.streamPollMillis:5000}")
+    public void pollPublished() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            long lastSequence = lastPublishedSequence();
+            subscribers.stream().filter(subscriber -> subscriber.lastSequence < lastSequence)
+                .forEach(Subscriber::wakeUp);
+        } catch (RuntimeException e) {
+            log.warn("Could not look for the published events", e);
+        }
+    }
+
+    private void append(List<ChangeEventDTO> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        int bufferSize = jHipsterProperties.getOutbox().getStreamBufferSize();
+        synchronized (latestEvents) {
+            ChangeEventDTO last = latestEvents.peekLast();
+            if (last != null && last.getSequence() + 1 != events.get(0).getSequence()) {
+                // the events published by another instance in between are only in the outbox
+                latestEvents.clear();
+            }
+            for (ChangeEventDTO event : events) {
+                latestEvents.addLast(event);
+                if (latestEvents.size() > bufferSize) {
+                    latestEvents.removeFirst();
+                }
+            }
+        }
+        long lastSequence = events.get(events.size() - 1).getSequence();
+        subscribers.stream().filter(subscriber -> subscriber.lastSequence < lastSequence)
+            .forEach(Subscriber::wakeUp);
+    }
+
+    /**
+     * @return the first events kept in memory after the given sequence number, or null if they don't follow it
+     */
+    private List<ChangeEventDTO> bufferedEventsAfter(long sequence, int limit) {
+        synchronized (latestEvents) {
+            ChangeEventDTO first = latestEvents.peekFirst();
+            if (first == null || first.getSequence() > sequence + 1 ||
+                latestEvents.peekLast().getSequence() <= sequence) {
+                return null;
+            }
+            return latestEvents.stream().filter(event -> event.getSequence() > sequence)
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+    }
+
+    private long lastBufferedSequence() {
+        synchronized (latestEvents) {
+            ChangeEventDTO last = latestEvents.peekLast();
+            return last == null ? 0 : last.getSequence();
+        }
+    }
+
+    /**
+     * @return the sequence number of the first event kept in the outbox, or the next one if none is kept
+     */
+    private long firstRetainedSequence() {
+        Long firstSequence = outboxEventRepository.findFirstSequenceNumber();
+        return firstSequence != null ? firstSequence : outboxEventRepository.findNextSequenceNumber();
+    }
+
+    private long lastPublishedSequence() {
+        Long lastSequence = outboxEventRepository.findLastSequenceNumber();
+        return lastSequence != null ? lastSequence : outboxEventRepository.findNextSequenceNumber() - 1;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean delivering = new AtomicBoolean();
+
+        private volatile long lastSequence;
+
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, long lastSequence) {
+            this.emitter = emitter;
+            this.lastSequence = lastSequence;
+        }
+
+        private void wakeUp() {
+            if (closed || !delivering.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                streamExecutor.execute(this::deliver);
+            } catch (TaskRejectedException e) {
+                delivering.set(false);
+                log.warn("Could not send the events to a subscriber: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * Send the next page of events, and wake up again if there are more.
+         */
+        private void deliver() {
+            int pageSize = jHipsterProperties.getOutbox().getBatchSize();
+            boolean more = false;
+            try {
+                if (!closed) {
+                    List<ChangeEventDTO> events = bufferedEventsAfter(lastSequence, pageSize);
+                    if (events == null) {
+                        events = outboxEventRepository.findBySequenceNumberGreaterThanOrderBySequenceNumber(
+                            lastSequence, new PageRequest(0, pageSize)).stream()
+                            .map(ChangeEventDTO::new)
+                            .collect(Collectors.toList());
+                    }
+                    for (ChangeEventDTO event : events) {
+                        emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getSequence()))
+                            .name(event.getAggregateType())
+                            .data(event, MediaType.APPLICATION_JSON));
+                        lastSequence = event.getSequence();
+                    }
+                    more = events.size() == pageSize;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Closing an event stream: {}", e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                delivering.set(false);
+            }
+            // the next page, or the events appended while the last ones were sent
+            if (more || lastSequence < lastBufferedSequence()) {
+                wakeUp();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.projectride.ride.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.projectride.ride.config.Constants;
+import de.projectride.ride.config.JHipsterProperties;
+import de.projectride.ride.service.dto.ChangeEventDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sink sending the change events to the jhipster.outbox.kafka.topic topic of Kafka, in production.
+ *
+ * <p>
+ * An event is sent as JSON, keyed by its aggregate, so that the events of an aggregate are in one partition, in the
+ * order of their sequence numbers. A batch waits for the acknowledgement of all its events: if one is not
+ * acknowledged within jhipster.outbox.kafka.send-timeout-millis, the batch is rolled back and sent again.
+ * </p>
+ */
+@Service
+@Profile(Constants.SPRING_PROFILE_PRODUCTION)
+public class KafkaOutboxEventSink implements OutboxEventSink {
+
+    private final Logger log = LoggerFactory.getLogger(KafkaOutboxEventSink.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void publish(List<ChangeEventDTO> events) {
+        log.debug("Sending {} events to Kafka", events.size());
+        List<ListenableFuture<SendResult<String, String>>> sends = new ArrayList<>(events.size());
+        try {
+            for (ChangeEventDTO event : events) {
+                sends.add(kafkaTemplate.sendDefault(event.getAggregateType() + "-" + event.getAggregateId(),
+                    objectMapper.writeValueAsString(event)));
+            }
+            kafkaTemplate.flush();
+            long deadline = System.nanoTime() +
+                TimeUnit.MILLISECONDS.toNanos(jHipsterProperties.getOutbox().getKafka().getSendTimeoutMillis());
+            for (ListenableFuture<SendResult<String, String>> send : sends) {
+                send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (JsonProcessingException | ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not send the events to Kafka", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending the events to Kafka", e);
+        }
+    }
+}
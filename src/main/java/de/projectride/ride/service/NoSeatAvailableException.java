@@ -0,0 +1,13 @@
+package de.projectride.ride.service;
+
+/**
+ * Thrown when a seat is reserved on a ride whose seats are all taken.
+ */
+public class NoSeatAvailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NoSeatAvailableException(Long rideId) {
+        super("No seat available on ride " + rideId);
+    }
+}
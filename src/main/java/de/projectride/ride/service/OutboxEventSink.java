@@ -0,0 +1,25 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.service.dto.ChangeEventDTO;
+
+import java.util.List;
+
+/**
+ * A destination of the change events, such as a message broker. Every sink bean receives the published events
+ * from {@link OutboxRelayService}.
+ *
+ * <p>
+ * The events are published at least once, in the order of their sequence numbers. A sink is called in the
+ * transaction which gives the sequence numbers: if it throws, the batch is rolled back and published again by the
+ * next run of the relay, so the consumers ignore the events whose id they have already received.
+ * </p>
+ */
+public interface OutboxEventSink {
+
+    /**
+     * Publish a batch of events.
+     *
+     * @param events the events, ordered by sequence number
+     */
+    void publish(List<ChangeEventDTO> events);
+}
@@ -0,0 +1,145 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.config.JHipsterProperties;
+import de.projectride.ride.domain.OutboxEvent;
+import de.projectride.ride.repository.OutboxEventRepository;
+import de.projectride.ride.service.dto.ChangeEventDTO;
+
+import org.hibernate.SQLQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service publishing the events of the outbox to the {@link OutboxEventSink} beans, in the order they were
+ * committed.
+ *
+ * <p>
+ * The events are published in batches of jhipster.outbox.batch-size events, one transaction per batch, every
+ * jhipster.outbox.relay-delay-millis. A batch locks the 'outbox_sequence_number' row of sequence_generator, so the
+ * relays of the instances of the application publish one batch at a time, and numbers its events from it: the
+ * sequence numbers of the published events have no gaps, and a stream is resumed from any of them.
+ * </p>
+ * <p>
+ * Published events are deleted after jhipster.outbox.retention-days.
+ * </p>
+ */
+@Service
+public class OutboxRelayService {
+
+    private static final String LOCK_SEQUENCE_NUMBER =
+        "select next_val from sequence_generator where sequence_name = 'outbox_sequence_number' for update";
+
+    private static final String UPDATE_SEQUENCE_NUMBER =
+        "update sequence_generator set next_val = :nextVal where sequence_name = 'outbox_sequence_number'";
+
+    private final Logger log = LoggerFactory.getLogger(OutboxRelayService.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Autowired(required = false)
+    private List<OutboxEventSink> sinks = Collections.emptyList();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Publish the events of the outbox, every jhipster.outbox.relay-delay-millis.
+     */
+    @Scheduled(initialDelayString = "${jhipster.outbox.relayDelayMillis:500}",
+        fixedDelayString = "${jhipster.outbox.relayDelayMillis:500}")
+    public void relay() {
+        try {
+            int published = publishAll();
+            if (published > 0) {
+                log.debug("Published {} events", published);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not publish the events", e);
+        }
+    }
+
+    /**
+     * Publish the events which are not published yet, in batches.
+     *
+     * @return the number of events published
+     */
+    public int publishAll() {
+        int batchSize = jHipsterProperties.getOutbox().getBatchSize();
+        int published = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> publishBatch(batchSize));
+            published += batch;
+        } while (batch == batchSize);
+        return published;
+    }
+
+    /**
+     * Delete the events published for more than the retention, every hour.
+     */
+    @Scheduled(initialDelay = 600000, fixedDelay = 3600000)
+    public void purgePublished() {
+        int retentionDays = jHipsterProperties.getOutbox().getRetentionDays();
+        try {
+            int deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(ZonedDateTime.now().minusDays(retentionDays)));
+            log.info("Deleted {} events published more than {} days ago", deleted, retentionDays);
+        } catch (RuntimeException e) {
+            log.warn("Could not delete the published events", e);
+        }
+    }
+
+    private int publishBatch(int batchSize) {
+        // locked before the events are read, so that they are read once the batch of another relay is committed
+        long nextSequenceNumber = ((Number) entityManager.createNativeQuery(LOCK_SEQUENCE_NUMBER).getSingleResult())
+            .longValue();
+        List<OutboxEvent> events = outboxEventRepository.findUnpublished(new PageRequest(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        ZonedDateTime now = ZonedDateTime.now();
+        List<ChangeEventDTO> changes = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            event.setSequenceNumber(nextSequenceNumber++);
+            event.setPublishedAt(now);
+            changes.add(new ChangeEventDTO(event));
+        }
+        entityManager.createNativeQuery(UPDATE_SEQUENCE_NUMBER)
+            .setParameter("nextVal", nextSequenceNumber)
+            .unwrap(SQLQuery.class)
+            .addSynchronizedQuerySpace("sequence_generator")
+            .executeUpdate();
+        for (OutboxEventSink sink : sinks) {
+            sink.publish(changes);
+        }
+        return events.size();
+    }
+}
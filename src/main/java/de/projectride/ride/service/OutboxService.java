@@ -0,0 +1,151 @@
+package de.projectride.ride.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.projectride.ride.domain.enumeration.EventType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service appending the changes of the entities to the outbox, in the transaction of the change, so that an
+ * event is published if and only if its change is committed.
+ *
+ * <p>
+ * The changes of a transaction are collected, and written when the transaction commits: the entities are then
+ * flushed, so the payload holds their version and audit dates as committed, and an entity changed several times
+ * in a transaction gives a single event. The events are published by {@link OutboxRelayService}.
+ * </p>
+ */
+@Service
+public class OutboxService {
+
+    private static final String INSERT_EVENT = "insert into outbox (aggregate_type, aggregate_id, event_type, " +
+        "payload, created_at) values (?, ?, ?, ?, ?)";
+
+    private final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Inject
+    private EntityManager entityManager;
+
+    /**
+     * Append the change of an entity to the outbox of the current transaction.
+     *
+     * @param aggregateType the type of the entity
+     * @param aggregateId the id of the entity
+     * @param type the type of the change
+     * @param entity the entity after the change, written as the payload of the event; ignored for a deletion
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, Long aggregateId, EventType type, Object entity) {
+        log.debug("Request to append the {} event of {} : {}", type, aggregateType, aggregateId);
+        pendingEvents().add(new PendingEvent(aggregateType, aggregateId, type,
+            type == EventType.DELETED ? null : entity));
+    }
+
+    private PendingEvents pendingEvents() {
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvents();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private static final class PendingEvent {
+
+        private final String aggregateType;
+
+        private final Long aggregateId;
+
+        private final EventType type;
+
+        private final Object entity;
+
+        private PendingEvent(String aggregateType, Long aggregateId, EventType type, Object entity) {
+            this.aggregateType = aggregateType;
+            this.aggregateId = aggregateId;
+            this.type = type;
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * The events of a transaction, by entity, in the order the entities were first changed.
+     */
+    private final class PendingEvents extends TransactionSynchronizationAdapter {
+
+        private final Map<String, PendingEvent> events = new LinkedHashMap<>();
+
+        private void add(PendingEvent event) {
+            events.merge(event.aggregateType + ":" + event.aggregateId, event, (previous, next) ->
+                // an entity created in the transaction stays created until it is deleted
+                previous.type == EventType.CREATED && next.type == EventType.UPDATED ?
+                    new PendingEvent(next.aggregateType, next.aggregateId, EventType.CREATED, next.entity) : next);
+        }
+
+        /**
+         * Insert the events in a JDBC batch, on the connection of the transaction: Hibernate doesn't batch the
+         * inserts of an entity with an identity column.
+         */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            entityManager.flush();
+            Timestamp now = Timestamp.from(Instant.now());
+            List<Object[]> rows = new ArrayList<>(events.size());
+            for (PendingEvent event : events.values()) {
+                rows.add(new Object[] {event.aggregateType, event.aggregateId, event.type.name(),
+                    toJson(event.entity), now});
+            }
+            jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(OutboxService.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(OutboxService.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OutboxService.this);
+        }
+
+        private String toJson(Object entity) {
+            if (entity == null) {
+                return null;
+            }
+            try {
+                return objectMapper.writeValueAsString(entity);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not write the payload of " + entity, e);
+            }
+        }
+    }
+}
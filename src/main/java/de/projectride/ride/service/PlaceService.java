@@ -1,13 +1,24 @@
 package de.projectride.ride.service;
 
+import com.codahale.metrics.MetricRegistry;
 import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.enumeration.EventType;
 import de.projectride.ride.repository.PlaceRepository;
+import de.projectride.ride.service.dto.EntityVersionDTO;
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+import de.projectride.ride.service.util.GeoUtil;
+import de.projectride.ride.service.util.SingleFlight;
+import de.projectride.ride.service.util.TransactionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -22,18 +33,66 @@ public class PlaceService {
     @Inject
     private PlaceRepository placeRepository;
 
+    @Inject
+    private BulkService bulkService;
+
+    @Inject
+    private OutboxService outboxService;
+
+    @Inject
+    private RideIndexService rideIndexService;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private SingleFlight<Long, Place> placeLoads;
+
+    @PostConstruct
+    public void init() {
+        placeLoads = new SingleFlight<>(metricRegistry, MetricRegistry.name(PlaceService.class, "findOne"));
+    }
+
     /**
-     * Save a place.
+     * Save a place, and compute its geohash from its coordinates. The upcoming rides of an updated place are
+     * indexed again once the place is committed, as it may have moved.
      *
      * @param place the entity to save
      * @return the persisted entity
      */
     public Place save(Place place) {
         log.debug("Request to save Place : {}", place);
+        if (place.getLatitude() != null && place.getLongitude() != null) {
+            place.setGeohash(GeoUtil.encode(place.getLatitude(), place.getLongitude(), GeoUtil.GEOHASH_PRECISION));
+        } else {
+            place.setGeohash(null);
+        }
+        boolean created = place.getId() == null;
         Place result = placeRepository.save(place);
+        outboxService.append("Place", result.getId(), created ? EventType.CREATED : EventType.UPDATED, result);
+        TransactionUtil.afterCommit(() -> {
+            placeLoads.forget(result.getId());
+            if (!created) {
+                rideIndexService.updatePlace(result.getId());
+            }
+        });
         return result;
     }
 
+    /**
+     * Save places in bulk, in chunked transactions.
+     *
+     * @param places the places to create, or to update when they have an id
+     * @return the result of each place
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> saveAll(List<Place> places) {
+        log.debug("Request to save {} Places", places.size());
+        return bulkService.saveAll(places, Place::getId, placeRepository::exists,
+            place -> place.getId() != null && place.getVersion() == null ?
+                Collections.singletonList("version is required to update a place") : Collections.emptyList(),
+            this::save);
+    }
+
     /**
      *  Get all the places.
      *  
@@ -48,16 +107,31 @@ public class PlaceService {
     }
 
     /**
-     *  Get one place by id.
+     *  Get one place by id. Outside of a transaction, the concurrent calls for the same id share a single load
+     *  of the place, as in {@link RideService#findOne}.
      *
      *  @param id the id of the entity
      *  @return the entity
      */
-    @Transactional(readOnly = true) 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Place findOne(Long id) {
         log.debug("Request to get Place : {}", id);
-        Place place = placeRepository.findOne(id);
-        return place;
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return placeRepository.findOne(id);
+        }
+        return placeLoads.load(id, placeRepository::findOne);
+    }
+
+    /**
+     *  Get the version of a place by id, without loading it.
+     *
+     *  @param id the id of the entity
+     *  @return the version of the entity, or null if it doesn't exist
+     */
+    @Transactional(readOnly = true)
+    public EntityVersionDTO findVersion(Long id) {
+        log.debug("Request to get the version of Place : {}", id);
+        return placeRepository.findVersionById(id);
     }
 
     /**
@@ -68,5 +142,19 @@ public class PlaceService {
     public void delete(Long id) {
         log.debug("Request to delete Place : {}", id);
         placeRepository.delete(id);
+        outboxService.append("Place", id, EventType.DELETED, null);
+        TransactionUtil.afterCommit(() -> placeLoads.forget(id));
+    }
+
+    /**
+     * Delete places in bulk, in chunked transactions.
+     *
+     * @param ids the ids of the places
+     * @return the result of each id
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} Places", ids.size());
+        return bulkService.deleteAll(ids, placeRepository::exists, this::delete);
     }
 }
@@ -1,39 +1,141 @@
 package de.projectride.ride.service;
 
 import de.projectride.ride.domain.Reservation;
+import de.projectride.ride.domain.enumeration.EventType;
 import de.projectride.ride.repository.ReservationRepository;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.util.TransactionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service Implementation for managing Reservation.
+ *
+ * <p>
+ * Every reservation which is not cancled holds a seat of its ride, counted by {@link
+ * de.projectride.ride.domain.Ride#getSeatsTaken()}. Seats are taken with a conditional update of the ride row
+ * instead of locking it, so a ride is never overbooked, even under heavy contention.
+ * </p>
  */
 @Service
 @Transactional
 public class ReservationService {
 
+    private static final int MAX_RESERVE_ATTEMPTS = 5;
+
     private final Logger log = LoggerFactory.getLogger(ReservationService.class);
     
     @Inject
     private ReservationRepository reservationRepository;
 
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private OutboxService outboxService;
+
+    @Inject
+    private SeatAvailabilityService seatAvailabilityService;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     /**
-     * Save a reservation.
+     * Save a reservation, taking or releasing a seat of its ride when the reservation is created, cancled or
+     * moved to another ride.
      *
      * @param reservation the entity to save
      * @return the persisted entity
+     * @throws NoSeatAvailableException if all the seats of the ride are taken
      */
     public Reservation save(Reservation reservation) {
         log.debug("Request to save Reservation : {}", reservation);
+        Long previousRideId = null;
+        if (reservation.getId() != null) {
+            Reservation previous = reservationRepository.findOne(reservation.getId());
+            previousRideId = previous == null ? null : seatRideId(previous);
+        }
+        Long rideId = seatRideId(reservation);
+        if (!Objects.equals(previousRideId, rideId)) {
+            if (previousRideId != null) {
+                rideRepository.releaseSeat(previousRideId);
+            }
+            if (rideId != null && rideRepository.takeSeat(rideId) == 0) {
+                throw new NoSeatAvailableException(rideId);
+            }
+            seatsChanged(previousRideId);
+            seatsChanged(rideId);
+        }
+        boolean created = reservation.getId() == null;
         Reservation result = reservationRepository.save(reservation);
+        outboxService.append("Reservation", result.getId(), created ? EventType.CREATED : EventType.UPDATED,
+            result);
         return result;
     }
 
+    /**
+     * Reserve a seat of a ride for a passenger, in its own transaction.
+     * The transaction is retried when it conflicts with a concurrent one.
+     *
+     * @param rideId the id of the ride
+     * @param passengerId the id of the passenger
+     * @return the persisted reservation, or null if the ride doesn't exist
+     * @throws NoSeatAvailableException if all the seats of the ride are taken
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Reservation reserveSeat(Long rideId, Long passengerId) {
+        log.debug("Request to reserve a seat on Ride {} for passenger {}", rideId, passengerId);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    if (rideRepository.takeSeat(rideId) == 0) {
+                        if (!rideRepository.exists(rideId)) {
+                            return null;
+                        }
+                        throw new NoSeatAvailableException(rideId);
+                    }
+                    Reservation reservation = new Reservation()
+                        .passengerId(passengerId)
+                        .confirmed(false)
+                        .cancled(false)
+                        .ride(rideRepository.findOne(rideId));
+                    Reservation result = reservationRepository.save(reservation);
+                    outboxService.append("Reservation", result.getId(), EventType.CREATED, result);
+                    seatsChanged(rideId);
+                    return result;
+                });
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_RESERVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Retrying to reserve a seat on Ride {} after a conflict: {}", rideId, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
     /**
      *  Get all the reservations.
      *  
@@ -47,6 +149,74 @@ public class ReservationService {
         return result;
     }
 
+    /**
+     *  Get the reservations of a ride.
+     *
+     *  @param rideId the id of the ride
+     *  @param pageable the pagination information
+     *  @return the page of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Reservation> findByRide(Long rideId, Pageable pageable) {
+        log.debug("Request to get a page of Reservations of Ride : {}", rideId);
+        return reservationRepository.findByRideId(rideId, pageable);
+    }
+
+    /**
+     *  Get the reservations of a passenger.
+     *
+     *  @param passengerId the id of the passenger
+     *  @param pageable the pagination information
+     *  @return the page of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Reservation> findByPassenger(Long passengerId, Pageable pageable) {
+        log.debug("Request to get a page of Reservations of passenger : {}", passengerId);
+        return reservationRepository.findByPassengerId(passengerId, pageable);
+    }
+
+    /**
+     *  Get the reservations of a ride following the given id, ordered by id.
+     *
+     *  @param rideId the id of the ride
+     *  @param afterId the id of the last reservation of the previous page, or null for the first page
+     *  @param limit the maximum number of reservations
+     *  @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public List<Reservation> findByRideAfter(Long rideId, Long afterId, int limit) {
+        log.debug("Request to get the Reservations of Ride {} after {}", rideId, afterId);
+        return reservationRepository.findByRideIdAndIdGreaterThanOrderById(rideId, afterId == null ? 0 : afterId,
+            new PageRequest(0, limit));
+    }
+
+    /**
+     *  Get the reservations of a passenger following the given id, ordered by id.
+     *
+     *  @param passengerId the id of the passenger
+     *  @param afterId the id of the last reservation of the previous page, or null for the first page
+     *  @param limit the maximum number of reservations
+     *  @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public List<Reservation> findByPassengerAfter(Long passengerId, Long afterId, int limit) {
+        log.debug("Request to get the Reservations of passenger {} after {}", passengerId, afterId);
+        return reservationRepository.findByPassengerIdAndIdGreaterThanOrderById(passengerId,
+            afterId == null ? 0 : afterId, new PageRequest(0, limit));
+    }
+
+    /**
+     *  Count the reservations of a ride which are not cancled, that is the seats taken.
+     *
+     *  @param rideId the id of the ride
+     *  @return the number of reservations
+     */
+    @Transactional(readOnly = true)
+    public long countByRide(Long rideId) {
+        log.debug("Request to count the Reservations of Ride : {}", rideId);
+        return reservationRepository.countNotCancledByRideId(rideId);
+    }
+
     /**
      *  Get one reservation by id.
      *
@@ -67,6 +237,40 @@ public class ReservationService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Reservation : {}", id);
+        Reservation reservation = reservationRepository.findOne(id);
+        if (reservation != null && seatRideId(reservation) != null) {
+            rideRepository.releaseSeat(seatRideId(reservation));
+            seatsChanged(seatRideId(reservation));
+        }
         reservationRepository.delete(id);
+        outboxService.append("Reservation", id, EventType.DELETED, null);
+    }
+
+    /**
+     * @return the id of the ride on which the reservation holds a seat, or null if it holds none
+     */
+    private static Long seatRideId(Reservation reservation) {
+        if (reservation.getRide() == null || Boolean.TRUE.equals(reservation.isCancled())) {
+            return null;
+        }
+        return reservation.getRide().getId();
+    }
+
+    /**
+     * Push the seats of a ride to its subscribers once the transaction is committed.
+     */
+    private void seatsChanged(Long rideId) {
+        if (rideId != null) {
+            TransactionUtil.afterCommit(() -> seatAvailabilityService.seatsChanged(rideId));
+        }
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reserving a seat", e);
+        }
     }
 }
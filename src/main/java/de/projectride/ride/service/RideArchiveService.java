@@ -0,0 +1,286 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.config.JHipsterProperties;
+import de.projectride.ride.domain.Ride;
+
+import org.hibernate.CacheMode;
+import org.hibernate.SQLQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service moving the rides out of the ride table, to the ride_archive table, with their reservations, so that the
+ * table and its indexes only hold the rides which can still be searched or reserved.
+ *
+ * <p>
+ * Deleted rides are archived once they have been deleted for jhipster.archive.deleted-retention-days, and the
+ * other rides once they have started for jhipster.archive.completed-retention-days. They are moved in batches of
+ * jhipster.archive.batch-size rides, one transaction per batch, with a pause of
+ * jhipster.archive.batch-delay-millis between the batches, so that the rows are never locked for long and the
+ * archiving leaves room for the requests. As deleted rides are left out of every query of the entity, the rides
+ * are moved with native statements.
+ * </p>
+ * <p>
+ * The archived rides which were not deleted can still be read by id, see {@link #findArchived(Long)}.
+ * </p>
+ * <p>
+ * On MySQL, the archive tables are partitioned by month of archive time. The partitions of the next
+ * jhipster.archive.partition-months-ahead months are split from the pmax partition every day, see
+ * {@link #addArchivePartitions()}.
+ * </p>
+ */
+@Service
+public class RideArchiveService {
+
+    private static final String DELETED_RIDE_IDS =
+        "select id from ride where deleted = true and deleted_at < :before order by id";
+
+    private static final String COMPLETED_RIDE_IDS =
+        "select id from ride where deleted = false and start_date_time < :before order by start_date_time, id";
+
+    private static final String ARCHIVE_RIDES = "insert into ride_archive (id, driver_id, start_date_time, " +
+        "flexible_start_place, flexible_end_place, price, number_of_seats, description, created_at, deleted, " +
+        "deleted_at, version, seats_taken, seats_version, start_place_id, end_place_id, created_by, " +
+        "created_date, last_modified_by, last_modified_date, archived_at) " +
+        "select id, driver_id, start_date_time, flexible_start_place, flexible_end_place, price, number_of_seats, " +
+        "description, created_at, deleted, deleted_at, version, seats_taken, seats_version, start_place_id, " +
+        "end_place_id, created_by, created_date, last_modified_by, last_modified_date, :archivedAt " +
+        "from ride where id in (:ids)";
+
+    private static final String ARCHIVE_RESERVATIONS = "insert into reservation_archive (id, passenger_id, " +
+        "confirmed, cancled, ride_id, archived_at) " +
+        "select id, passenger_id, confirmed, cancled, ride_id, :archivedAt from reservation where ride_id in (:ids)";
+
+    private static final String DELETE_RESERVATIONS = "delete from reservation where ride_id in (:ids)";
+
+    private static final String DELETE_RIDES = "delete from ride where id in (:ids)";
+
+    /** The archived ride, read as a ride: ride_archive has all the columns of ride. */
+    private static final String ARCHIVED_RIDE = "select * from ride_archive where id = :id and deleted = false";
+
+    private static final String[] ARCHIVE_TABLES = {"ride_archive", "reservation_archive"};
+
+    /** The monthly partitions of an archive table, the last first, none if the table isn't partitioned. */
+    private static final String MONTHLY_PARTITIONS = "select partition_name from information_schema.partitions " +
+        "where table_schema = database() and table_name = ? and partition_name is not null " +
+        "and partition_name <> 'pmax' order by partition_ordinal_position desc";
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final Logger log = LoggerFactory.getLogger(RideArchiveService.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    private DataSource dataSource;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Archive the rides deleted or completed for more than their retention, every hour.
+     */
+    @Scheduled(initialDelay = 600000, fixedDelay = 3600000)
+    public void archiveRides() {
+        JHipsterProperties.Archive archive = jHipsterProperties.getArchive();
+        ZonedDateTime now = ZonedDateTime.now();
+        try {
+            int archived = archiveDeleted(now.minusDays(archive.getDeletedRetentionDays()));
+            log.info("Archived {} rides deleted more than {} days ago", archived, archive.getDeletedRetentionDays());
+            archived = archiveCompleted(now.minusDays(archive.getCompletedRetentionDays()));
+            log.info("Archived {} rides started more than {} days ago", archived, archive.getCompletedRetentionDays());
+        } catch (RuntimeException e) {
+            log.warn("Could not archive the rides", e);
+        }
+    }
+
+    /**
+     * Split the partitions of the next months from the pmax partition of the archive tables, every day, so that
+     * the rows keep being archived in monthly partitions, which can be dropped. Only MySQL partitions the tables.
+     */
+    @Scheduled(initialDelay = 300000, fixedDelay = 86400000)
+    public void addArchivePartitions() {
+        try {
+            if (!"MySQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName"))) {
+                return;
+            }
+            YearMonth now = YearMonth.now();
+            YearMonth until = now.plusMonths(jHipsterProperties.getArchive().getPartitionMonthsAhead());
+            for (String table : ARCHIVE_TABLES) {
+                List<String> partitions = jdbcTemplate.queryForList(MONTHLY_PARTITIONS, String.class, table);
+                if (partitions.isEmpty()) {
+                    continue;
+                }
+                YearMonth last = YearMonth.parse(partitions.get(0).substring(1), PARTITION_MONTH);
+                String sql = reorganizePmax(table, last, now, until);
+                if (sql != null) {
+                    log.info("Adding the partitions of {} until {}", table, until);
+                    jdbcTemplate.execute(sql);
+                }
+            }
+        } catch (DataAccessException | MetaDataAccessException e) {
+            log.warn("Could not add the partitions of the archive tables", e);
+        }
+    }
+
+    /**
+     * The statement splitting the monthly partitions after the last one, until the given month, from pmax. The
+     * first new partition is the one of the current month at the earliest, and also holds the rows archived in
+     * pmax since the last partition.
+     *
+     * @param table the archive table
+     * @param lastPartition the month of the last partition before pmax
+     * @param now the current month
+     * @param until the month of the last partition to add
+     * @return the statement, or null if the partitions already exist
+     */
+    static String reorganizePmax(String table, YearMonth lastPartition, YearMonth now, YearMonth until) {
+        YearMonth month = lastPartition.plusMonths(1).isAfter(now) ? lastPartition.plusMonths(1) : now;
+        if (month.isAfter(until)) {
+            return null;
+        }
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table).append(" REORGANIZE PARTITION pmax INTO (");
+        for (; !month.isAfter(until); month = month.plusMonths(1)) {
+            sql.append("PARTITION p").append(month.format(PARTITION_MONTH))
+                .append(" VALUES LESS THAN (UNIX_TIMESTAMP('").append(month.plusMonths(1).atDay(1))
+                .append(" 00:00:00')), ");
+        }
+        return sql.append("PARTITION pmax VALUES LESS THAN MAXVALUE)").toString();
+    }
+
+    /**
+     * Archive the rides deleted before the given time, with their reservations.
+     *
+     * @param deletedBefore the time before which the rides were deleted
+     * @return the number of rides archived
+     */
+    public int archiveDeleted(ZonedDateTime deletedBefore) {
+        log.debug("Request to archive the Rides deleted before {}", deletedBefore);
+        return archive(DELETED_RIDE_IDS, deletedBefore);
+    }
+
+    /**
+     * Archive the rides which are not deleted and started before the given time, with their reservations.
+     *
+     * @param startedBefore the time before which the rides started
+     * @return the number of rides archived
+     */
+    public int archiveCompleted(ZonedDateTime startedBefore) {
+        log.debug("Request to archive the Rides started before {}", startedBefore);
+        return archive(COMPLETED_RIDE_IDS, startedBefore);
+    }
+
+    /**
+     * Get an archived ride which was not deleted, by id.
+     * The ride is read-only, and is neither cached nor found by the queries of the rides.
+     *
+     * @param id the id of the ride
+     * @return the archived ride, or null
+     */
+    @Transactional(readOnly = true)
+    public Ride findArchived(Long id) {
+        log.debug("Request to get archived Ride : {}", id);
+        @SuppressWarnings("unchecked")
+        List<Ride> rides = entityManager.createNativeQuery(ARCHIVED_RIDE, Ride.class)
+            .setParameter("id", id)
+            .setHint("org.hibernate.readOnly", true)
+            .setHint("org.hibernate.cacheMode", CacheMode.IGNORE)
+            .getResultList();
+        return rides.isEmpty() ? null : rides.get(0);
+    }
+
+    private int archive(String idsQuery, ZonedDateTime before) {
+        int batchSize = jHipsterProperties.getArchive().getBatchSize();
+        long batchDelayMillis = jHipsterProperties.getArchive().getBatchDelayMillis();
+        int archived = 0;
+        int batch = transactionTemplate.execute(status -> archiveBatch(idsQuery, before, batchSize));
+        archived += batch;
+        while (batch == batchSize && pause(batchDelayMillis)) {
+            batch = transactionTemplate.execute(status -> archiveBatch(idsQuery, before, batchSize));
+            archived += batch;
+        }
+        return archived;
+    }
+
+    private int archiveBatch(String idsQuery, ZonedDateTime before, int batchSize) {
+        @SuppressWarnings("unchecked")
+        List<Number> rows = entityManager.createNativeQuery(idsQuery)
+            .setParameter("before", Timestamp.from(before.toInstant()))
+            .setMaxResults(batchSize)
+            .getResultList();
+        List<Long> ids = rows.stream().map(Number::longValue).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Timestamp archivedAt = Timestamp.from(ZonedDateTime.now().toInstant());
+        update(ARCHIVE_RIDES, ids, archivedAt, "ride_archive");
+        update(ARCHIVE_RESERVATIONS, ids, archivedAt, "reservation_archive");
+        update(DELETE_RESERVATIONS, ids, null, "reservation");
+        update(DELETE_RIDES, ids, null, "ride");
+        return ids.size();
+    }
+
+    /**
+     * Execute a native statement. The table it changes is declared to Hibernate, so that only the cached data
+     * of this table is invalidated, instead of the whole second level cache.
+     */
+    private void update(String sql, List<Long> ids, Timestamp archivedAt, String table) {
+        Query query = entityManager.createNativeQuery(sql).setParameter("ids", ids);
+        if (archivedAt != null) {
+            query.setParameter("archivedAt", archivedAt);
+        }
+        query.unwrap(SQLQuery.class).addSynchronizedQuerySpace(table);
+        query.executeUpdate();
+    }
+
+    /**
+     * @return false if the thread was interrupted, so that the archiving stops at the end of a batch
+     */
+    private boolean pause(long millis) {
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
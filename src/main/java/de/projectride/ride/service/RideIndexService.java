@@ -0,0 +1,338 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.PlaceRepository;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.util.RideIndex;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Service keeping the in-memory {@link RideIndex} of upcoming rides up to date.
+ *
+ * <p>
+ * The index is rebuilt from the database at start up and every hour, which also drops the rides that have
+ * started. In between, {@link RideService} applies every saved or deleted ride once its transaction commits, and
+ * {@link PlaceService} re-indexes the upcoming rides of every updated place, whose coordinates the index copies.
+ * </p>
+ * <p>
+ * With the "hazelcast" profile, the id of every saved or deleted ride is also published to the other instances
+ * of the service, which reload the ride from the database so that all the indexes stay consistent.
+ * </p>
+ */
+@Service
+public class RideIndexService {
+
+    /** Topic on which the instances of the service publish the ids of the rides they saved or deleted. */
+    public static final String TOPIC = "ride-index";
+
+    private static final int REBUILD_CHUNK_SIZE = 1000;
+
+    /**
+     * A chunk of the rides which start after the given time, ordered by id. Chunks are read by passing the last id
+     * of the previous chunk, which stays fast on large tables.
+     */
+    private static final String UPCOMING_RIDES_AFTER_ID =
+        "select ride from Ride ride join fetch ride.startPlace join fetch ride.endPlace " +
+        "where ride.startDateTime >= :from and ride.id > :afterId " +
+        "order by ride.id";
+
+    private final Logger log = LoggerFactory.getLogger(RideIndexService.class);
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private PlaceRepository placeRepository;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Autowired(required = false)
+    private HazelcastInstance hazelcastInstance;
+
+    private ITopic<Long> topic;
+
+    private volatile RideIndex rideIndex = new RideIndex();
+
+    /** Runs the rebuilds one at a time. */
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private final Object updateMonitor = new Object();
+
+    /** Updates applied while a rebuild is running, replayed on the rebuilt index; guarded by updateMonitor. */
+    private List<Consumer<RideIndex>> pendingUpdates;
+
+    private Meter hits;
+
+    private Meter misses;
+
+    private Timer queries;
+
+    private Timer rebuilds;
+
+    @PostConstruct
+    public void init() {
+        hits = metricRegistry.meter(MetricRegistry.name(RideIndexService.class, "hits"));
+        misses = metricRegistry.meter(MetricRegistry.name(RideIndexService.class, "misses"));
+        queries = metricRegistry.timer(MetricRegistry.name(RideIndexService.class, "queries"));
+        rebuilds = metricRegistry.timer(MetricRegistry.name(RideIndexService.class, "rebuilds"));
+        metricRegistry.register(MetricRegistry.name(RideIndexService.class, "size"),
+            (Gauge<Integer>) () -> rideIndex.size());
+        if (hazelcastInstance != null) {
+            topic = hazelcastInstance.getTopic(TOPIC);
+            topic.addMessageListener(this::onMessage);
+        }
+    }
+
+    /**
+     * Index a saved ride, or remove it if it can't be matched anymore.
+     *
+     * @param ride the saved ride
+     */
+    public void update(Ride ride) {
+        updateLocally(ride);
+        publish(ride.getId());
+    }
+
+    /**
+     * Index again the upcoming rides which start or end at an updated place, as they hold a copy of its coordinates.
+     *
+     * @param placeId the id of the updated place
+     */
+    public void updatePlace(Long placeId) {
+        rideRepository.findAllWithPlacesByPlaceIdStartingFrom(placeId, ZonedDateTime.now()).forEach(this::update);
+    }
+
+    /**
+     * Remove a ride from the index.
+     *
+     * @param id the id of the ride
+     */
+    public void remove(Long id) {
+        apply(index -> index.remove(id));
+        publish(id);
+    }
+
+    private void updateLocally(Ride ride) {
+        // a ride created with references to existing places only carries their ids
+        Place startPlace = resolve(ride.getStartPlace());
+        Place endPlace = resolve(ride.getEndPlace());
+        if (isIndexable(ride, startPlace, endPlace)) {
+            long id = ride.getId();
+            double startLatitude = startPlace.getLatitude();
+            double startLongitude = startPlace.getLongitude();
+            double endLatitude = endPlace.getLatitude();
+            double endLongitude = endPlace.getLongitude();
+            long startEpochSecond = ride.getStartDateTime().toEpochSecond();
+            int startDetourKm = ride.getFlexibleStartPlace() == null ? 0 : ride.getFlexibleStartPlace();
+            int endDetourKm = ride.getFlexibleEndPlace() == null ? 0 : ride.getFlexibleEndPlace();
+            float price = priceOf(ride);
+            apply(index -> index.put(id, startLatitude, startLongitude, endLatitude, endLongitude,
+                startEpochSecond, startDetourKm, endDetourKm, price));
+        } else if (ride.getId() != null) {
+            apply(index -> index.remove(ride.getId()));
+        }
+    }
+
+    /**
+     * Find the rides starting within a time window around the requested time, whose start and end places are
+     * within the detour accepted by the driver, given by {@link Ride#getFlexibleStartPlace()} and
+     * {@link Ride#getFlexibleEndPlace()} in kilometers.
+     *
+     * @return the ids of the matching rides
+     */
+    public long[] findMatchingRideIds(double startLatitude, double startLongitude, double endLatitude,
+                                      double endLongitude, ZonedDateTime startDateTime, Duration window) {
+        Timer.Context context = queries.time();
+        try {
+            long[] ids = rideIndex.query(startLatitude, startLongitude, endLatitude, endLongitude,
+                startDateTime.toEpochSecond(), window.getSeconds());
+            if (ids.length > 0) {
+                hits.mark();
+            } else {
+                misses.mark();
+            }
+            return ids;
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * Find the best rides for a trip, among the ones {@link #findMatchingRideIds} would find.
+     *
+     * @param limit the maximum number of matches
+     * @param scorer the score of a ride, the lower the better
+     * @param executor the executor scoring the rides in parallel when many start within the window
+     * @return the best matches, best first
+     */
+    public List<RideIndex.Match> findMatches(double startLatitude, double startLongitude, double endLatitude,
+                                             double endLongitude, ZonedDateTime startDateTime, Duration window,
+                                             int limit, RideIndex.MatchScorer scorer, Executor executor) {
+        Timer.Context context = queries.time();
+        try {
+            List<RideIndex.Match> matches = rideIndex.match(startLatitude, startLongitude, endLatitude,
+                endLongitude, startDateTime.toEpochSecond(), window.getSeconds(), limit, scorer, executor);
+            if (matches.isEmpty()) {
+                misses.mark();
+            } else {
+                hits.mark();
+            }
+            return matches;
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * Rebuild the index from the upcoming rides in the database, every hour. The rides are read by a stateless
+     * session on the connection of the transaction, so the persistence context of the caller is left as it is.
+     */
+    @Scheduled(initialDelay = 0, fixedDelay = 3600000)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.debug("Rebuilding the ride index");
+        rebuildLock.lock();
+        List<Consumer<RideIndex>> updates = new ArrayList<>();
+        synchronized (updateMonitor) {
+            pendingUpdates = updates;
+        }
+        Timer.Context context = rebuilds.time();
+        StatelessSession session = openStatelessSession();
+        try {
+            RideIndex rebuiltIndex = new RideIndex();
+            ZonedDateTime now = ZonedDateTime.now();
+            Long lastId = 0L;
+            List<Ride> rides;
+            do {
+                @SuppressWarnings("unchecked")
+                List<Ride> chunk = session.createQuery(UPCOMING_RIDES_AFTER_ID)
+                    .setParameter("from", now)
+                    .setParameter("afterId", lastId)
+                    .setMaxResults(REBUILD_CHUNK_SIZE)
+                    .setReadOnly(true)
+                    .list();
+                rides = chunk;
+                for (Ride ride : rides) {
+                    lastId = ride.getId();
+                    if (isIndexable(ride, ride.getStartPlace(), ride.getEndPlace())) {
+                        rebuiltIndex.put(ride.getId(),
+                            ride.getStartPlace().getLatitude(), ride.getStartPlace().getLongitude(),
+                            ride.getEndPlace().getLatitude(), ride.getEndPlace().getLongitude(),
+                            ride.getStartDateTime().toEpochSecond(),
+                            ride.getFlexibleStartPlace() == null ? 0 : ride.getFlexibleStartPlace(),
+                            ride.getFlexibleEndPlace() == null ? 0 : ride.getFlexibleEndPlace(),
+                            priceOf(ride));
+                    }
+                }
+            } while (rides.size() == REBUILD_CHUNK_SIZE);
+            synchronized (updateMonitor) {
+                updates.forEach(update -> update.accept(rebuiltIndex));
+                rideIndex = rebuiltIndex;
+                pendingUpdates = null;
+            }
+            log.debug("Rebuilt the ride index with {} rides", rebuiltIndex.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the ride index", e);
+        } finally {
+            synchronized (updateMonitor) {
+                if (pendingUpdates == updates) {
+                    pendingUpdates = null;
+                }
+            }
+            session.close();
+            context.stop();
+            rebuildLock.unlock();
+        }
+    }
+
+    private StatelessSession openStatelessSession() {
+        Session session = entityManager.unwrap(Session.class);
+        return session.getSessionFactory().openStatelessSession(((SessionImplementor) session).connection());
+    }
+
+    private void publish(Long id) {
+        if (topic != null && id != null) {
+            topic.publish(id);
+        }
+    }
+
+    private void onMessage(Message<Long> message) {
+        if (message.getPublishingMember().localMember()) {
+            return;
+        }
+        Long id = message.getMessageObject();
+        log.debug("Refreshing ride {} changed by {}", id, message.getPublishingMember());
+        Ride ride = rideRepository.findOne(id);
+        if (ride == null) {
+            apply(index -> index.remove(id));
+        } else {
+            updateLocally(ride);
+        }
+    }
+
+    private void apply(Consumer<RideIndex> update) {
+        synchronized (updateMonitor) {
+            update.accept(rideIndex);
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+            }
+        }
+    }
+
+    private Place resolve(Place place) {
+        if (place != null && place.getId() != null && !hasCoordinates(place)) {
+            return placeRepository.findOne(place.getId());
+        }
+        return place;
+    }
+
+    private static boolean isIndexable(Ride ride, Place startPlace, Place endPlace) {
+        return ride.getId() != null
+            && !Boolean.TRUE.equals(ride.isDeleted())
+            && ride.getStartDateTime() != null
+            && ride.getStartDateTime().isAfter(ZonedDateTime.now())
+            && hasCoordinates(startPlace)
+            && hasCoordinates(endPlace);
+    }
+
+    private static float priceOf(Ride ride) {
+        return ride.getPrice() == null ? 0 : ride.getPrice();
+    }
+
+    private static boolean hasCoordinates(Place place) {
+        return place != null && place.getLatitude() != null && place.getLongitude() != null;
+    }
+}
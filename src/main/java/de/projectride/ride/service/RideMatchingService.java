@@ -0,0 +1,109 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.dto.RideMatchDTO;
+import de.projectride.ride.service.dto.TripDTO;
+import de.projectride.ride.service.util.RideIndex;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service ranking the upcoming rides which serve the trip of a passenger.
+ *
+ * <p>
+ * The candidates are found and scored in the in-memory {@link RideIndex}, by detour, time deviation and price,
+ * without querying the database. Only the best of them are read, in a single query which also gives their free
+ * seats: the full rides are dropped and the others get a bonus per free seat before being ranked again.
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class RideMatchingService {
+
+    /** Score of a kilometer of detour, at the start or at the end of the trip. */
+    public static final double DETOUR_KM_WEIGHT = 1;
+
+    /** Score of an hour between the requested start time and the one of a ride, as much as 10 km of detour. */
+    public static final double DEVIATION_HOUR_WEIGHT = 10;
+
+    /** Score of a unit of price. */
+    public static final double PRICE_WEIGHT = 0.5;
+
+    /** Score of a free seat, subtracted from the score of a ride. */
+    public static final double FREE_SEAT_WEIGHT = 1;
+
+    /** Number of candidates read per requested ride, as some of them may be full. */
+    private static final int CANDIDATES_PER_RIDE = 3;
+
+    private static final RideIndex.MatchScorer SCORER = (detourKm, deviationSeconds, price) ->
+        DETOUR_KM_WEIGHT * detourKm + DEVIATION_HOUR_WEIGHT * deviationSeconds / 3600 + PRICE_WEIGHT * price;
+
+    private final Logger log = LoggerFactory.getLogger(RideMatchingService.class);
+
+    @Inject
+    private RideIndexService rideIndexService;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    @Qualifier("cpuExecutor")
+    private AsyncTaskExecutor cpuExecutor;
+
+    /**
+     * Find the best upcoming rides for a trip: the ones starting within the accepted deviation from the
+     * requested time, whose start and end places are within the detour accepted by the driver.
+     *
+     * @param trip the trip of the passenger
+     * @return the best rides with free seats, best first
+     */
+    public List<RideMatchDTO> match(TripDTO trip) {
+        log.debug("Request to match Rides for {}", trip);
+        int limit = trip.getLimit();
+        Duration window = Duration.ofMinutes(trip.getMaxDeviationMinutes());
+        List<RideIndex.Match> candidates = rideIndexService.findMatches(trip.getStartLatitude(),
+            trip.getStartLongitude(), trip.getEndLatitude(), trip.getEndLongitude(), trip.getStartDateTime(), window,
+            limit * CANDIDATES_PER_RIDE, SCORER, cpuExecutor);
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = candidates.stream().map(RideIndex.Match::getId).collect(Collectors.toList());
+        Map<Long, Ride> rides = rideRepository.findAllWithPlacesByIdIn(ids).stream()
+            .collect(Collectors.toMap(Ride::getId, Function.identity()));
+        List<RideMatchDTO> matches = new ArrayList<>();
+        for (RideIndex.Match candidate : candidates) {
+            Ride ride = rides.get(candidate.getId());
+            int freeSeats = ride == null ? 0 : freeSeatsOf(ride);
+            if (freeSeats > 0) {
+                matches.add(new RideMatchDTO(ride, candidate.getDetourKm(),
+                    TimeUnit.SECONDS.toMinutes(candidate.getDeviationSeconds()),
+                    candidate.getScore() - FREE_SEAT_WEIGHT * freeSeats));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(RideMatchDTO::getScore));
+        return new ArrayList<>(matches.subList(0, Math.min(limit, matches.size())));
+    }
+
+    private static int freeSeatsOf(Ride ride) {
+        int numberOfSeats = ride.getNumberOfSeats() == null ? 0 : ride.getNumberOfSeats();
+        int seatsTaken = ride.getSeatsTaken() == null ? 0 : ride.getSeatsTaken();
+        return numberOfSeats - seatsTaken;
+    }
+}
@@ -1,14 +1,39 @@
 package de.projectride.ride.service;
 
+import com.codahale.metrics.MetricRegistry;
+import de.projectride.ride.domain.Place;
 import de.projectride.ride.domain.Ride;
+import de.projectride.ride.domain.enumeration.EventType;
 import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+import de.projectride.ride.service.dto.EntityVersionDTO;
+import de.projectride.ride.service.dto.RideSummaryDTO;
+import de.projectride.ride.service.util.GeoUtil;
+import de.projectride.ride.service.util.SingleFlight;
+import de.projectride.ride.service.util.TransactionUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service Implementation for managing Ride.
@@ -22,18 +47,88 @@ public class RideService {
     @Inject
     private RideRepository rideRepository;
 
+    @Inject
+    private RideIndexService rideIndexService;
+
+    @Inject
+    private PlaceService placeService;
+
+    @Inject
+    private BulkService bulkService;
+
+    @Inject
+    private RideArchiveService rideArchiveService;
+
+    @Inject
+    private EntityManager entityManager;
+
+    @Inject
+    private OutboxService outboxService;
+
+    @Inject
+    private SeatAvailabilityService seatAvailabilityService;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    private SingleFlight<Long, Ride> rideLoads;
+
+    @PostConstruct
+    public void init() {
+        rideLoads = new SingleFlight<>(metricRegistry, MetricRegistry.name(RideService.class, "findOne"));
+    }
+
     /**
-     * Save a ride.
+     * Save a ride. A ride saved as deleted is deleted from then on, like with {@link #delete}.
      *
      * @param ride the entity to save
      * @return the persisted entity
      */
     public Ride save(Ride ride) {
         log.debug("Request to save Ride : {}", ride);
+        if (Boolean.TRUE.equals(ride.isDeleted()) && ride.getDeletedAt() == null) {
+            ride.setDeletedAt(ZonedDateTime.now());
+        }
+        boolean created = ride.getId() == null;
         Ride result = rideRepository.save(ride);
+        outboxService.append("Ride", result.getId(), Boolean.TRUE.equals(result.isDeleted()) ? EventType.DELETED :
+            created ? EventType.CREATED : EventType.UPDATED, result);
+        TransactionUtil.afterCommit(() -> {
+            rideLoads.forget(result.getId());
+            rideIndexService.update(result);
+            if (Boolean.TRUE.equals(result.isDeleted())) {
+                seatAvailabilityService.rideDeleted(result.getId());
+            } else {
+                seatAvailabilityService.seatsChanged(result.getId());
+            }
+        });
         return result;
     }
 
+    /**
+     * Save rides in bulk, in chunked transactions. The start and end places of a ride are created with it when
+     * they have no id.
+     *
+     * @param rides the rides to create, or to update when they have an id
+     * @return the result of each ride
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> saveAll(List<Ride> rides) {
+        log.debug("Request to save {} Rides", rides.size());
+        return bulkService.saveAll(rides, Ride::getId, rideRepository::exists,
+            ride -> ride.getId() != null && ride.getVersion() == null ?
+                Collections.singletonList("version is required to update a ride") : Collections.emptyList(),
+            ride -> {
+                if (ride.getStartPlace() != null && ride.getStartPlace().getId() == null) {
+                    ride.setStartPlace(placeService.save(ride.getStartPlace()));
+                }
+                if (ride.getEndPlace() != null && ride.getEndPlace().getId() == null) {
+                    ride.setEndPlace(placeService.save(ride.getEndPlace()));
+                }
+                return save(ride);
+            });
+    }
+
     /**
      *  Get all the rides.
      *  
@@ -42,31 +137,234 @@ public class RideService {
     @Transactional(readOnly = true) 
     public List<Ride> findAll() {
         log.debug("Request to get all Rides");
-        List<Ride> result = rideRepository.findAll();
+        List<Ride> result = rideRepository.findAllWithPlaces();
 
         return result;
     }
 
     /**
-     *  Get one ride by id.
+     *  Export all the rides, one at a time, without holding them all in memory: each ride is detached from the
+     *  persistence context, with its places, once it has been passed to the consumer.
+     *
+     *  @param consumer receives the rides, ordered by id
+     */
+    @Transactional(readOnly = true)
+    public void export(Consumer<Ride> consumer) {
+        log.debug("Request to export all Rides");
+        try (Stream<Ride> rides = rideRepository.streamAll()) {
+            rides.forEach(ride -> {
+                consumer.accept(ride);
+                entityManager.clear();
+            });
+        }
+    }
+
+    /**
+     *  Get the rides which are not deleted and have a start date time, ordered by start date time and id,
+     *  following the last ride of the previous page.
+     *
+     *  @param afterStartDateTime the start date time of the last ride of the previous page, or null for the
+     *  first page
+     *  @param afterId the id of the last ride of the previous page
+     *  @param limit the maximum number of rides
+     *  @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public List<Ride> findAllOrderByStartDateTime(ZonedDateTime afterStartDateTime, Long afterId, int limit) {
+        log.debug("Request to get the Rides after {}, {}", afterStartDateTime, afterId);
+        if (afterStartDateTime == null) {
+            return rideRepository.findAllOrderByStartDateTime(new PageRequest(0, limit));
+        }
+        return rideRepository.findAllOrderByStartDateTimeAfter(afterStartDateTime, afterId, new PageRequest(0, limit));
+    }
+
+    /**
+     *  Search the rides which are not deleted. Criteria left null are ignored.
+     *
+     *  @param startCity the city name of the start place
+     *  @param endCity the city name of the end place
+     *  @param startPostcode the postcode of the start place
+     *  @param endPostcode the postcode of the end place
+     *  @param from the earliest start date time, inclusive
+     *  @param to the latest start date time, exclusive
+     *  @param maxPrice the maximum price
+     *  @param minFreeSeats the minimum number of seats not held by a reservation
+     *  @param pageable the pagination information
+     *  @return the page of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Ride> search(String startCity, String endCity, Integer startPostcode, Integer endPostcode,
+                             ZonedDateTime from, ZonedDateTime to, Float maxPrice, Integer minFreeSeats,
+                             Pageable pageable) {
+        log.debug("Request to search Rides from {} to {}", startCity, endCity);
+        Page<Ride> result = rideRepository.search(startCity, endCity, startPostcode, endPostcode,
+            from, to, maxPrice, minFreeSeats, pageable);
+        return result;
+    }
+
+    /**
+     *  Search the rides which are not deleted on the searchExecutor, see {@link #search}.
+     *
+     *  @return the page of entities, when the search is done
+     *  @throws org.springframework.core.task.TaskRejectedException if the searchExecutor's queue is full
+     */
+    @Async("searchExecutor")
+    @Transactional(readOnly = true)
+    public CompletableFuture<Page<Ride>> searchAsync(String startCity, String endCity, Integer startPostcode,
+                                                     Integer endPostcode, ZonedDateTime from, ZonedDateTime to,
+                                                     Float maxPrice, Integer minFreeSeats, Pageable pageable) {
+        return CompletableFuture.completedFuture(search(startCity, endCity, startPostcode, endPostcode,
+            from, to, maxPrice, minFreeSeats, pageable));
+    }
+
+    /**
+     *  Search the summaries of the rides which are not deleted, see {@link #search}.
+     *
+     *  @return the page of ride summaries
+     */
+    @Transactional(readOnly = true)
+    public Page<RideSummaryDTO> searchSummaries(String startCity, String endCity, Integer startPostcode,
+                                                Integer endPostcode, ZonedDateTime from, ZonedDateTime to,
+                                                Float maxPrice, Integer minFreeSeats, Pageable pageable) {
+        log.debug("Request to search Ride summaries from {} to {}", startCity, endCity);
+        return rideRepository.searchSummaries(startCity, endCity, startPostcode, endPostcode,
+            from, to, maxPrice, minFreeSeats, pageable);
+    }
+
+    /**
+     *  Get the rides which are not deleted and start within a radius around a coordinate, nearest first.
+     *  <p>
+     *  Each cell covering the circle is queried by its geohash prefix, with the bounding box of the circle and
+     *  the great-circle distance, for its nearest rides up to the end of the page only, which are then merged.
+     *
+     *  @param latitude the latitude of the center in degrees
+     *  @param longitude the longitude of the center in degrees
+     *  @param radiusKm the radius in kilometers
+     *  @param pageable the pagination information, its sort is ignored
+     *  @return the page of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Ride> findNearby(double latitude, double longitude, double radiusKm, Pageable pageable) {
+        log.debug("Request to get Rides within {} km of {},{}", radiusKm, latitude, longitude);
+        double radiusRadians = radiusKm / GeoUtil.EARTH_RADIUS_KM;
+        double latitudeRadians = Math.toRadians(latitude);
+        double deltaLatitude = Math.toDegrees(radiusRadians);
+        double minLatitude = latitude - deltaLatitude;
+        double maxLatitude = latitude + deltaLatitude;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        if (minLatitude > -90 && maxLatitude < 90) {
+            // the widest extent of the circle, unless it contains a pole or crosses the antimeridian
+            double deltaLongitude = Math.toDegrees(Math.asin(Math.min(1,
+                Math.sin(radiusRadians) / Math.cos(latitudeRadians))));
+            if (longitude - deltaLongitude >= -180 && longitude + deltaLongitude <= 180) {
+                minLongitude = longitude - deltaLongitude;
+                maxLongitude = longitude + deltaLongitude;
+            }
+        }
+        // the page is among the nearest rides of each cell, up to its end
+        Pageable candidates = new PageRequest(0, pageable.getOffset() + pageable.getPageSize());
+        List<Ride> rides = new ArrayList<>();
+        long total = 0;
+        for (String cell : GeoUtil.coveringCells(latitude, longitude, radiusKm)) {
+            Page<Ride> nearest = rideRepository.findNearbyByStartPlaceGeohashLike(cell + "%",
+                minLatitude, maxLatitude, minLongitude, maxLongitude,
+                Math.sin(latitudeRadians), Math.cos(latitudeRadians), Math.toRadians(longitude),
+                Math.cos(radiusRadians), candidates);
+            rides.addAll(nearest.getContent());
+            total += nearest.getTotalElements();
+        }
+        rides.sort(Comparator.comparingDouble(ride -> distanceToStartKm(ride, latitude, longitude)));
+        int fromIndex = Math.min(pageable.getOffset(), rides.size());
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), rides.size());
+        return new PageImpl<>(new ArrayList<>(rides.subList(fromIndex, toIndex)), pageable, total);
+    }
+
+    private static double distanceToStartKm(Ride ride, double latitude, double longitude) {
+        Place startPlace = ride.getStartPlace();
+        return GeoUtil.distanceKm(latitude, longitude, startPlace.getLatitude(), startPlace.getLongitude());
+    }
+
+    /**
+     *  Get one ride by id, read from the archive when it has been archived without being deleted.
+     *
+     *  <p>
+     *  Outside of a transaction, the concurrent calls for the same id share a single load of the ride (see
+     *  {@link SingleFlight}), so the callers waiting for it hold no connection. In a transaction, the ride is
+     *  loaded in it, as the caller may change it.
+     *  </p>
      *
      *  @param id the id of the entity
      *  @return the entity
      */
-    @Transactional(readOnly = true) 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Ride findOne(Long id) {
         log.debug("Request to get Ride : {}", id);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loadRide(id);
+        }
+        return rideLoads.load(id, this::loadRide);
+    }
+
+    private Ride loadRide(Long id) {
         Ride ride = rideRepository.findOne(id);
+        if (ride == null) {
+            ride = rideArchiveService.findArchived(id);
+        }
         return ride;
     }
 
     /**
-     *  Delete the  ride by id.
+     *  Get the version of a ride by id, without loading it. Archived rides have no version.
+     *
+     *  @param id the id of the entity
+     *  @return the version of the entity, or null if it doesn't exist
+     */
+    @Transactional(readOnly = true)
+    public EntityVersionDTO findVersion(Long id) {
+        log.debug("Request to get the version of Ride : {}", id);
+        return rideRepository.findVersionById(id);
+    }
+
+    /**
+     *  Get one ride by id on the searchExecutor.
+     *
+     *  @param id the id of the entity
+     *  @return the entity, or null, when it is read
+     *  @throws org.springframework.core.task.TaskRejectedException if the searchExecutor's queue is full
+     */
+    @Async("searchExecutor")
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CompletableFuture<Ride> findOneAsync(Long id) {
+        return CompletableFuture.completedFuture(findOne(id));
+    }
+
+    /**
+     *  Delete the  ride by id. The ride is only flagged as deleted, and archived later by
+     *  {@link RideArchiveService}.
      *
      *  @param id the id of the entity
      */
     public void delete(Long id) {
         log.debug("Request to delete Ride : {}", id);
         rideRepository.delete(id);
+        outboxService.append("Ride", id, EventType.DELETED, null);
+        TransactionUtil.afterCommit(() -> {
+            rideLoads.forget(id);
+            rideIndexService.remove(id);
+            seatAvailabilityService.rideDeleted(id);
+        });
+    }
+
+    /**
+     * Delete rides in bulk, in chunked transactions.
+     *
+     * @param ids the ids of the rides
+     * @return the result of each id
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkItemResultDTO> deleteAll(List<Long> ids) {
+        log.debug("Request to delete {} Rides", ids.size());
+        return bulkService.deleteAll(ids, rideRepository::exists, this::delete);
     }
 }
@@ -0,0 +1,197 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.config.JHipsterProperties;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.dto.SeatAvailabilityDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service streaming the seats of the rides to their subscribers, as Server-Sent Events, whenever they change.
+ *
+ * <p>
+ * The subscribers are registered by ride id. A change of the seats of a ride is read once, on the taskExecutor,
+ * and sent to its subscribers by tasks of jhipster.availability.fan-out-chunk-size subscribers, so that the
+ * streams hold no thread while they wait. Each subscriber only buffers the latest seats not sent yet: a slow
+ * client skips the intermediate changes, instead of queueing them.
+ * </p>
+ */
+@Service
+public class SeatAvailabilityService {
+
+    private final Logger log = LoggerFactory.getLogger(SeatAvailabilityService.class);
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    @Qualifier("taskExecutor")
+    private TaskExecutor taskExecutor;
+
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribe to the seats of a ride, starting with the current ones.
+     *
+     * @param rideId the id of the ride
+     * @return the emitter of the seats, or null if the ride doesn't exist
+     */
+    public SseEmitter subscribe(Long rideId) {
+        log.debug("Request to subscribe to the seats of Ride : {}", rideId);
+        SeatAvailabilityDTO availability = rideRepository.findSeatAvailabilityById(rideId);
+        if (availability == null) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(jHipsterProperties.getAvailability().getStreamTimeoutMillis());
+        Subscriber subscriber = new Subscriber(rideId, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        subscribers.compute(rideId, (id, rideSubscribers) -> {
+            Set<Subscriber> result = rideSubscribers != null ? rideSubscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        subscriber.offer(availability);
+        subscriber.flush();
+        return emitter;
+    }
+
+    /**
+     * Send the seats of a ride to its subscribers, once they have changed. Nothing is read if the ride has no
+     * subscriber.
+     *
+     * @param rideId the id of the ride
+     */
+    public void seatsChanged(Long rideId) {
+        if (!subscribers.containsKey(rideId)) {
+            return;
+        }
+        execute(() -> {
+            SeatAvailabilityDTO availability = rideRepository.findSeatAvailabilityById(rideId);
+            if (availability == null) {
+                rideDeleted(rideId);
+            } else {
+                fanOut(rideId, availability);
+            }
+        });
+    }
+
+    /**
+     * Close the streams of a ride which was deleted.
+     *
+     * @param rideId the id of the ride
+     */
+    public void rideDeleted(Long rideId) {
+        Set<Subscriber> rideSubscribers = subscribers.remove(rideId);
+        if (rideSubscribers != null) {
+            rideSubscribers.forEach(subscriber -> subscriber.emitter.complete());
+        }
+    }
+
+    private void fanOut(Long rideId, SeatAvailabilityDTO availability) {
+        Set<Subscriber> rideSubscribers = subscribers.get(rideId);
+        if (rideSubscribers == null) {
+            return;
+        }
+        List<Subscriber> pending = new ArrayList<>(rideSubscribers.size());
+        for (Subscriber subscriber : rideSubscribers) {
+            if (subscriber.offer(availability)) {
+                pending.add(subscriber);
+            }
+        }
+        int chunkSize = jHipsterProperties.getAvailability().getFanOutChunkSize();
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<Subscriber> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            execute(() -> chunk.forEach(Subscriber::flush));
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            taskExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            log.warn("Could not send the seats to the subscribers: {}", e.getMessage());
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long rideId;
+
+        private final SseEmitter emitter;
+
+        /** The latest seats not sent yet. */
+        private final AtomicReference<SeatAvailabilityDTO> pending = new AtomicReference<>();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        /** The latest seats sent; guarded by sending. */
+        private SeatAvailabilityDTO sent;
+
+        private Subscriber(Long rideId, SseEmitter emitter) {
+            this.rideId = rideId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * @return true if the seats are newer than the ones waiting to be sent, which they replace
+         */
+        private boolean offer(SeatAvailabilityDTO availability) {
+            SeatAvailabilityDTO previous = pending.getAndAccumulate(availability,
+                (current, offered) -> offered.isNewerThan(current) ? offered : current);
+            return availability.isNewerThan(previous);
+        }
+
+        /**
+         * Send the pending seats, unless another thread is sending to this subscriber: it sends them then.
+         */
+        private void flush() {
+            while (pending.get() != null && sending.compareAndSet(false, true)) {
+                try {
+                    SeatAvailabilityDTO availability = pending.getAndSet(null);
+                    if (availability != null && availability.isNewerThan(sent)) {
+                        emitter.send(SseEmitter.event()
+                            .id(String.valueOf(availability.getSeatsVersion()))
+                            .name("availability")
+                            .data(availability, MediaType.APPLICATION_JSON));
+                        sent = availability;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Closing a stream of the seats of Ride {}: {}", rideId, e.getMessage());
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                } finally {
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void close() {
+            subscribers.computeIfPresent(rideId, (id, rideSubscribers) -> {
+                rideSubscribers.remove(this);
+                return rideSubscribers.isEmpty() ? null : rideSubscribers;
+            });
+        }
+    }
+}
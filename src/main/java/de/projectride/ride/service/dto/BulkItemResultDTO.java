@@ -0,0 +1,62 @@
+package de.projectride.ride.service.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of one item of a bulk operation.
+ */
+public class BulkItemResultDTO {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, INVALID, NOT_FOUND, FAILED
+    }
+
+    private final int index;
+
+    private final Long id;
+
+    private final Status status;
+
+    private final List<String> errors;
+
+    public BulkItemResultDTO(int index, Long id, Status status) {
+        this(index, id, status, Collections.emptyList());
+    }
+
+    public BulkItemResultDTO(int index, Long id, Status status, List<String> errors) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.errors = errors;
+    }
+
+    /**
+     * @return the position of the item in the request
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkItemResultDTO{" +
+            "index=" + index +
+            ", id=" + id +
+            ", status=" + status +
+            ", errors=" + errors +
+            '}';
+    }
+}
@@ -0,0 +1,84 @@
+package de.projectride.ride.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import de.projectride.ride.domain.OutboxEvent;
+import de.projectride.ride.domain.enumeration.EventType;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A published change event, as sent to the sinks and on the event stream. The payload is the changed entity, as
+ * JSON, written as is.
+ */
+public class ChangeEventDTO {
+
+    private final Long sequence;
+
+    private final Long id;
+
+    private final String aggregateType;
+
+    private final Long aggregateId;
+
+    private final EventType type;
+
+    private final ZonedDateTime createdAt;
+
+    private final String payload;
+
+    public ChangeEventDTO(OutboxEvent event) {
+        this.sequence = event.getSequenceNumber();
+        this.id = event.getId();
+        this.aggregateType = event.getAggregateType();
+        this.aggregateId = event.getAggregateId();
+        this.type = event.getEventType();
+        this.createdAt = event.getCreatedAt();
+        this.payload = event.getPayload();
+    }
+
+    /**
+     * The position of the event in the stream, from which a stream is resumed.
+     */
+    public Long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * The id of the event, by which a consumer ignores an event it has already received.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public ZonedDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEventDTO{" +
+            "sequence=" + sequence +
+            ", id=" + id +
+            ", aggregateType='" + aggregateType + "'" +
+            ", aggregateId=" + aggregateId +
+            ", type=" + type +
+            '}';
+    }
+}
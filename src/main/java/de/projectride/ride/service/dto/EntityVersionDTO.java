@@ -0,0 +1,83 @@
+package de.projectride.ride.service.dto;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * The version of an entity, read without the entity, to answer conditional requests: its optimistic locking
+ * version, the versions of the parts of its representation which are updated apart from it, and the time it was
+ * last modified.
+ */
+public class EntityVersionDTO {
+
+    private final Long version;
+
+    private final Long[] partsVersions;
+
+    private final ZonedDateTime lastModifiedDate;
+
+    /**
+     * The version of a ride, whose seats are updated apart from its optimistic locking version, and whose
+     * representation embeds its start and end places: it was last modified when the last of the three was.
+     */
+    public EntityVersionDTO(Long version, Long seatsVersion, Long startPlaceVersion, Long endPlaceVersion,
+                            ZonedDateTime lastModifiedDate, ZonedDateTime startPlaceLastModifiedDate,
+                            ZonedDateTime endPlaceLastModifiedDate) {
+        this(version, latest(latest(lastModifiedDate, startPlaceLastModifiedDate), endPlaceLastModifiedDate),
+            seatsVersion, startPlaceVersion, endPlaceVersion);
+    }
+
+    public EntityVersionDTO(Long version, ZonedDateTime lastModifiedDate) {
+        this(version, lastModifiedDate, new Long[0]);
+    }
+
+    private EntityVersionDTO(Long version, ZonedDateTime lastModifiedDate, Long... partsVersions) {
+        this.version = version;
+        this.partsVersions = partsVersions;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public ZonedDateTime getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    /**
+     * @return the quoted entity tag of the version, which changes on every update of the representation of the
+     * entity: the optimistic locking version, followed by the versions of the parts, "-" for a missing part; null if
+     * the entity has no version
+     */
+    public String getETag() {
+        if (version == null) {
+            return null;
+        }
+        StringBuilder eTag = new StringBuilder("\"").append(version);
+        for (Long partVersion : partsVersions) {
+            eTag.append('.').append(partVersion == null ? "-" : partVersion);
+        }
+        return eTag.append('"').toString();
+    }
+
+    /**
+     * @return the last modification time in milliseconds, or -1 if it is unknown
+     */
+    public long getLastModified() {
+        return lastModifiedDate == null ? -1 : lastModifiedDate.toInstant().toEpochMilli();
+    }
+
+    private static ZonedDateTime latest(ZonedDateTime date, ZonedDateTime other) {
+        return date == null || (other != null && other.isAfter(date)) ? other : date;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityVersionDTO{" +
+            "version=" + version +
+            ", partsVersions=" + Arrays.toString(partsVersions) +
+            ", lastModifiedDate=" + lastModifiedDate +
+            '}';
+    }
+}
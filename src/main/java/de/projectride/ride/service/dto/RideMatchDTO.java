@@ -0,0 +1,49 @@
+package de.projectride.ride.service.dto;
+
+import de.projectride.ride.domain.Ride;
+
+/**
+ * A ride matching a trip, with the detour and the time deviation it implies.
+ */
+public class RideMatchDTO {
+
+    private final Ride ride;
+
+    private final double detourKm;
+
+    private final long deviationMinutes;
+
+    private final double score;
+
+    public RideMatchDTO(Ride ride, double detourKm, long deviationMinutes, double score) {
+        this.ride = ride;
+        this.detourKm = detourKm;
+        this.deviationMinutes = deviationMinutes;
+        this.score = score;
+    }
+
+    public Ride getRide() {
+        return ride;
+    }
+
+    /**
+     * @return the distance between the start and end of the trip and the ones of the ride, in kilometers
+     */
+    public double getDetourKm() {
+        return detourKm;
+    }
+
+    /**
+     * @return the difference between the requested start time and the one of the ride
+     */
+    public long getDeviationMinutes() {
+        return deviationMinutes;
+    }
+
+    /**
+     * @return the score of the ride, the lower the better
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,104 @@
+package de.projectride.ride.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The fields of a ride shown in ride listings, read with its start and end places in a single query.
+ */
+public class RideSummaryDTO {
+
+    private final Long id;
+
+    private final ZonedDateTime startDateTime;
+
+    private final Float price;
+
+    private final Integer numberOfSeats;
+
+    private final Integer seatsTaken;
+
+    private final String startCityName;
+
+    private final Double startLatitude;
+
+    private final Double startLongitude;
+
+    private final String endCityName;
+
+    private final Double endLatitude;
+
+    private final Double endLongitude;
+
+    public RideSummaryDTO(Long id, ZonedDateTime startDateTime, Float price, Integer numberOfSeats,
+                          Integer seatsTaken, String startCityName, Double startLatitude, Double startLongitude,
+                          String endCityName, Double endLatitude, Double endLongitude) {
+        this.id = id;
+        this.startDateTime = startDateTime;
+        this.price = price;
+        this.numberOfSeats = numberOfSeats;
+        this.seatsTaken = seatsTaken;
+        this.startCityName = startCityName;
+        this.startLatitude = startLatitude;
+        this.startLongitude = startLongitude;
+        this.endCityName = endCityName;
+        this.endLatitude = endLatitude;
+        this.endLongitude = endLongitude;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public ZonedDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    public Float getPrice() {
+        return price;
+    }
+
+    public Integer getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    public Integer getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    public String getStartCityName() {
+        return startCityName;
+    }
+
+    public Double getStartLatitude() {
+        return startLatitude;
+    }
+
+    public Double getStartLongitude() {
+        return startLongitude;
+    }
+
+    public String getEndCityName() {
+        return endCityName;
+    }
+
+    public Double getEndLatitude() {
+        return endLatitude;
+    }
+
+    public Double getEndLongitude() {
+        return endLongitude;
+    }
+
+    @Override
+    public String toString() {
+        return "RideSummaryDTO{" +
+            "id=" + id +
+            ", startDateTime='" + startDateTime + "'" +
+            ", price='" + price + "'" +
+            ", numberOfSeats='" + numberOfSeats + "'" +
+            ", seatsTaken='" + seatsTaken + "'" +
+            ", startCityName='" + startCityName + "'" +
+            ", endCityName='" + endCityName + "'" +
+            '}';
+    }
+}
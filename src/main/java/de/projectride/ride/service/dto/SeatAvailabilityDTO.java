@@ -0,0 +1,66 @@
+package de.projectride.ride.service.dto;
+
+/**
+ * The seats of a ride, read without the ride. The version of the seats orders their changes.
+ */
+public class SeatAvailabilityDTO {
+
+    private final Long rideId;
+
+    private final Long seatsVersion;
+
+    private final Integer numberOfSeats;
+
+    private final Integer seatsTaken;
+
+    public SeatAvailabilityDTO(Long rideId, Long seatsVersion, Integer numberOfSeats, Integer seatsTaken) {
+        this.rideId = rideId;
+        this.seatsVersion = seatsVersion;
+        this.numberOfSeats = numberOfSeats;
+        this.seatsTaken = seatsTaken;
+    }
+
+    public Long getRideId() {
+        return rideId;
+    }
+
+    public Long getSeatsVersion() {
+        return seatsVersion;
+    }
+
+    public Integer getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    public Integer getSeatsTaken() {
+        return seatsTaken;
+    }
+
+    /**
+     * @return the number of seats which can still be reserved, or null if the ride has no number of seats
+     */
+    public Integer getSeatsAvailable() {
+        if (numberOfSeats == null) {
+            return null;
+        }
+        return Math.max(0, numberOfSeats - (seatsTaken == null ? 0 : seatsTaken));
+    }
+
+    /**
+     * @return true if these seats were read after the given ones
+     */
+    public boolean isNewerThan(SeatAvailabilityDTO other) {
+        return other == null ||
+            (seatsVersion == null ? 0 : seatsVersion) > (other.seatsVersion == null ? 0 : other.seatsVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "SeatAvailabilityDTO{" +
+            "rideId=" + rideId +
+            ", seatsVersion=" + seatsVersion +
+            ", numberOfSeats=" + numberOfSeats +
+            ", seatsTaken=" + seatsTaken +
+            '}';
+    }
+}
@@ -0,0 +1,122 @@
+package de.projectride.ride.service.dto;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.ZonedDateTime;
+
+/**
+ * The trip a passenger is looking a ride for.
+ */
+public class TripDTO {
+
+    @NotNull
+    @DecimalMin("-90")
+    @DecimalMax("90")
+    private Double startLatitude;
+
+    @NotNull
+    @DecimalMin("-180")
+    @DecimalMax("180")
+    private Double startLongitude;
+
+    @NotNull
+    @DecimalMin("-90")
+    @DecimalMax("90")
+    private Double endLatitude;
+
+    @NotNull
+    @DecimalMin("-180")
+    @DecimalMax("180")
+    private Double endLongitude;
+
+    @NotNull
+    private ZonedDateTime startDateTime;
+
+    @NotNull
+    @Min(value = 0)
+    @Max(value = 720)
+    private Integer maxDeviationMinutes = 120;
+
+    @NotNull
+    @Min(value = 1)
+    @Max(value = 50)
+    private Integer limit = 10;
+
+    public Double getStartLatitude() {
+        return startLatitude;
+    }
+
+    public void setStartLatitude(Double startLatitude) {
+        this.startLatitude = startLatitude;
+    }
+
+    public Double getStartLongitude() {
+        return startLongitude;
+    }
+
+    public void setStartLongitude(Double startLongitude) {
+        this.startLongitude = startLongitude;
+    }
+
+    public Double getEndLatitude() {
+        return endLatitude;
+    }
+
+    public void setEndLatitude(Double endLatitude) {
+        this.endLatitude = endLatitude;
+    }
+
+    public Double getEndLongitude() {
+        return endLongitude;
+    }
+
+    public void setEndLongitude(Double endLongitude) {
+        this.endLongitude = endLongitude;
+    }
+
+    public ZonedDateTime getStartDateTime() {
+        return startDateTime;
+    }
+
+    public void setStartDateTime(ZonedDateTime startDateTime) {
+        this.startDateTime = startDateTime;
+    }
+
+    /**
+     * @return the accepted difference between the requested start time and the one of a ride, 2 hours by default
+     */
+    public Integer getMaxDeviationMinutes() {
+        return maxDeviationMinutes;
+    }
+
+    public void setMaxDeviationMinutes(Integer maxDeviationMinutes) {
+        this.maxDeviationMinutes = maxDeviationMinutes;
+    }
+
+    /**
+     * @return the maximum number of rides to return, 10 by default
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public String toString() {
+        return "TripDTO{" +
+            "startLatitude=" + startLatitude +
+            ", startLongitude=" + startLongitude +
+            ", endLatitude=" + endLatitude +
+            ", endLongitude=" + endLongitude +
+            ", startDateTime=" + startDateTime +
+            ", maxDeviationMinutes=" + maxDeviationMinutes +
+            ", limit=" + limit +
+            '}';
+    }
+}
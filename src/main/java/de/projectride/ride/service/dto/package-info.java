@@ -0,0 +1,4 @@
+/**
+ * Data Transfer Objects.
+ */
+package de.projectride.ride.service.dto;
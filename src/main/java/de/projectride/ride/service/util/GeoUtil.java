@@ -0,0 +1,153 @@
+package de.projectride.ride.service.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Utility class for geohash encoding and distance computation.
+ *
+ * <p>
+ * A geohash interleaves longitude and latitude bits and encodes them in base 32, so that places sharing a
+ * geohash prefix lie in the same grid cell. See <a href="https://en.wikipedia.org/wiki/Geohash">Geohash</a>.
+ */
+public final class GeoUtil {
+
+    /** Precision of the geohash stored on a place, about 5 meters. */
+    public static final int GEOHASH_PRECISION = 9;
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /** Length of a degree of latitude, or of longitude at the equator. */
+    public static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    private static final char[] BASE_32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoUtil() {
+    }
+
+    /**
+     * Encode a coordinate as a geohash.
+     *
+     * @param latitude the latitude in degrees
+     * @param longitude the longitude in degrees
+     * @param precision the number of characters of the geohash
+     * @return the geohash
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] geohash = new char[precision];
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        int length = 0;
+        while (length < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                geohash[length++] = BASE_32[ch];
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new String(geohash);
+    }
+
+    /**
+     * Width of a geohash cell of the given precision, in degrees of longitude.
+     */
+    public static double cellWidth(int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        return 360 / Math.pow(2, lonBits);
+    }
+
+    /**
+     * Height of a geohash cell of the given precision, in degrees of latitude.
+     */
+    public static double cellHeight(int precision) {
+        int latBits = (5 * precision) / 2;
+        return 180 / Math.pow(2, latBits);
+    }
+
+    /**
+     * Find the longest geohash precision whose cells are at least as large as the radius around the given
+     * latitude, so that the cell containing the center and its 8 neighbours cover the whole circle.
+     *
+     * @param latitude the latitude of the center in degrees
+     * @param radiusKm the radius in kilometers
+     * @return the precision, between 1 and {@link #GEOHASH_PRECISION}
+     */
+    public static int coveringPrecision(double latitude, double radiusKm) {
+        for (int precision = GEOHASH_PRECISION; precision > 1; precision--) {
+            double height = cellHeight(precision);
+            // cells get narrower towards the poles, so measure the width at the farthest latitude of the circle
+            double cosLatitude = Math.cos(Math.toRadians(Math.min(Math.abs(latitude) + height, 90)));
+            double heightKm = height * KM_PER_DEGREE;
+            double widthKm = cellWidth(precision) * KM_PER_DEGREE * cosLatitude;
+            if (heightKm >= radiusKm && widthKm >= radiusKm) {
+                return precision;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Compute the geohash cells covering a circle: the cell containing the center and its neighbours.
+     *
+     * @param latitude the latitude of the center in degrees
+     * @param longitude the longitude of the center in degrees
+     * @param radiusKm the radius in kilometers
+     * @return the distinct geohash prefixes of the covering cells
+     */
+    public static Set<String> coveringCells(double latitude, double longitude, double radiusKm) {
+        int precision = coveringPrecision(latitude, radiusKm);
+        double width = cellWidth(precision);
+        double height = cellHeight(precision);
+        Set<String> cells = new LinkedHashSet<>();
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            double neighbourLatitude = Math.max(-90, Math.min(90 - 1e-9, latitude + dLat * height));
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                double neighbourLongitude = longitude + dLon * width;
+                if (neighbourLongitude >= 180) {
+                    neighbourLongitude -= 360;
+                } else if (neighbourLongitude < -180) {
+                    neighbourLongitude += 360;
+                }
+                cells.add(encode(neighbourLatitude, neighbourLongitude, precision));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Great-circle distance between two coordinates, using the haversine formula.
+     *
+     * @return the distance in kilometers
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLat = Math.toRadians(latitude2 - latitude1);
+        double dLon = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,449 @@
+package de.projectride.ride.service.util;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.LongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatio-temporal index of rides, used to match passenger trips without querying the database.
+ *
+ * <p>
+ * Rides are stored column-wise in primitive arrays, about 44 bytes per ride, so that millions of rides fit in a
+ * modest heap. A slot is looked up by ride id with a primitive hash map, and slots are grouped in buckets of one
+ * hour of start time, so a query only scans the rides starting around the requested time.
+ * </p>
+ * <p>
+ * This class is thread-safe: queries share a read lock, updates take the write lock.
+ * </p>
+ */
+public class RideIndex {
+
+    public static final long BUCKET_SECONDS = 3600;
+
+    /** Number of candidates below which a match is scored by the calling thread only. */
+    public static final int PARALLEL_THRESHOLD = 20_000;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingDouble(Match::getScore).reversed();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap slotsById = new LongIntHashMap();
+
+    private final LongObjectHashMap<IntArrayList> slotsByBucket = new LongObjectHashMap<>();
+
+    private final IntArrayList freeSlots = new IntArrayList();
+
+    private int capacity = INITIAL_CAPACITY;
+
+    private int slotCount;
+
+    private long[] ids = new long[capacity];
+
+    private float[] startLatitudes = new float[capacity];
+
+    private float[] startLongitudes = new float[capacity];
+
+    private float[] endLatitudes = new float[capacity];
+
+    private float[] endLongitudes = new float[capacity];
+
+    private long[] startEpochSeconds = new long[capacity];
+
+    private short[] startDetoursKm = new short[capacity];
+
+    private short[] endDetoursKm = new short[capacity];
+
+    private float[] prices = new float[capacity];
+
+    /**
+     * Add or replace a ride.
+     *
+     * @param id the id of the ride
+     * @param startLatitude the latitude of the start place
+     * @param startLongitude the longitude of the start place
+     * @param endLatitude the latitude of the end place
+     * @param endLongitude the longitude of the end place
+     * @param startEpochSecond the start date time of the ride, in seconds since the epoch
+     * @param startDetourKm the detour the driver accepts around the start place, in kilometers
+     * @param endDetourKm the detour the driver accepts around the end place, in kilometers
+     * @param price the price of the ride
+     */
+    public void put(long id, double startLatitude, double startLongitude, double endLatitude, double endLongitude,
+                    long startEpochSecond, int startDetourKm, int endDetourKm, float price) {
+        lock.writeLock().lock();
+        try {
+            removeSlot(id);
+            int slot = allocateSlot();
+            ids[slot] = id;
+            startLatitudes[slot] = (float) startLatitude;
+            startLongitudes[slot] = (float) startLongitude;
+            endLatitudes[slot] = (float) endLatitude;
+            endLongitudes[slot] = (float) endLongitude;
+            startEpochSeconds[slot] = startEpochSecond;
+            startDetoursKm[slot] = toShort(startDetourKm);
+            endDetoursKm[slot] = toShort(endDetourKm);
+            prices[slot] = price;
+            slotsById.put(id, slot);
+            long bucket = bucketOf(startEpochSecond);
+            IntArrayList bucketSlots = slotsByBucket.get(bucket);
+            if (bucketSlots == null) {
+                bucketSlots = new IntArrayList();
+                slotsByBucket.put(bucket, bucketSlots);
+            }
+            bucketSlots.add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a ride.
+     *
+     * @param id the id of the ride
+     * @return true if the ride was indexed
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeSlot(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the rides which started before the given time.
+     *
+     * @param epochSecond the time in seconds since the epoch
+     * @return the number of removed rides
+     */
+    public int removeStartingBefore(long epochSecond) {
+        lock.writeLock().lock();
+        try {
+            LongArrayList expiredIds = new LongArrayList();
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (ids[slot] != 0 && startEpochSeconds[slot] < epochSecond) {
+                    expiredIds.add(ids[slot]);
+                }
+            }
+            for (int i = 0; i < expiredIds.size(); i++) {
+                removeSlot(expiredIds.get(i));
+            }
+            return expiredIds.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the rides starting within a time window whose start and end places are within the detour accepted
+     * by the driver from the requested start and end coordinates.
+     *
+     * @param startLatitude the latitude of the requested start
+     * @param startLongitude the longitude of the requested start
+     * @param endLatitude the latitude of the requested end
+     * @param endLongitude the longitude of the requested end
+     * @param epochSecond the requested start time, in seconds since the epoch
+     * @param windowSeconds the accepted deviation from the requested start time, in seconds
+     * @return the ids of the matching rides
+     */
+    public long[] query(double startLatitude, double startLongitude, double endLatitude, double endLongitude,
+                        long epochSecond, long windowSeconds) {
+        lock.readLock().lock();
+        try {
+            LongArrayList result = new LongArrayList();
+            long firstBucket = bucketOf(epochSecond - windowSeconds);
+            long lastBucket = bucketOf(epochSecond + windowSeconds);
+            for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                IntArrayList bucketSlots = slotsByBucket.get(bucket);
+                if (bucketSlots == null) {
+                    continue;
+                }
+                for (int i = 0; i < bucketSlots.size(); i++) {
+                    int slot = bucketSlots.get(i);
+                    if (Math.abs(startEpochSeconds[slot] - epochSecond) <= windowSeconds
+                        && GeoUtil.distanceKm(startLatitude, startLongitude, startLatitudes[slot], startLongitudes[slot]) <= startDetoursKm[slot]
+                        && GeoUtil.distanceKm(endLatitude, endLongitude, endLatitudes[slot], endLongitudes[slot]) <= endDetoursKm[slot]) {
+                        result.add(ids[slot]);
+                    }
+                }
+            }
+            return result.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the best rides for a trip: the rides {@link #query} would find, ranked by a score.
+     *
+     * <p>
+     * When the time window holds more than {@link #PARALLEL_THRESHOLD} rides, they are scored in chunks on the
+     * executor, each chunk keeping its own best matches, which are merged at the end. Otherwise, or if the
+     * executor rejects a chunk, they are scored by the calling thread. An exception of the scorer is thrown by this
+     * method in both cases.
+     * </p>
+     *
+     * @param startLatitude the latitude of the requested start
+     * @param startLongitude the longitude of the requested start
+     * @param endLatitude the latitude of the requested end
+     * @param endLongitude the longitude of the requested end
+     * @param epochSecond the requested start time, in seconds since the epoch
+     * @param windowSeconds the accepted deviation from the requested start time, in seconds
+     * @param limit the maximum number of matches
+     * @param scorer the score of a ride, the lower the better
+     * @param executor the executor scoring large windows in parallel
+     * @return the best matches, best first
+     */
+    public List<Match> match(double startLatitude, double startLongitude, double endLatitude, double endLongitude,
+                             long epochSecond, long windowSeconds, int limit, MatchScorer scorer,
+                             Executor executor) {
+        lock.readLock().lock();
+        try {
+            int[] candidates = slotsStartingWithin(epochSecond - windowSeconds, epochSecond + windowSeconds);
+            PriorityQueue<Match> best;
+            if (candidates.length < PARALLEL_THRESHOLD) {
+                best = score(candidates, 0, candidates.length, startLatitude, startLongitude, endLatitude,
+                    endLongitude, epochSecond, windowSeconds, limit, scorer);
+            } else {
+                // the workers read the arrays under the read lock held by this thread until they are joined
+                int chunkSize = Math.max(PARALLEL_THRESHOLD / 4, (candidates.length + PARALLELISM - 1) / PARALLELISM);
+                List<CompletableFuture<PriorityQueue<Match>>> chunks = new ArrayList<>();
+                for (int from = 0; from < candidates.length; from += chunkSize) {
+                    int chunkFrom = from;
+                    int chunkTo = Math.min(from + chunkSize, candidates.length);
+                    CompletableFuture<PriorityQueue<Match>> chunk = new CompletableFuture<>();
+                    Runnable scoring = () -> {
+                        try {
+                            chunk.complete(score(candidates, chunkFrom, chunkTo, startLatitude, startLongitude,
+                                endLatitude, endLongitude, epochSecond, windowSeconds, limit, scorer));
+                        } catch (Throwable e) {
+                            chunk.completeExceptionally(e);
+                        }
+                    };
+                    try {
+                        executor.execute(scoring);
+                    } catch (RejectedExecutionException e) {
+                        scoring.run();
+                    }
+                    chunks.add(chunk);
+                }
+                // all the chunks are done before the read lock is released, even if one of them failed
+                try {
+                    CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[chunks.size()])).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+                best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+                for (CompletableFuture<PriorityQueue<Match>> chunk : chunks) {
+                    for (Match match : chunk.join()) {
+                        offer(best, match, limit);
+                    }
+                }
+            }
+            List<Match> result = new ArrayList<>(best);
+            result.sort(WORST_FIRST.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] slotsStartingWithin(long fromEpochSecond, long toEpochSecond) {
+        int count = 0;
+        for (long bucket = bucketOf(fromEpochSecond); bucket <= bucketOf(toEpochSecond); bucket++) {
+            IntArrayList bucketSlots = slotsByBucket.get(bucket);
+            if (bucketSlots != null) {
+                count += bucketSlots.size();
+            }
+        }
+        int[] slots = new int[count];
+        int length = 0;
+        for (long bucket = bucketOf(fromEpochSecond); bucket <= bucketOf(toEpochSecond); bucket++) {
+            IntArrayList bucketSlots = slotsByBucket.get(bucket);
+            if (bucketSlots != null) {
+                System.arraycopy(bucketSlots.buffer, 0, slots, length, bucketSlots.size());
+                length += bucketSlots.size();
+            }
+        }
+        return slots;
+    }
+
+    private PriorityQueue<Match> score(int[] candidates, int from, int to, double startLatitude,
+                                       double startLongitude, double endLatitude, double endLongitude,
+                                       long epochSecond, long windowSeconds, int limit, MatchScorer scorer) {
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        for (int i = from; i < to; i++) {
+            int slot = candidates[i];
+            long deviationSeconds = Math.abs(startEpochSeconds[slot] - epochSecond);
+            if (deviationSeconds > windowSeconds
+                // a degree of latitude is the same length everywhere, which rules out most rides without a haversine
+                || Math.abs(startLatitude - startLatitudes[slot]) * GeoUtil.KM_PER_DEGREE > startDetoursKm[slot]
+                || Math.abs(endLatitude - endLatitudes[slot]) * GeoUtil.KM_PER_DEGREE > endDetoursKm[slot]) {
+                continue;
+            }
+            double startDetourKm = GeoUtil.distanceKm(startLatitude, startLongitude, startLatitudes[slot], startLongitudes[slot]);
+            double endDetourKm = GeoUtil.distanceKm(endLatitude, endLongitude, endLatitudes[slot], endLongitudes[slot]);
+            if (startDetourKm > startDetoursKm[slot] || endDetourKm > endDetoursKm[slot]) {
+                continue;
+            }
+            double detourKm = startDetourKm + endDetourKm;
+            double score = scorer.score(detourKm, deviationSeconds, prices[slot]);
+            if (best.size() < limit || score < best.peek().score) {
+                offer(best, new Match(ids[slot], detourKm, deviationSeconds, score), limit);
+            }
+        }
+        return best;
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        best.add(match);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    /**
+     * @param id the id of the ride
+     * @return true if the ride is indexed
+     */
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return slotsById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed rides
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeSlot(long id) {
+        if (!slotsById.containsKey(id)) {
+            return false;
+        }
+        int slot = slotsById.remove(id);
+        long bucket = bucketOf(startEpochSeconds[slot]);
+        IntArrayList bucketSlots = slotsByBucket.get(bucket);
+        bucketSlots.removeFirst(slot);
+        if (bucketSlots.isEmpty()) {
+            slotsByBucket.remove(bucket);
+        }
+        ids[slot] = 0;
+        freeSlots.add(slot);
+        return true;
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.remove(freeSlots.size() - 1);
+        }
+        if (slotCount == capacity) {
+            grow();
+        }
+        return slotCount++;
+    }
+
+    private void grow() {
+        capacity = capacity * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        startLatitudes = Arrays.copyOf(startLatitudes, capacity);
+        startLongitudes = Arrays.copyOf(startLongitudes, capacity);
+        endLatitudes = Arrays.copyOf(endLatitudes, capacity);
+        endLongitudes = Arrays.copyOf(endLongitudes, capacity);
+        startEpochSeconds = Arrays.copyOf(startEpochSeconds, capacity);
+        startDetoursKm = Arrays.copyOf(startDetoursKm, capacity);
+        endDetoursKm = Arrays.copyOf(endDetoursKm, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+    }
+
+    private static long bucketOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, BUCKET_SECONDS);
+    }
+
+    private static short toShort(int value) {
+        return (short) Math.max(0, Math.min(Short.MAX_VALUE, value));
+    }
+
+    /**
+     * Scores a ride matching a trip, the lower the better.
+     */
+    @FunctionalInterface
+    public interface MatchScorer {
+
+        /**
+         * @param detourKm the distance between the requested start and end and the ones of the ride, in kilometers
+         * @param deviationSeconds the difference between the requested start time and the one of the ride
+         * @param price the price of the ride
+         * @return the score of the ride
+         */
+        double score(double detourKm, long deviationSeconds, float price);
+    }
+
+    /**
+     * A ride matching a trip, with its score.
+     */
+    public static class Match {
+
+        private final long id;
+
+        private final double detourKm;
+
+        private final long deviationSeconds;
+
+        private final double score;
+
+        public Match(long id, double detourKm, long deviationSeconds, double score) {
+            this.id = id;
+            this.detourKm = detourKm;
+            this.deviationSeconds = deviationSeconds;
+            this.score = score;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getDetourKm() {
+            return detourKm;
+        }
+
+        public long getDeviationSeconds() {
+            return deviationSeconds;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.projectride.ride.service.util;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Coalesces the concurrent loads of the same key: the first caller loads the value, and the callers which ask for
+ * the key meanwhile wait for it and share its value, or its exception, instead of loading it again. Nothing is
+ * kept once the load is done, so it isn't a cache: it goes behind one, such as a Spring {@code @Cacheable}, whose
+ * concurrent misses then make a single load.
+ *
+ * <p>
+ * The loads and the coalesced calls are counted by the meters "name.loads" and "name.coalesced".
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Meter loads;
+
+    private final Meter coalesced;
+
+    public SingleFlight(MetricRegistry metricRegistry, String name) {
+        this.loads = metricRegistry.meter(MetricRegistry.name(name, "loads"));
+        this.coalesced = metricRegistry.meter(MetricRegistry.name(name, "coalesced"));
+    }
+
+    /**
+     * Load the value of a key, or wait for the load of the key in flight.
+     *
+     * @param key the key
+     * @param loader the loader of the value, called by the first caller only
+     * @return the value, which may be null
+     */
+    public V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> pending = inFlight.putIfAbsent(key, call);
+        if (pending != null) {
+            coalesced.mark();
+            return await(pending);
+        }
+        loads.mark();
+        try {
+            V value = loader.apply(key);
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Forget the load of a key in flight, so that the next callers load the key again. Used once the value has
+     * changed, for the callers not to share a value read before the change.
+     *
+     * @param key the key
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    private static <V> V await(CompletableFuture<V> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
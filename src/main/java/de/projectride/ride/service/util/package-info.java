@@ -0,0 +1,4 @@
+/**
+ * Utility classes used by the service layer.
+ */
+package de.projectride.ride.service.util;
@@ -3,6 +3,8 @@ package de.projectride.ride.web.rest;
 import com.codahale.metrics.annotation.Timed;
 import de.projectride.ride.domain.Car;
 import de.projectride.ride.service.CarService;
+import de.projectride.ride.service.dto.EntityVersionDTO;
+import de.projectride.ride.web.rest.util.ConditionalRequestUtil;
 import de.projectride.ride.web.rest.util.HeaderUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.inject.Inject;
 import java.net.URI;
@@ -57,7 +60,8 @@ public class CarResource {
      *
      * @param car the car to update
      * @return the ResponseEntity with status 200 (OK) and with body the updated car,
-     * or with status 400 (Bad Request) if the car is not valid,
+     * or with status 400 (Bad Request) if the car is not valid or has no version,
+     * or with status 409 (Conflict) if the car was updated since its version was read,
      * or with status 500 (Internal Server Error) if the car couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -70,6 +74,9 @@ public class CarResource {
         if (car.getId() == null) {
             return createCar(car);
         }
+        if (car.getVersion() == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("car", "versionmissing", "An existing car must have a version")).body(null);
+        }
         Car result = carService.save(car);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert("car", car.getId().toString()))
@@ -92,21 +99,28 @@ public class CarResource {
 
     /**
      * GET  /cars/:id : get the "id" car.
+     * The response has the ETag and Last-Modified headers of the version of the car: when the If-None-Match or
+     * If-Modified-Since headers of the request match it, the response is a 304 (Not Modified), answered from
+     * the version alone.
      *
      * @param id the id of the car to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the car, or with status 404 (Not Found)
+     * @param webRequest the request, with its conditional headers
+     * @return the ResponseEntity with status 200 (OK) and with body the car, or with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @RequestMapping(value = "/cars/{id}",
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<Car> getCar(@PathVariable Long id) {
+    public ResponseEntity<Car> getCar(@PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get Car : {}", id);
+        if (ConditionalRequestUtil.checkNotModified(webRequest, carService.findVersion(id))) {
+            return null;
+        }
         Car car = carService.findOne(id);
         return Optional.ofNullable(car)
-            .map(result -> new ResponseEntity<>(
-                result,
-                HttpStatus.OK))
+            .map(result -> ConditionalRequestUtil.ok(result,
+                new EntityVersionDTO(result.getVersion(), result.getLastModifiedDate())))
             .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -0,0 +1,46 @@
+package de.projectride.ride.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import de.projectride.ride.service.EventStreamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.inject.Inject;
+
+/**
+ * REST controller streaming the changes of the rides, reservations, places and cars.
+ */
+@RestController
+@RequestMapping("/api")
+public class EventResource {
+
+    private final Logger log = LoggerFactory.getLogger(EventResource.class);
+
+    @Inject
+    private EventStreamService eventStreamService;
+
+    /**
+     * GET  /events : stream the change events, as Server-Sent Events named after the type of the changed entity,
+     * whose id is the sequence number of the event.
+     * A stream is resumed after the Last-Event-ID header sent by the browsers when they reconnect, or else after
+     * the lastEventId parameter; without either, only the events published from now on are sent. If the events
+     * following it were deleted, after the retention of the outbox, the stream starts with a "reset" event, whose
+     * id is the sequence number the stream then continues from: the client reloads the entities it follows.
+     *
+     * @param lastEventIdHeader the sequence number of the last event received, sent on reconnection
+     * @param lastEventId the sequence number of the last event received
+     * @return the stream of the events
+     */
+    @RequestMapping(value = "/events",
+        method = RequestMethod.GET,
+        produces = "text/event-stream")
+    @Timed
+    public SseEmitter getEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+                                @RequestParam(value = "lastEventId", required = false) Long lastEventId) {
+        Long after = lastEventIdHeader != null ? lastEventIdHeader : lastEventId;
+        log.debug("REST request to stream the events after {}", after);
+        return eventStreamService.subscribe(after);
+    }
+}
@@ -2,7 +2,11 @@ package de.projectride.ride.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
 import de.projectride.ride.domain.Place;
+import de.projectride.ride.service.BulkService;
 import de.projectride.ride.service.PlaceService;
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+import de.projectride.ride.service.dto.EntityVersionDTO;
+import de.projectride.ride.web.rest.util.ConditionalRequestUtil;
 import de.projectride.ride.web.rest.util.HeaderUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.inject.Inject;
 import java.net.URI;
@@ -57,7 +62,8 @@ public class PlaceResource {
      *
      * @param place the place to update
      * @return the ResponseEntity with status 200 (OK) and with body the updated place,
-     * or with status 400 (Bad Request) if the place is not valid,
+     * or with status 400 (Bad Request) if the place is not valid or has no version,
+     * or with status 409 (Conflict) if the place was updated since its version was read,
      * or with status 500 (Internal Server Error) if the place couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -70,12 +76,34 @@ public class PlaceResource {
         if (place.getId() == null) {
             return createPlace(place);
         }
+        if (place.getVersion() == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("place", "versionmissing", "An existing place must have a version")).body(null);
+        }
         Place result = placeService.save(place);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert("place", place.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /places/bulk : Create or update places in bulk. A place with the id of no place is reported as not found.
+     *
+     * @param places the places to create, or to update when they have an ID
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each place, in the order of the request,
+     * or with status 400 (Bad Request) if there are more than {@link BulkService#MAX_ITEMS} places
+     */
+    @RequestMapping(value = "/places/bulk",
+        method = RequestMethod.POST,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<BulkItemResultDTO>> savePlaces(@RequestBody List<Place> places) {
+        log.debug("REST request to save {} Places", places.size());
+        if (places.size() > BulkService.MAX_ITEMS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("place", "bulktoolarge", "Too many places in a bulk request")).body(null);
+        }
+        return ResponseEntity.ok(placeService.saveAll(places));
+    }
+
     /**
      * GET  /places : get all the places.
      *
@@ -92,21 +120,28 @@ public class PlaceResource {
 
     /**
      * GET  /places/:id : get the "id" place.
+     * The response has the ETag and Last-Modified headers of the version of the place: when the If-None-Match or
+     * If-Modified-Since headers of the request match it, the response is a 304 (Not Modified), answered from
+     * the version alone.
      *
      * @param id the id of the place to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the place, or with status 404 (Not Found)
+     * @param webRequest the request, with its conditional headers
+     * @return the ResponseEntity with status 200 (OK) and with body the place, or with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @RequestMapping(value = "/places/{id}",
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<Place> getPlace(@PathVariable Long id) {
+    public ResponseEntity<Place> getPlace(@PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get Place : {}", id);
+        if (ConditionalRequestUtil.checkNotModified(webRequest, placeService.findVersion(id))) {
+            return null;
+        }
         Place place = placeService.findOne(id);
         return Optional.ofNullable(place)
-            .map(result -> new ResponseEntity<>(
-                result,
-                HttpStatus.OK))
+            .map(result -> ConditionalRequestUtil.ok(result,
+                new EntityVersionDTO(result.getVersion(), result.getLastModifiedDate())))
             .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -126,4 +161,23 @@ public class PlaceResource {
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert("place", id.toString())).build();
     }
 
+    /**
+     * DELETE  /places/bulk : Delete places in bulk.
+     *
+     * @param ids the ids of the places to delete
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each id, in the order of the request,
+     * or with status 400 (Bad Request) if there are more than {@link BulkService#MAX_ITEMS} ids
+     */
+    @RequestMapping(value = "/places/bulk",
+        method = RequestMethod.DELETE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<BulkItemResultDTO>> deletePlaces(@RequestBody List<Long> ids) {
+        log.debug("REST request to delete {} Places", ids.size());
+        if (ids.size() > BulkService.MAX_ITEMS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("place", "bulktoolarge", "Too many places in a bulk request")).body(null);
+        }
+        return ResponseEntity.ok(placeService.deleteAll(ids));
+    }
+
 }
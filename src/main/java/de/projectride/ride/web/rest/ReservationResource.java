@@ -1,11 +1,15 @@
 package de.projectride.ride.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import de.projectride.ride.config.http.MappingJackson2CborHttpMessageConverter;
 import de.projectride.ride.domain.Reservation;
 import de.projectride.ride.service.ReservationService;
 import de.projectride.ride.web.rest.util.HeaderUtil;
+import de.projectride.ride.web.rest.util.PaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -52,6 +56,30 @@ public class ReservationResource {
             .body(result);
     }
 
+    /**
+     * POST  /rides/:rideId/reservations : Reserve a seat of the "rideId" ride.
+     *
+     * @param rideId the id of the ride
+     * @param passengerId the id of the passenger
+     * @return the ResponseEntity with status 201 (Created) and with body the new reservation, with status 404 (Not Found) if the ride doesn't exist,
+     * or with status 409 (Conflict) if all the seats of the ride are taken
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @RequestMapping(value = "/rides/{rideId}/reservations",
+        method = RequestMethod.POST,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<Reservation> reserveSeat(@PathVariable Long rideId, @RequestParam Long passengerId) throws URISyntaxException {
+        log.debug("REST request to reserve a seat on Ride {} for passenger {}", rideId, passengerId);
+        Reservation result = reservationService.reserveSeat(rideId, passengerId);
+        if (result == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.created(new URI("/api/reservations/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert("reservation", result.getId().toString()))
+            .body(result);
+    }
+
     /**
      * PUT  /reservations : Updates an existing reservation.
      *
@@ -90,6 +118,126 @@ public class ReservationResource {
         return reservationService.findAll();
     }
 
+    /**
+     * GET  /reservations?passengerId=:passengerId : get the reservations of the "passengerId" passenger.
+     *
+     * @param passengerId the id of the passenger
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of reservations in body
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @RequestMapping(value = "/reservations",
+        method = RequestMethod.GET,
+        params = "passengerId",
+        produces = {MediaType.APPLICATION_JSON_VALUE, MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE})
+    @Timed
+    public ResponseEntity<List<Reservation>> getPassengerReservations(@RequestParam Long passengerId, Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to get a page of Reservations of passenger : {}", passengerId);
+        Page<Reservation> page = reservationService.findByPassenger(passengerId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/reservations?passengerId=" + passengerId);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /rides/:rideId/reservations : get the reservations of the "rideId" ride.
+     *
+     * @param rideId the id of the ride
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of reservations in body
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @RequestMapping(value = "/rides/{rideId}/reservations",
+        method = RequestMethod.GET,
+        produces = {MediaType.APPLICATION_JSON_VALUE, MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE})
+    @Timed
+    public ResponseEntity<List<Reservation>> getRideReservations(@PathVariable Long rideId, Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to get a page of Reservations of Ride : {}", rideId);
+        Page<Reservation> page = reservationService.findByRide(rideId, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/rides/" + rideId + "/reservations");
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /reservations/seek?passengerId=:passengerId : get a page of the reservations of the "passengerId"
+     * passenger, ordered by id, with keyset pagination.
+     *
+     * @param passengerId the id of the passenger
+     * @param size the size of the page, at most 100
+     * @param continuation the continuation token of the Link header of the previous page, none for the first page
+     * @return the ResponseEntity with status 200 (OK) and the list of reservations in body, or with status
+     * 400 (Bad Request) if the continuation token is not valid
+     */
+    @RequestMapping(value = "/reservations/seek",
+        method = RequestMethod.GET,
+        produces = {MediaType.APPLICATION_JSON_VALUE, MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE})
+    @Timed
+    public ResponseEntity<List<Reservation>> seekPassengerReservations(@RequestParam Long passengerId,
+                                                                       @RequestParam(defaultValue = "" + PaginationUtil.DEFAULT_KEYSET_PAGE_SIZE) int size,
+                                                                       @RequestParam(required = false) String continuation) {
+        log.debug("REST request to get a page of Reservations of passenger {} after : {}", passengerId, continuation);
+        int pageSize = PaginationUtil.keysetPageSize(size);
+        List<Reservation> reservations = reservationService.findByPassengerAfter(passengerId, afterId(continuation),
+            pageSize + 1);
+        return seekResponse(reservations, pageSize, "/api/reservations/seek?passengerId=" + passengerId);
+    }
+
+    /**
+     * GET  /rides/:rideId/reservations/seek : get a page of the reservations of the "rideId" ride, ordered by id,
+     * with keyset pagination.
+     *
+     * @param rideId the id of the ride
+     * @param size the size of the page, at most 100
+     * @param continuation the continuation token of the Link header of the previous page, none for the first page
+     * @return the ResponseEntity with status 200 (OK) and the list of reservations in body, or with status
+     * 400 (Bad Request) if the continuation token is not valid
+     */
+    @RequestMapping(value = "/rides/{rideId}/reservations/seek",
+        method = RequestMethod.GET,
+        produces = {MediaType.APPLICATION_JSON_VALUE, MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE})
+    @Timed
+    public ResponseEntity<List<Reservation>> seekRideReservations(@PathVariable Long rideId,
+                                                                  @RequestParam(defaultValue = "" + PaginationUtil.DEFAULT_KEYSET_PAGE_SIZE) int size,
+                                                                  @RequestParam(required = false) String continuation) {
+        log.debug("REST request to get a page of Reservations of Ride {} after : {}", rideId, continuation);
+        int pageSize = PaginationUtil.keysetPageSize(size);
+        List<Reservation> reservations = reservationService.findByRideAfter(rideId, afterId(continuation),
+            pageSize + 1);
+        return seekResponse(reservations, pageSize, "/api/rides/" + rideId + "/reservations/seek");
+    }
+
+    private static Long afterId(String continuation) {
+        return continuation == null ? null : PaginationUtil.decodeContinuation(continuation, 1)[0];
+    }
+
+    private static ResponseEntity<List<Reservation>> seekResponse(List<Reservation> reservations, int pageSize,
+                                                                  String baseUrl) {
+        // one more reservation tells if there is a next page
+        String next = null;
+        if (reservations.size() > pageSize) {
+            reservations = reservations.subList(0, pageSize);
+            next = PaginationUtil.encodeContinuation(reservations.get(pageSize - 1).getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(baseUrl, pageSize, next);
+        return new ResponseEntity<>(reservations, headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /rides/:rideId/reservations/count : count the reservations of the "rideId" ride which are not cancled.
+     *
+     * @param rideId the id of the ride
+     * @return the ResponseEntity with status 200 (OK) and the number of reservations in body
+     */
+    @RequestMapping(value = "/rides/{rideId}/reservations/count",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<Long> countRideReservations(@PathVariable Long rideId) {
+        log.debug("REST request to count the Reservations of Ride : {}", rideId);
+        return ResponseEntity.ok(reservationService.countByRide(rideId));
+    }
+
     /**
      * GET  /reservations/:id : get the "id" reservation.
      *
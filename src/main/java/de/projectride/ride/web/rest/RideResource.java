@@ -1,23 +1,62 @@
 package de.projectride.ride.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.projectride.ride.config.http.MappingJackson2CborHttpMessageConverter;
+import de.projectride.ride.domain.Place;
 import de.projectride.ride.domain.Ride;
+import de.projectride.ride.service.BulkService;
+import de.projectride.ride.service.RideMatchingService;
 import de.projectride.ride.service.RideService;
+import de.projectride.ride.service.SeatAvailabilityService;
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+import de.projectride.ride.service.dto.EntityVersionDTO;
+import de.projectride.ride.service.dto.RideMatchDTO;
+import de.projectride.ride.service.dto.RideSummaryDTO;
+import de.projectride.ride.service.dto.TripDTO;
+import de.projectride.ride.web.rest.errors.CustomParameterizedException;
+import de.projectride.ride.web.rest.util.ConditionalRequestUtil;
+import de.projectride.ride.web.rest.util.CsvUtil;
 import de.projectride.ride.web.rest.util.HeaderUtil;
+import de.projectride.ride.web.rest.util.PaginationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * REST controller for managing Ride.
@@ -26,11 +65,29 @@ import java.util.Optional;
 @RequestMapping("/api")
 public class RideResource {
 
+    private static final double MAX_NEARBY_RADIUS_KM = 200;
+
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
+    private static final String[] CSV_HEADER = {"id", "driverId", "startDateTime", "flexibleStartPlace",
+        "flexibleEndPlace", "price", "numberOfSeats", "seatsTaken", "description", "createdAt", "deleted",
+        "startPlaceId", "startCityName", "startPostcode", "startLatitude", "startLongitude",
+        "endPlaceId", "endCityName", "endPostcode", "endLatitude", "endLongitude"};
+
     private final Logger log = LoggerFactory.getLogger(RideResource.class);
         
     @Inject
     private RideService rideService;
 
+    @Inject
+    private RideMatchingService rideMatchingService;
+
+    @Inject
+    private SeatAvailabilityService seatAvailabilityService;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
     /**
      * POST  /rides : Create a new ride.
      *
@@ -58,7 +115,8 @@ public class RideResource {
      *
      * @param ride the ride to update
      * @return the ResponseEntity with status 200 (OK) and with body the updated ride,
-     * or with status 400 (Bad Request) if the ride is not valid,
+     * or with status 400 (Bad Request) if the ride is not valid or has no version,
+     * or with status 409 (Conflict) if the ride was updated since its version was read,
      * or with status 500 (Internal Server Error) if the ride couldnt be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -71,12 +129,36 @@ public class RideResource {
         if (ride.getId() == null) {
             return createRide(ride);
         }
+        if (ride.getVersion() == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("ride", "versionmissing", "An existing ride must have a version")).body(null);
+        }
         Ride result = rideService.save(ride);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert("ride", ride.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /rides/bulk : Create or update rides in bulk. A ride without id is created
+     * together with its start and end places when they have no id either. A ride with the id of no ride is
+     * reported as not found.
+     *
+     * @param rides the rides to create, or to update when they have an ID
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each ride, in the order of the request,
+     * or with status 400 (Bad Request) if there are more than {@link BulkService#MAX_ITEMS} rides
+     */
+    @RequestMapping(value = "/rides/bulk",
+        method = RequestMethod.POST,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<BulkItemResultDTO>> saveRides(@RequestBody List<Ride> rides) {
+        log.debug("REST request to save {} Rides", rides.size());
+        if (rides.size() > BulkService.MAX_ITEMS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("ride", "bulktoolarge", "Too many rides in a bulk request")).body(null);
+        }
+        return ResponseEntity.ok(rideService.saveAll(rides));
+    }
+
     /**
      * GET  /rides : get all the rides.
      *
@@ -84,27 +166,379 @@ public class RideResource {
      */
     @RequestMapping(value = "/rides",
         method = RequestMethod.GET,
-        produces = MediaType.APPLICATION_JSON_VALUE)
+        produces = {MediaType.APPLICATION_JSON_VALUE, MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE})
     @Timed
     public List<Ride> getAllRides() {
         log.debug("REST request to get all Rides");
         return rideService.findAll();
     }
 
+    /**
+     * GET  /rides/seek : get a page of the rides which are not deleted and have a start date time, ordered by
+     * start date time and id, with keyset pagination.
+     *
+     * @param size the size of the page, at most 100
+     * @param continuation the continuation token of the Link header of the previous page, none for the first page
+     * @return the ResponseEntity with status 200 (OK) and the list of rides in body, or with status
+     * 400 (Bad Request) if the continuation token is not valid
+     */
+    @RequestMapping(value = "/rides/seek",
+        method = RequestMethod.GET,
+        produces = {MediaType.APPLICATION_JSON_VALUE, MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE})
+    @Timed
+    public ResponseEntity<List<Ride>> seekRides(@RequestParam(defaultValue = "" + PaginationUtil.DEFAULT_KEYSET_PAGE_SIZE) int size,
+                                                @RequestParam(required = false) String continuation) {
+        log.debug("REST request to get a page of Rides after : {}", continuation);
+        int pageSize = PaginationUtil.keysetPageSize(size);
+        ZonedDateTime afterStartDateTime = null;
+        Long afterId = null;
+        if (continuation != null) {
+            long[] keys = PaginationUtil.decodeContinuation(continuation, 3);
+            try {
+                if (keys[1] < 0 || keys[1] > 999_999_999) {
+                    throw new DateTimeException("Invalid nanosecond: " + keys[1]);
+                }
+                afterStartDateTime = ZonedDateTime.ofInstant(Instant.ofEpochSecond(keys[0], keys[1]), ZoneId.systemDefault());
+            } catch (DateTimeException e) {
+                // a token which was not encoded from a start date time
+                throw new CustomParameterizedException("continuationInvalid", continuation);
+            }
+            afterId = keys[2];
+        }
+        // one more ride tells if there is a next page
+        List<Ride> rides = rideService.findAllOrderByStartDateTime(afterStartDateTime, afterId, pageSize + 1);
+        String next = null;
+        if (rides.size() > pageSize) {
+            rides = rides.subList(0, pageSize);
+            Ride last = rides.get(pageSize - 1);
+            Instant lastStart = last.getStartDateTime().toInstant();
+            next = PaginationUtil.encodeContinuation(lastStart.getEpochSecond(), lastStart.getNano(), last.getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders("/api/rides/seek", pageSize, next);
+        return new ResponseEntity<>(rides, headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /rides/export : export all the rides, written to the response as they are read from the database.
+     *
+     * @param format "ndjson" for one JSON ride per line, or "csv" for one row per ride, with its places flattened
+     * @param response the response the rides are written to
+     * @throws IOException if the rides can't be written to the response
+     */
+    @RequestMapping(value = "/rides/export",
+        method = RequestMethod.GET)
+    @Timed
+    public void exportRides(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+        throws IOException {
+        log.debug("REST request to export all Rides as {}", format);
+        if (!"ndjson".equals(format) && !"csv".equals(format)) {
+            throw new CustomParameterizedException("exportFormatUnknown", format);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rides." + format + "\"");
+        try {
+            if ("ndjson".equals(format)) {
+                response.setContentType(NDJSON_VALUE);
+                // the response is flushed by the servlet container as its buffer fills, not after each ride
+                ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                    // each ride ends with a line break, instead of being separated from the next one by a space
+                    generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+                    rideService.export(ride -> {
+                        try {
+                            writer.writeValue(generator, ride);
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } else {
+                response.setContentType("text/csv;charset=UTF-8");
+                try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+                    CsvUtil.writeRow(writer, (Object[]) CSV_HEADER);
+                    rideService.export(ride -> {
+                        try {
+                            CsvUtil.writeRow(writer, toCsvRow(ride));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object[] toCsvRow(Ride ride) {
+        Place start = ride.getStartPlace() != null ? ride.getStartPlace() : new Place();
+        Place end = ride.getEndPlace() != null ? ride.getEndPlace() : new Place();
+        return new Object[] {ride.getId(), ride.getDriverId(), ride.getStartDateTime(), ride.getFlexibleStartPlace(),
+            ride.getFlexibleEndPlace(), ride.getPrice(), ride.getNumberOfSeats(), ride.getSeatsTaken(),
+            ride.getDescription(), ride.getCreatedAt(), ride.isDeleted(),
+            start.getId(), start.getCityName(), start.getPostcode(), start.getLatitude(), start.getLongitude(),
+            end.getId(), end.getCityName(), end.getPostcode(), end.getLatitude(), end.getLongitude()};
+    }
+
+    /**
+     * GET  /rides/search : search the rides which are not deleted.
+     *
+     * @param startCity the city name of the start place
+     * @param endCity the city name of the end place
+     * @param startPostcode the postcode of the start place
+     * @param endPostcode the postcode of the end place
+     * @param from the earliest start date time, inclusive
+     * @param to the latest start date time, exclusive
+     * @param minFreeSeats the minimum number of free seats
+     * @param maxPrice the maximum price
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of rides in body
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @RequestMapping(value = "/rides/search",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<Ride>> searchRides(@RequestParam(required = false) String startCity,
+                                                  @RequestParam(required = false) String endCity,
+                                                  @RequestParam(required = false) Integer startPostcode,
+                                                  @RequestParam(required = false) Integer endPostcode,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+                                                  @RequestParam(required = false) Integer minFreeSeats,
+                                                  @RequestParam(required = false) Float maxPrice,
+                                                  Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to search a page of Rides from {} to {}", startCity, endCity);
+        Page<Ride> page = rideService.search(startCity, endCity, startPostcode, endPostcode,
+            from, to, maxPrice, minFreeSeats, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, searchUrl("/api/rides/search",
+            startCity, endCity, startPostcode, endPostcode, from, to, minFreeSeats, maxPrice));
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /rides/async/search : search the rides which are not deleted, like GET /rides/search, without holding
+     * the request thread: the search runs on the searchExecutor.
+     *
+     * @param startCity the city name of the start place
+     * @param endCity the city name of the end place
+     * @param startPostcode the postcode of the start place
+     * @param endPostcode the postcode of the end place
+     * @param from the earliest start date time, inclusive
+     * @param to the latest start date time, exclusive
+     * @param minFreeSeats the minimum number of free seats
+     * @param maxPrice the maximum price
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of rides in body, or with status
+     * 503 (Service Unavailable) and a Retry-After header if too many searches are waiting
+     */
+    @RequestMapping(value = "/rides/async/search",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public CompletableFuture<ResponseEntity<List<Ride>>> searchRidesAsync(@RequestParam(required = false) String startCity,
+                                                                          @RequestParam(required = false) String endCity,
+                                                                          @RequestParam(required = false) Integer startPostcode,
+                                                                          @RequestParam(required = false) Integer endPostcode,
+                                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+                                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+                                                                          @RequestParam(required = false) Integer minFreeSeats,
+                                                                          @RequestParam(required = false) Float maxPrice,
+                                                                          Pageable pageable) {
+        log.debug("REST request to search a page of Rides asynchronously from {} to {}", startCity, endCity);
+        String url = searchUrl("/api/rides/async/search",
+            startCity, endCity, startPostcode, endPostcode, from, to, minFreeSeats, maxPrice);
+        return rideService.searchAsync(startCity, endCity, startPostcode, endPostcode,
+            from, to, maxPrice, minFreeSeats, pageable)
+            .thenApply(page -> {
+                try {
+                    HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, url);
+                    return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+                } catch (URISyntaxException e) {
+                    throw new CompletionException(e);
+                }
+            });
+    }
+
+    /**
+     * GET  /rides/summaries : search the rides which are not deleted, like GET /rides/search, and get their
+     * summaries, which hold the cities and coordinates of their places.
+     *
+     * @param startCity the city name of the start place
+     * @param endCity the city name of the end place
+     * @param startPostcode the postcode of the start place
+     * @param endPostcode the postcode of the end place
+     * @param from the earliest start date time, inclusive
+     * @param to the latest start date time, exclusive
+     * @param minFreeSeats the minimum number of free seats
+     * @param maxPrice the maximum price
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of ride summaries in body
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @RequestMapping(value = "/rides/summaries",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<RideSummaryDTO>> searchRideSummaries(@RequestParam(required = false) String startCity,
+                                                                    @RequestParam(required = false) String endCity,
+                                                                    @RequestParam(required = false) Integer startPostcode,
+                                                                    @RequestParam(required = false) Integer endPostcode,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+                                                                    @RequestParam(required = false) Integer minFreeSeats,
+                                                                    @RequestParam(required = false) Float maxPrice,
+                                                                    Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to search a page of Ride summaries from {} to {}", startCity, endCity);
+        Page<RideSummaryDTO> page = rideService.searchSummaries(startCity, endCity, startPostcode, endPostcode,
+            from, to, maxPrice, minFreeSeats, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, searchUrl("/api/rides/summaries",
+            startCity, endCity, startPostcode, endPostcode, from, to, minFreeSeats, maxPrice));
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    private static String searchUrl(String path, String startCity, String endCity, Integer startPostcode,
+                                    Integer endPostcode, ZonedDateTime from, ZonedDateTime to,
+                                    Integer minFreeSeats, Float maxPrice) {
+        UriComponentsBuilder baseUrl = UriComponentsBuilder.fromPath(path);
+        addQueryParam(baseUrl, "startCity", startCity);
+        addQueryParam(baseUrl, "endCity", endCity);
+        addQueryParam(baseUrl, "startPostcode", startPostcode);
+        addQueryParam(baseUrl, "endPostcode", endPostcode);
+        addQueryParam(baseUrl, "from", from == null ? null : DateTimeFormatter.ISO_INSTANT.format(from));
+        addQueryParam(baseUrl, "to", to == null ? null : DateTimeFormatter.ISO_INSTANT.format(to));
+        addQueryParam(baseUrl, "minFreeSeats", minFreeSeats);
+        addQueryParam(baseUrl, "maxPrice", maxPrice);
+        return baseUrl.toUriString();
+    }
+
+    /**
+     * GET  /rides/nearby : get the rides which are not deleted and start within a radius, nearest first.
+     *
+     * @param lat the latitude of the center in degrees
+     * @param lon the longitude of the center in degrees
+     * @param radiusKm the radius in kilometers, at most 200
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of rides in body,
+     * or with status 400 (Bad Request) if the coordinate or the radius is not valid
+     * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
+     */
+    @RequestMapping(value = "/rides/nearby",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<Ride>> getNearbyRides(@RequestParam double lat,
+                                                     @RequestParam double lon,
+                                                     @RequestParam double radiusKm,
+                                                     Pageable pageable)
+        throws URISyntaxException {
+        log.debug("REST request to get a page of Rides within {} km of {},{}", radiusKm, lat, lon);
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("ride", "invalidcoordinate", "The coordinate is not valid")).body(null);
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_NEARBY_RADIUS_KM) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("ride", "invalidradius", "The radius must be between 0 and " + MAX_NEARBY_RADIUS_KM + " km")).body(null);
+        }
+        Page<Ride> page = rideService.findNearby(lat, lon, radiusKm, pageable);
+        String baseUrl = UriComponentsBuilder.fromPath("/api/rides/nearby")
+            .queryParam("lat", lat)
+            .queryParam("lon", lon)
+            .queryParam("radiusKm", radiusKm)
+            .toUriString();
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, baseUrl);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * POST  /rides/match : rank the upcoming rides serving the trip of a passenger, by detour, time deviation,
+     * price and free seats.
+     *
+     * @param trip the requested start and end coordinates and start time
+     * @return the ResponseEntity with status 200 (OK) and the best matching rides in body, best first,
+     * or with status 400 (Bad Request) if the trip is not valid
+     */
+    @RequestMapping(value = "/rides/match",
+        method = RequestMethod.POST,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<RideMatchDTO>> matchRides(@Valid @RequestBody TripDTO trip) {
+        log.debug("REST request to match Rides for : {}", trip);
+        return new ResponseEntity<>(rideMatchingService.match(trip), HttpStatus.OK);
+    }
+
+    /**
+     * GET  /rides/async/:id : get the "id" ride, like GET /rides/:id, reading it on the searchExecutor.
+     *
+     * @param id the id of the ride to retrieve
+     * @return the ResponseEntity with status 200 (OK) and with body the ride, or with status 404 (Not Found), or
+     * with status 503 (Service Unavailable) and a Retry-After header if too many searches are waiting
+     */
+    @RequestMapping(value = "/rides/async/{id}",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public CompletableFuture<ResponseEntity<Ride>> getRideAsync(@PathVariable Long id) {
+        log.debug("REST request to get Ride asynchronously : {}", id);
+        return rideService.findOneAsync(id)
+            .thenApply(ride -> Optional.ofNullable(ride)
+                .map(result -> new ResponseEntity<>(
+                    result,
+                    HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND)));
+    }
+
     /**
      * GET  /rides/:id : get the "id" ride.
+     * The response has the ETag and Last-Modified headers of the version of the ride: when the If-None-Match or
+     * If-Modified-Since headers of the request match it, the response is a 304 (Not Modified), answered from
+     * the version alone.
      *
      * @param id the id of the ride to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the ride, or with status 404 (Not Found)
+     * @param webRequest the request, with its conditional headers
+     * @return the ResponseEntity with status 200 (OK) and with body the ride, or with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @RequestMapping(value = "/rides/{id}",
         method = RequestMethod.GET,
         produces = MediaType.APPLICATION_JSON_VALUE)
     @Timed
-    public ResponseEntity<Ride> getRide(@PathVariable Long id) {
+    public ResponseEntity<Ride> getRide(@PathVariable Long id, WebRequest webRequest) {
         log.debug("REST request to get Ride : {}", id);
+        if (ConditionalRequestUtil.checkNotModified(webRequest, rideService.findVersion(id))) {
+            return null;
+        }
         Ride ride = rideService.findOne(id);
         return Optional.ofNullable(ride)
+            .map(result -> ConditionalRequestUtil.ok(result,
+                new EntityVersionDTO(result.getVersion(), result.getSeatsVersion(),
+                    result.getStartPlace() == null ? null : result.getStartPlace().getVersion(),
+                    result.getEndPlace() == null ? null : result.getEndPlace().getVersion(),
+                    result.getLastModifiedDate(),
+                    result.getStartPlace() == null ? null : result.getStartPlace().getLastModifiedDate(),
+                    result.getEndPlace() == null ? null : result.getEndPlace().getLastModifiedDate())))
+            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * GET  /rides/:id/availability/stream : stream the seats of the "id" ride, as Server-Sent Events named
+     * "availability", starting with the current seats. An event is sent each time a reservation takes or releases
+     * a seat of the ride; a client too slow to keep up only receives the latest seats. The stream is completed
+     * when the ride is deleted.
+     *
+     * @param id the id of the ride
+     * @return the ResponseEntity with status 200 (OK) and with body the stream of the seats, or with status 404
+     * (Not Found)
+     */
+    @RequestMapping(value = "/rides/{id}/availability/stream",
+        method = RequestMethod.GET,
+        produces = "text/event-stream")
+    @Timed
+    public ResponseEntity<SseEmitter> streamSeatAvailability(@PathVariable Long id) {
+        log.debug("REST request to stream the seats of Ride : {}", id);
+        return Optional.ofNullable(seatAvailabilityService.subscribe(id))
             .map(result -> new ResponseEntity<>(
                 result,
                 HttpStatus.OK))
@@ -127,4 +561,29 @@ public class RideResource {
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert("ride", id.toString())).build();
     }
 
+    private static void addQueryParam(UriComponentsBuilder builder, String name, Object value) {
+        if (value != null) {
+            builder.queryParam(name, value);
+        }
+    }
+
+    /**
+     * DELETE  /rides/bulk : Delete rides in bulk.
+     *
+     * @param ids the ids of the rides to delete
+     * @return the ResponseEntity with status 200 (OK) and with body the result of each id, in the order of the request,
+     * or with status 400 (Bad Request) if there are more than {@link BulkService#MAX_ITEMS} ids
+     */
+    @RequestMapping(value = "/rides/bulk",
+        method = RequestMethod.DELETE,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    public ResponseEntity<List<BulkItemResultDTO>> deleteRides(@RequestBody List<Long> ids) {
+        log.debug("REST request to delete {} Rides", ids.size());
+        if (ids.size() > BulkService.MAX_ITEMS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert("ride", "bulktoolarge", "Too many rides in a bulk request")).body(null);
+        }
+        return ResponseEntity.ok(rideService.deleteAll(ids));
+    }
+
 }
@@ -2,8 +2,11 @@ package de.projectride.ride.web.rest.errors;
 
 import java.util.List;
 
+import de.projectride.ride.service.NoSeatAvailableException;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.ResponseEntity.BodyBuilder;
@@ -20,6 +23,11 @@ import org.springframework.web.bind.annotation.*;
 @ControllerAdvice
 public class ExceptionTranslator {
 
+    /**
+     * The seconds clients are asked to wait before retrying a request rejected by a saturated executor.
+     */
+    public static final int RETRY_AFTER_SECONDS = 1;
+
     @ExceptionHandler(ConcurrencyFailureException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     @ResponseBody
@@ -27,6 +35,13 @@ public class ExceptionTranslator {
         return new ErrorVM(ErrorConstants.ERR_CONCURRENCY_FAILURE);
     }
 
+    @ExceptionHandler(NoSeatAvailableException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ResponseBody
+    public ErrorVM processNoSeatAvailableError(NoSeatAvailableException ex) {
+        return new ErrorVM(ErrorConstants.ERR_NO_SEAT_AVAILABLE, ex.getMessage());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -51,6 +66,13 @@ public class ExceptionTranslator {
         return new ErrorVM(ErrorConstants.ERR_ACCESS_DENIED, e.getMessage());
     }
 
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ErrorVM> processTaskRejectedException(TaskRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+            .body(new ErrorVM(ErrorConstants.ERR_SERVICE_UNAVAILABLE, "Too many requests are waiting"));
+    }
+
     private ErrorVM processFieldErrors(List<FieldError> fieldErrors) {
         ErrorVM dto = new ErrorVM(ErrorConstants.ERR_VALIDATION);
 
@@ -0,0 +1,43 @@
+package de.projectride.ride.web.rest.util;
+
+import de.projectride.ride.service.dto.EntityVersionDTO;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Utility class for conditional GET requests, with the ETag and Last-Modified headers of the entity versions.
+ */
+public final class ConditionalRequestUtil {
+
+    private ConditionalRequestUtil() {
+    }
+
+    /**
+     * Check the If-None-Match and If-Modified-Since headers of a request against the version of an entity, which
+     * can be read before the entity. When they match, the response is set to 304 Not Modified, with the ETag and
+     * Last-Modified headers, and the handler has nothing more to write: it returns null.
+     *
+     * @param request the request
+     * @param version the version of the entity, or null if it was not found
+     * @return true if the entity was not modified since the version known by the client
+     */
+    public static boolean checkNotModified(WebRequest request, EntityVersionDTO version) {
+        return version != null && version.getETag() != null &&
+            request.checkNotModified(version.getETag(), version.getLastModified());
+    }
+
+    /**
+     * Create a 200 OK response of an entity, with the ETag and Last-Modified headers of its version.
+     */
+    public static <T> ResponseEntity<T> ok(T body, EntityVersionDTO version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version.getETag() != null) {
+            builder.eTag(version.getETag());
+        }
+        if (version.getLastModified() >= 0) {
+            builder.lastModified(version.getLastModified());
+        }
+        return builder.body(body);
+    }
+}
@@ -0,0 +1,38 @@
+package de.projectride.ride.web.rest.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Utility class for writing CSV.
+ *
+ * <p>
+ * Rows follow <a href="https://tools.ietf.org/html/rfc4180">RFC 4180</a>: fields containing a comma, a quote or a
+ * line break are quoted, and null values are written as empty fields.
+ */
+public final class CsvUtil {
+
+    private CsvUtil() {
+    }
+
+    public static void writeRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    public static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
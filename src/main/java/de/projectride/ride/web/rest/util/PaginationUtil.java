@@ -1,10 +1,16 @@
 package de.projectride.ride.web.rest.util;
 
+import de.projectride.ride.web.rest.errors.CustomParameterizedException;
+
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
 
 /**
  * Utility class for handling pagination.
@@ -12,9 +18,18 @@ import java.net.URISyntaxException;
  * <p>
  * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">Github API</a>,
  * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ *
+ * <p>
+ * With keyset pagination, the next page is requested with a continuation token holding the sort keys of the last
+ * element of the page, so that the database seeks to it in an index instead of reading and skipping the previous
+ * pages. A deep page then costs as much as the first one.
  */
 public final class PaginationUtil {
 
+    public static final int DEFAULT_KEYSET_PAGE_SIZE = 20;
+
+    public static final int MAX_KEYSET_PAGE_SIZE = 100;
+
     private PaginationUtil(){
     }
 
@@ -45,4 +60,61 @@ public final class PaginationUtil {
     private static String generateUri(String baseUrl, int page, int size) throws URISyntaxException {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
+
+    /**
+     * Generate the Link header of a page read with keyset pagination, to the first page and to the next one if
+     * there is one. There is no X-Total-Count header, as counting the elements would read all of them.
+     *
+     * @param baseUrl the URL of the first page, without the size
+     * @param size the size of the page
+     * @param continuation the continuation token of the next page, or null if it is the last page
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(String baseUrl, int size, String continuation) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (continuation != null) {
+            link = "<" + UriComponentsBuilder.fromUriString(baseUrl).queryParam("size", size)
+                .queryParam("continuation", continuation).toUriString() + ">; rel=\"next\",";
+        }
+        link += "<" + UriComponentsBuilder.fromUriString(baseUrl).queryParam("size", size).toUriString() + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * @param size the requested size of a page read with keyset pagination
+     * @return the size, between 1 and {@link #MAX_KEYSET_PAGE_SIZE}
+     */
+    public static int keysetPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    }
+
+    /**
+     * Encode the sort keys of the last element of a page as an opaque continuation token.
+     */
+    public static String encodeContinuation(long... keys) {
+        String value = Arrays.stream(keys).mapToObj(Long::toString).collect(Collectors.joining(","));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decode a continuation token encoded by {@link #encodeContinuation}.
+     *
+     * @param continuation the continuation token
+     * @param numberOfKeys the expected number of sort keys
+     * @return the sort keys
+     * @throws CustomParameterizedException if the token is not valid
+     */
+    public static long[] decodeContinuation(String continuation, int numberOfKeys) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(continuation), StandardCharsets.US_ASCII);
+            long[] keys = Arrays.stream(value.split(",")).mapToLong(Long::parseLong).toArray();
+            if (keys.length == numberOfKeys) {
+                return keys;
+            }
+        } catch (IllegalArgumentException e) {
+            // not Base64 or not numbers, NumberFormatException being an IllegalArgumentException
+        }
+        throw new CustomParameterizedException("continuationInvalid", continuation);
+    }
 }
@@ -0,0 +1,149 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.RideApp;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.boot.bind.RelaxedDataBinder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Test class for the executors and their metrics.
+ *
+ * @see AsyncConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class AsyncConfigurationIntTest {
+
+    @Inject
+    @Named("cpuExecutor")
+    private AsyncTaskExecutor cpuExecutor;
+
+    @Inject
+    @Named("searchExecutor")
+    private AsyncTaskExecutor searchExecutor;
+
+    @Inject
+    @Named("streamExecutor")
+    private AsyncTaskExecutor streamExecutor;
+
+    @Inject
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    @Inject
+    private JHipsterProperties jHipsterProperties;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Test
+    public void legacyPoolPropertiesConfigureTheIoPool() {
+        JHipsterProperties properties = new JHipsterProperties();
+        MutablePropertyValues values = new MutablePropertyValues();
+        values.add("async.corePoolSize", 4);
+        values.add("async.max-pool-size", 20);
+        values.add("async.queueCapacity", 500);
+
+        new RelaxedDataBinder(properties).bind(values);
+
+        assertThat(properties.getAsync().getIo().getCorePoolSize()).isEqualTo(4);
+        assertThat(properties.getAsync().getIo().getMaxPoolSize()).isEqualTo(20);
+        assertThat(properties.getAsync().getIo().getQueueCapacity()).isEqualTo(500);
+    }
+
+    @Test
+    public void executorsRunOnTheirOwnThreads() throws Exception {
+        Future<String> cpuThread = cpuExecutor.submit(() -> Thread.currentThread().getName());
+        Future<String> searchThread = searchExecutor.submit(() -> Thread.currentThread().getName());
+        Future<String> streamThread = streamExecutor.submit(() -> Thread.currentThread().getName());
+
+        assertThat(cpuThread.get(10, SECONDS)).startsWith("ride-Cpu-");
+        assertThat(searchThread.get(10, SECONDS)).startsWith("ride-Search-");
+        assertThat(streamThread.get(10, SECONDS)).startsWith("ride-Stream-");
+        assertThat(taskScheduler.getPoolSize()).isEqualTo(jHipsterProperties.getAsync().getScheduled().getPoolSize());
+    }
+
+    @Test
+    public void executorsRecordTheirTasks() throws Exception {
+        long waits = metricRegistry.timer("cpuExecutor.wait").getCount();
+        long runs = metricRegistry.timer("cpuExecutor.run").getCount();
+        long completed = (Long) gauge("cpuExecutor.completed").getValue();
+
+        cpuExecutor.submit(() -> {
+            Thread.sleep(10);
+            return null;
+        }).get(10, SECONDS);
+
+        assertThat(metricRegistry.timer("cpuExecutor.wait").getCount()).isEqualTo(waits + 1);
+        assertThat(metricRegistry.timer("cpuExecutor.run").getCount()).isEqualTo(runs + 1);
+        assertThat(metricRegistry.timer("cpuExecutor.run").getSnapshot().getMax()).isGreaterThanOrEqualTo(10000000L);
+        // the pool counts the task as completed after the future is done
+        await().atMost(10, SECONDS).until(() -> gauge("cpuExecutor.completed").getValue(), equalTo(completed + 1));
+        assertThat(gauge("cpuExecutor.queue").getValue()).isEqualTo(0);
+    }
+
+    @Test
+    public void saturatedExecutorRejectsTasks() throws Exception {
+        JHipsterProperties.Async.Pool pool = jHipsterProperties.getAsync().getSearch();
+        long rejected = metricRegistry.meter("searchExecutor.rejected").getCount();
+        awaitIdle("searchExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Runnable blocked = () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            // occupy the threads one by one, as an idle thread may take its task from the queue a bit later
+            for (int i = 1; i <= pool.getMaxPoolSize(); i++) {
+                int active = i;
+                searchExecutor.execute(blocked);
+                await().atMost(10, SECONDS).until(() -> gauge("searchExecutor.active").getValue(), equalTo(active));
+            }
+            for (int i = 0; i < pool.getQueueCapacity(); i++) {
+                searchExecutor.execute(blocked);
+            }
+            assertThat(gauge("searchExecutor.queue").getValue()).isEqualTo(pool.getQueueCapacity());
+
+            try {
+                searchExecutor.execute(() -> { });
+                fail("TaskRejectedException expected");
+            } catch (TaskRejectedException e) {
+                assertThat(metricRegistry.meter("searchExecutor.rejected").getCount()).isEqualTo(rejected + 1);
+            }
+        } finally {
+            release.countDown();
+            awaitIdle("searchExecutor");
+        }
+    }
+
+    private void awaitIdle(String executor) {
+        await().atMost(10, SECONDS).until(() -> gauge(executor + ".active").getValue(), equalTo(0));
+        await().atMost(10, SECONDS).until(() -> gauge(executor + ".queue").getValue(), equalTo(0));
+    }
+
+    private Gauge<?> gauge(String name) {
+        return metricRegistry.getGauges().get(name);
+    }
+}
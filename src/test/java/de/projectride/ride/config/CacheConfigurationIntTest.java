@@ -0,0 +1,128 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the second-level cache, enabled as in dev and prod.
+ *
+ * @see CacheConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class, properties = {
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.cache.region.factory_class=org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory"
+})
+public class CacheConfigurationIntTest {
+
+    private static final String REGION = "cache." + Ride.class.getName();
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    private Ride ride;
+
+    @Before
+    public void initTest() {
+        // saved and read in their own transactions, as the cache is only filled once they are committed
+        ride = rideRepository.save(new Ride().numberOfSeats(3).deleted(false).description("AAAAA"));
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @After
+    public void cleanUp() {
+        if (rideRepository.exists(ride.getId())) {
+            rideRepository.delete(ride.getId());
+        }
+        // the repository only marks the ride as deleted
+        jdbcTemplate.update("delete from ride where id = ?", ride.getId());
+    }
+
+    @Test
+    public void secondFindOneHitsTheCache() {
+        long hits = gauge("hits");
+        long misses = gauge("misses");
+
+        assertThat(rideRepository.findOne(ride.getId())).isNotNull();
+        assertThat(gauge("misses")).isEqualTo(misses + 1);
+        assertThat(entityManagerFactory.getCache().contains(Ride.class, ride.getId())).isTrue();
+
+        Ride cached = rideRepository.findOne(ride.getId());
+        assertThat(cached.getDescription()).isEqualTo("AAAAA");
+        assertThat(gauge("hits")).isEqualTo(hits + 1);
+        assertThat(gauge("misses")).isEqualTo(misses + 1);
+        assertThat(gauge("size")).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void updateEvictsTheRide() {
+        Ride cached = rideRepository.findOne(ride.getId());
+        assertThat(entityManagerFactory.getCache().contains(Ride.class, ride.getId())).isTrue();
+
+        rideRepository.save(cached.description("BBBBB"));
+
+        assertThat(entityManagerFactory.getCache().contains(Ride.class, ride.getId())).isFalse();
+        assertThat(rideRepository.findOne(ride.getId()).getDescription()).isEqualTo("BBBBB");
+    }
+
+    @Test
+    public void deleteEvictsTheRide() {
+        rideRepository.findOne(ride.getId());
+        assertThat(entityManagerFactory.getCache().contains(Ride.class, ride.getId())).isTrue();
+
+        rideRepository.delete(ride.getId());
+
+        assertThat(entityManagerFactory.getCache().contains(Ride.class, ride.getId())).isFalse();
+        assertThat(rideRepository.findOne(ride.getId())).isNull();
+    }
+
+    @Test
+    public void takeSeatOnlyEvictsTheRide() {
+        Ride other = rideRepository.save(new Ride().numberOfSeats(3).deleted(false));
+        try {
+            rideRepository.findOne(ride.getId());
+            rideRepository.findOne(other.getId());
+
+            assertThat(rideRepository.takeSeat(ride.getId())).isEqualTo(1);
+
+            assertThat(entityManagerFactory.getCache().contains(Ride.class, ride.getId())).isFalse();
+            assertThat(entityManagerFactory.getCache().contains(Ride.class, other.getId())).isTrue();
+            assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(1);
+        } finally {
+            rideRepository.delete(other.getId());
+            jdbcTemplate.update("delete from ride where id = ?", other.getId());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private long gauge(String name) {
+        Gauge<Long> gauge = metricRegistry.getGauges().get(MetricRegistry.name(REGION, name));
+        assertThat(gauge).as(MetricRegistry.name(REGION, name)).isNotNull();
+        return gauge.getValue();
+    }
+}
@@ -0,0 +1,130 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.PlaceRepository;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.RideIndexService;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the clustered cache, with two Hazelcast members running in the test JVM.
+ *
+ * @see HazelcastCacheConfiguration
+ */
+public class HazelcastCacheConfigurationIntTest {
+
+    private static final String RIDE_REGION = "de.projectride.ride.domain.Ride";
+
+    private static final int FIRST_PORT = 15701;
+
+    private static final int SECOND_PORT = 15801;
+
+    private HazelcastInstance firstMember;
+
+    private HazelcastInstance secondMember;
+
+    @Before
+    public void startCluster() {
+        JHipsterProperties.Cache cacheProperties = new JHipsterProperties().getCache();
+        JHipsterProperties.Cache.Entity rideProperties = new JHipsterProperties.Cache.Entity();
+        rideProperties.setNearCache(true);
+        cacheProperties.getEntities().put("Ride", rideProperties);
+
+        firstMember = Hazelcast.newHazelcastInstance(createConfig("ride-1", FIRST_PORT, SECOND_PORT, cacheProperties));
+        secondMember = Hazelcast.newHazelcastInstance(createConfig("ride-2", SECOND_PORT, FIRST_PORT, cacheProperties));
+        await().atMost(30, SECONDS).until(() -> secondMember.getCluster().getMembers().size(), equalTo(2));
+    }
+
+    @After
+    public void stopCluster() {
+        secondMember.shutdown();
+        firstMember.shutdown();
+    }
+
+    @Test
+    public void nearCacheIsInvalidatedByOtherMember() {
+        IMap<Long, String> firstMap = firstMember.getMap(RIDE_REGION);
+        IMap<Long, String> secondMap = secondMember.getMap(RIDE_REGION);
+        assertThat(secondMap.getLocalMapStats().getNearCacheStats()).isNotNull();
+        assertThat(firstMember.getMap("de.projectride.ride.domain.Car").getLocalMapStats().getNearCacheStats())
+            .isNull();
+
+        firstMap.put(1L, "before");
+        assertThat(secondMap.get(1L)).isEqualTo("before");
+        assertThat(secondMap.get(1L)).isEqualTo("before");
+        assertThat(secondMap.getLocalMapStats().getNearCacheStats().getHits()).isEqualTo(1);
+
+        firstMap.put(1L, "after");
+        await().atMost(10, SECONDS).until(() -> secondMap.get(1L), equalTo("after"));
+
+        firstMap.remove(1L);
+        await().atMost(10, SECONDS).until(() -> secondMap.containsKey(1L), equalTo(false));
+    }
+
+    @Test
+    public void rideIndexIsRefreshedByOtherMember() {
+        Ride ride = new Ride()
+            .startDateTime(ZonedDateTime.now().plusDays(1))
+            .flexibleStartPlace(5)
+            .flexibleEndPlace(5)
+            .startPlace(new Place().latitude(49.4875).longitude(8.4660))
+            .endPlace(new Place().latitude(52.5200).longitude(13.4050));
+        ride.setId(1L);
+        RideRepository secondRepository = mock(RideRepository.class);
+        RideIndexService firstService = createRideIndexService(firstMember, mock(RideRepository.class));
+        RideIndexService secondService = createRideIndexService(secondMember, secondRepository);
+
+        when(secondRepository.findOne(1L)).thenReturn(ride);
+        firstService.update(ride);
+        assertThat(firstService.findMatchingRideIds(49.49, 8.47, 52.52, 13.41,
+            ride.getStartDateTime(), Duration.ofHours(1))).containsExactly(1L);
+        await().atMost(10, SECONDS).until(() -> secondService.findMatchingRideIds(49.49, 8.47, 52.52, 13.41,
+            ride.getStartDateTime(), Duration.ofHours(1)).length, equalTo(1));
+
+        when(secondRepository.findOne(1L)).thenReturn(null);
+        firstService.remove(1L);
+        await().atMost(10, SECONDS).until(() -> secondService.findMatchingRideIds(49.49, 8.47, 52.52, 13.41,
+            ride.getStartDateTime(), Duration.ofHours(1)).length, equalTo(0));
+    }
+
+    private static Config createConfig(String instanceName, int port, int otherPort,
+                                       JHipsterProperties.Cache cacheProperties) {
+        Config config = HazelcastCacheConfiguration.createConfig(instanceName, port,
+            Collections.singletonList("127.0.0.1:" + otherPort), cacheProperties);
+        config.getNetworkConfig().getInterfaces().setEnabled(true).addInterface("127.0.0.1");
+        config.setProperty("hazelcast.wait.seconds.before.join", "0");
+        return config;
+    }
+
+    private static RideIndexService createRideIndexService(HazelcastInstance hazelcastInstance,
+                                                           RideRepository rideRepository) {
+        RideIndexService rideIndexService = new RideIndexService();
+        ReflectionTestUtils.setField(rideIndexService, "rideRepository", rideRepository);
+        ReflectionTestUtils.setField(rideIndexService, "placeRepository", mock(PlaceRepository.class));
+        ReflectionTestUtils.setField(rideIndexService, "metricRegistry", new MetricRegistry());
+        ReflectionTestUtils.setField(rideIndexService, "hazelcastInstance", hazelcastInstance);
+        rideIndexService.init();
+        return rideIndexService;
+    }
+}
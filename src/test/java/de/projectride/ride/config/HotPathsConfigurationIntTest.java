@@ -0,0 +1,56 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.RideApp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.inject.Inject;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the recording of the hot paths, with all the calls sampled.
+ *
+ * @see HotPathsConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class HotPathsConfigurationIntTest {
+
+    @Inject
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    public void hotPathsListTheEndpointsAndRepositoryMethods() throws Exception {
+        mockMvc.perform(get("/api/rides/{id}", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/management/hotpaths"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.sampleRate").value(1.0))
+            .andExpect(jsonPath("$.paths[*].path").value(hasItems("GET /api/rides/{id}", "RideRepository.findOne")))
+            .andExpect(jsonPath("$.paths[?(@.path == 'GET /api/rides/{id}')].count").value(hasItem(greaterThan(0))))
+            .andExpect(jsonPath("$.paths[0].p50").exists())
+            .andExpect(jsonPath("$.paths[0].p99").exists())
+            .andExpect(jsonPath("$.paths[0].p999").exists());
+    }
+}
@@ -0,0 +1,88 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.config.jdbc.InstrumentedDataSource;
+import de.projectride.ride.config.jdbc.JdbcRecorder;
+import de.projectride.ride.repository.RideRepository;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.actuate.endpoint.DataSourcePublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the instrumentation of the data source.
+ *
+ * @see JdbcMetricsConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class JdbcMetricsConfigurationIntTest {
+
+    @Inject
+    private WebApplicationContext context;
+
+    @Inject
+    private DataSource dataSource;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private JdbcRecorder jdbcRecorder;
+
+    @Inject
+    private MetricRegistry metricRegistry;
+
+    @Inject
+    private DataSourcePublicMetrics dataSourcePublicMetrics;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    public void slowQueriesListTheStatements() throws Exception {
+        assertThat(dataSource).isInstanceOf(InstrumentedDataSource.class);
+        rideRepository.count();
+
+        mockMvc.perform(get("/management/slowqueries"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.slowQueryThreshold").value(1000))
+            .andExpect(jsonPath("$.statements[*].metric").value(hasItem(startsWith("jdbc."))));
+        assertThat(jdbcRecorder.getStatements().stream()
+            .anyMatch(statement -> statement.getShape().startsWith("select count(*) as col_0_0_ from ride ride0_"))).isTrue();
+        assertThat(metricRegistry.timer("jdbc.connection.acquire").getCount()).isPositive();
+        // the Hikari pool is still monitored behind the instrumentation
+        assertThat(metricRegistry.getNames().stream().anyMatch(name -> name.endsWith("pool.Wait"))).isTrue();
+    }
+
+    @Test
+    public void poolMetricsSeeThePoolBehindTheInstrumentation() {
+        assertThat(((InstrumentedDataSource) dataSource).getTargetDataSource()).isInstanceOf(HikariDataSource.class);
+
+        assertThat(dataSourcePublicMetrics.metrics()).extracting(Metric::getName)
+            .contains("datasource.primary.active", "datasource.primary.usage");
+    }
+}
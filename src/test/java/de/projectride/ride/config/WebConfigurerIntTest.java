@@ -0,0 +1,147 @@
+package de.projectride.ride.config;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.security.AuthoritiesConstants;
+import de.projectride.ride.security.jwt.JWTConfigurer;
+import de.projectride.ride.security.jwt.TokenProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.StreamUtils;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the compression of the responses, through the whole filter chain of the server.
+ *
+ * @see WebConfigurer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    // as in the main application.yml, which the one of the tests replaces
+    "server.compression.enabled=true",
+    "server.compression.mime-types=text/html,text/xml,text/plain,text/css,application/javascript,application/json,application/cbor",
+    "server.compression.min-response-size=1024"
+})
+public class WebConfigurerIntTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Inject
+    private ServerProperties serverProperties;
+
+    @Inject
+    private TokenProvider tokenProvider;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Ride> rides = new ArrayList<>();
+
+    private String token;
+
+    @Before
+    public void initTest() {
+        // committed, as the server reads them in its own transactions
+        for (int i = 0; i < 10; i++) {
+            rides.add(rideRepository.save(new Ride().numberOfSeats(3).deleted(false).description("AAAAAAAAAA")));
+        }
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("user", "",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+    }
+
+    @After
+    public void cleanUp() {
+        for (Ride ride : rides) {
+            // marked as deleted first, which evicts it from the caches, as the repository doesn't delete the row
+            rideRepository.delete(ride.getId());
+            jdbcTemplate.update("delete from ride where id = ?", ride.getId());
+        }
+    }
+
+    @Test
+    public void largeListIsCompressed() throws Exception {
+        HttpURLConnection connection = open("/api/rides");
+        try {
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getHeaderField(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+            assertThat(connection.getHeaderField(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+            String json = read(new GZIPInputStream(connection.getInputStream()));
+            assertThat(json.length()).isGreaterThanOrEqualTo(serverProperties.getCompression().getMinResponseSize());
+            assertThat(json).startsWith("[").contains("\"id\":" + rides.get(0).getId());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void smallResponseIsNotCompressed() throws Exception {
+        HttpURLConnection connection = open("/api/rides/" + rides.get(0).getId());
+        try {
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getHeaderField(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(connection.getContentLength()).isPositive()
+                .isLessThan(serverProperties.getCompression().getMinResponseSize());
+            assertThat(read(connection.getInputStream())).contains("\"id\":" + rides.get(0).getId());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void eventStreamIsNotCompressed() throws Exception {
+        HttpURLConnection connection = open("/api/rides/" + rides.get(0).getId() + "/availability/stream");
+        try {
+            assertThat(connection.getResponseCode()).isEqualTo(200);
+            assertThat(connection.getContentType()).startsWith("text/event-stream");
+            assertThat(connection.getHeaderField(HttpHeaders.CONTENT_ENCODING)).isNull();
+            // the current seats are sent at once, uncompressed
+            byte[] event = new byte[64];
+            int length = connection.getInputStream().read(event);
+            assertThat(new String(event, 0, length, StandardCharsets.UTF_8)).contains("event:availability");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        connection.setRequestProperty(JWTConfigurer.AUTHORIZATION_HEADER, "Bearer " + token);
+        connection.setReadTimeout(10000);
+        return connection;
+    }
+
+    private static String read(InputStream body) throws IOException {
+        try (InputStream in = body) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.projectride.ride.config.http;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the predicate of the compressed responses.
+ *
+ * @see CompressiblePredicate
+ */
+public class CompressiblePredicateUnitTest {
+
+    private final CompressiblePredicate predicate =
+        new CompressiblePredicate(new String[] {"text/html", " application/json", "application/cbor"}, 1024);
+
+    @Test
+    public void compressesTheResponsesOfTheMinResponseSize() {
+        assertThat(predicate.resolve(response("application/json;charset=UTF-8", "1024"))).isTrue();
+        assertThat(predicate.resolve(response("application/cbor", "20000"))).isTrue();
+    }
+
+    @Test
+    public void compressesTheResponsesWithoutContentLength() {
+        // written beyond the response buffer, as a long list of rides
+        assertThat(predicate.resolve(response("application/json;charset=UTF-8", null))).isTrue();
+    }
+
+    @Test
+    public void doesNotCompressTheSmallResponses() {
+        assertThat(predicate.resolve(response("application/json;charset=UTF-8", "1023"))).isFalse();
+    }
+
+    @Test
+    public void doesNotCompressTheOtherContentTypes() {
+        assertThat(predicate.resolve(response("image/png", "20000"))).isFalse();
+        assertThat(predicate.resolve(response(null, "20000"))).isFalse();
+    }
+
+    private static HttpServerExchange response(String contentType, String contentLength) {
+        HttpServerExchange exchange = new HttpServerExchange(null);
+        if (contentType != null) {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, contentType);
+        }
+        if (contentLength != null) {
+            exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, contentLength);
+        }
+        return exchange;
+    }
+}
@@ -0,0 +1,60 @@
+package de.projectride.ride.config.http;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the filter deferring the flushes of the compressible responses.
+ *
+ * @see DeferredFlushFilter
+ */
+public class DeferredFlushFilterUnitTest {
+
+    private final DeferredFlushFilter filter =
+        new DeferredFlushFilter(new CompressiblePredicate(new String[] {"application/json"}, 1024));
+
+    @Test
+    public void ignoresTheFlushesOfTheCompressibleResponses() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse wrapped)
+                throws IOException {
+                HttpServletResponse httpResponse = (HttpServletResponse) wrapped;
+                httpResponse.setContentType("application/json;charset=UTF-8");
+                httpResponse.getOutputStream().write("[]".getBytes("UTF-8"));
+                httpResponse.getOutputStream().flush();
+                httpResponse.flushBuffer();
+            }
+        });
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    public void flushesTheOtherResponses() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse wrapped)
+                throws IOException {
+                HttpServletResponse httpResponse = (HttpServletResponse) wrapped;
+                httpResponse.setContentType("text/event-stream");
+                httpResponse.getOutputStream().write("data: 1\n\n".getBytes("UTF-8"));
+                httpResponse.getOutputStream().flush();
+            }
+        });
+
+        assertThat(response.isCommitted()).isTrue();
+    }
+}
@@ -0,0 +1,145 @@
+package de.projectride.ride.config.jdbc;
+
+import de.projectride.ride.config.JHipsterProperties;
+
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for the JDBC instrumentation, on an in-memory H2 database.
+ *
+ * @see InstrumentedDataSource
+ */
+public class InstrumentedDataSourceUnitTest {
+
+    private static final String INSERT = "insert into place (id, city_name) values (?, ?)";
+
+    private static final String SELECT = "select id from place where city_name = ?";
+
+    private MetricRegistry metricRegistry;
+
+    private JdbcRecorder recorder;
+
+    private InstrumentedDataSource dataSource;
+
+    private Connection keepAlive;
+
+    @Before
+    public void setup() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:instrumented;DB_CLOSE_DELAY=-1");
+        keepAlive = h2.getConnection();
+        metricRegistry = new MetricRegistry();
+        JHipsterProperties.Metrics.Jdbc properties = new JHipsterProperties.Metrics.Jdbc();
+        // every statement is slow
+        properties.setSlowQueryThreshold(0);
+        properties.setTopN(2);
+        recorder = new JdbcRecorder(metricRegistry, properties);
+        dataSource = new InstrumentedDataSource(h2, () -> recorder);
+        // created without the instrumentation, so that only the statements of the tests are recorded
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("create table place (id bigint primary key, city_name varchar(255))");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("drop table place");
+        }
+        keepAlive.close();
+    }
+
+    @Test
+    public void closeClosesThePool() throws Exception {
+        HikariDataSource pool = mock(HikariDataSource.class);
+
+        new InstrumentedDataSource(pool, () -> recorder).close();
+
+        verify(pool).close();
+    }
+
+    @Test
+    public void recordsStatementsPerShape() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                for (long id = 1; id <= 3; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "Mannheim");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement select = connection.prepareStatement(SELECT)) {
+                select.setString(1, "Mannheim");
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        assertThat(resultSet.getStatement()).isSameAs(select);
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("update place set city_name = 'Berlin' where id = 1");
+                statement.executeUpdate("update place set city_name = 'Berlin' where id = 2");
+            }
+        }
+
+        Map<String, JdbcRecorder.StatementMetrics> statements = statementsByShape();
+        assertThat(statements.get(INSERT).getTimer().getCount()).isEqualTo(1);
+        assertThat(statements.get(INSERT).getRows().getSnapshot().getMax()).isEqualTo(3);
+        assertThat(statements.get(SELECT).getRows().getSnapshot().getMax()).isEqualTo(3);
+        // the updates differing by their values only have the same shape
+        JdbcRecorder.StatementMetrics update = statements.get("update place set city_name = ? where id = ?");
+        assertThat(update.getTimer().getCount()).isEqualTo(2);
+        assertThat(update.getName()).startsWith("jdbc.update.place.");
+        assertThat(metricRegistry.getTimers()).containsKey(update.getName());
+        assertThat(metricRegistry.getHistograms()).containsKey(update.getName() + ".rows");
+        assertThat(metricRegistry.timer("jdbc.connection.acquire").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void keepsTheSlowestStatementsWithRedactedParameters() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(SELECT)) {
+            for (int i = 0; i < 5; i++) {
+                select.setString(1, "secret");
+                select.executeQuery().close();
+            }
+        }
+
+        List<JdbcRecorder.SlowExecution> slowest = recorder.getSlowest();
+        assertThat(slowest).hasSize(2);
+        assertThat(slowest.get(0).getDurationNanos()).isGreaterThanOrEqualTo(slowest.get(1).getDurationNanos());
+        assertThat(slowest.get(0).getShape()).isEqualTo(SELECT);
+        assertThat(slowest.get(0).getParameters()).isEqualTo("[1: <String>]");
+    }
+
+    @Test
+    public void shapeCollapsesLiteralsAndInLists() {
+        assertThat(SqlShapes.shapeOf("select *\n  from ride where id in (?, ?, ?) and price < 12.5 and name = 'O''Neil'"))
+            .isEqualTo("select * from ride where id in (?...) and price < ? and name = ?");
+        assertThat(SqlShapes.shapeOf("select ride0_.id as id1_3_ from ride ride0_ where ride0_.id=?"))
+            .isEqualTo("select ride0_.id as id1_3_ from ride ride0_ where ride0_.id=?");
+    }
+
+    private Map<String, JdbcRecorder.StatementMetrics> statementsByShape() {
+        return recorder.getStatements().stream()
+            .collect(Collectors.toMap(JdbcRecorder.StatementMetrics::getShape, statement -> statement));
+    }
+}
@@ -0,0 +1,57 @@
+package de.projectride.ride.config.liquibase;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.service.util.GeoUtil;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the Liquibase change computing the geohash of the existing places.
+ *
+ * @see PlaceGeohashChange
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class PlaceGeohashChangeIntTest {
+
+    @Inject
+    private DataSource dataSource;
+
+    @Test
+    public void computeTheGeohashOfThePlacesWithout() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // places saved before the geohash column, with and without coordinates
+        jdbcTemplate.update("insert into place (city_name, latitude, longitude) values ('Mannheim', 49.4875, 8.4660)");
+        Long mannheim = jdbcTemplate.queryForObject("select max(id) from place", Long.class);
+        jdbcTemplate.update("insert into place (city_name) values ('Nowhere')");
+        Long nowhere = jdbcTemplate.queryForObject("select max(id) from place", Long.class);
+        try (Connection connection = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                .findCorrectDatabaseImplementation(new JdbcConnection(connection));
+
+            new PlaceGeohashChange().execute(database);
+            // as Liquibase does after each change set
+            database.commit();
+
+            assertThat(jdbcTemplate.queryForObject("select geohash from place where id = ?", String.class, mannheim))
+                .isEqualTo(GeoUtil.encode(49.4875, 8.4660, GeoUtil.GEOHASH_PRECISION));
+            assertThat(jdbcTemplate.queryForObject("select geohash from place where id = ?", String.class, nowhere))
+                .isNull();
+        } finally {
+            jdbcTemplate.update("delete from place where id in (?, ?)", mannheim, nowhere);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package de.projectride.ride.security.jwt;
+
+import de.projectride.ride.config.JHipsterProperties;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the TokenProvider, and its cache of the authentication of verified tokens.
+ *
+ * @see TokenProvider
+ */
+public class TokenProviderUnitTest {
+
+    private static final String SECRET = "140a6ee30aa734d05dbc912eddcaef5eedbfb331";
+
+    private MetricRegistry metricRegistry;
+
+    private TokenProvider tokenProvider;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        tokenProvider = createTokenProvider(2);
+    }
+
+    @Test
+    public void getValidAuthenticationVerifiesTokenOnce() {
+        String token = createToken("user", new Date(System.currentTimeMillis() + 60000));
+
+        Authentication authentication = tokenProvider.getValidAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("user");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_USER", "ROLE_ADMIN");
+        assertThat(tokenProvider.getValidAuthentication(token)).isSameAs(authentication);
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(metricRegistry.getTimers().get("de.projectride.ride.security.jwt.TokenProvider.parses").getCount())
+            .isEqualTo(1);
+        assertThat(metricRegistry.getMeters().get("de.projectride.ride.security.jwt.TokenProvider.cache.hits").getCount())
+            .isEqualTo(2);
+    }
+
+    @Test
+    public void getValidAuthenticationRejectsInvalidSignature() {
+        String token = Jwts.builder()
+            .setSubject("user")
+            .claim("auth", "ROLE_ADMIN")
+            .signWith(SignatureAlgorithm.HS512, "another secret")
+            .setExpiration(new Date(System.currentTimeMillis() + 60000))
+            .compact();
+
+        assertThat(tokenProvider.getValidAuthentication(token)).isNull();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(cache(tokenProvider)).isEmpty();
+    }
+
+    @Test
+    public void cachedTokenExpires() throws InterruptedException {
+        String token = createToken("user", new Date(System.currentTimeMillis() + 2000));
+        assertThat(tokenProvider.getValidAuthentication(token)).isNotNull();
+
+        Thread.sleep(2000);
+
+        try {
+            tokenProvider.getValidAuthentication(token);
+            fail("the expired token was authenticated");
+        } catch (ExpiredJwtException e) {
+            assertThat(e.getClaims().getSubject()).isEqualTo("user");
+        }
+        assertThat(cache(tokenProvider)).isEmpty();
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        for (int i = 0; i < 5; i++) {
+            assertThat(tokenProvider.getValidAuthentication(createToken("user" + i, expiration))).isNotNull();
+            assertThat(cache(tokenProvider).size()).isLessThanOrEqualTo(2);
+        }
+
+        TokenProvider uncachedTokenProvider = createTokenProvider(0);
+        assertThat(uncachedTokenProvider.getValidAuthentication(createToken("user", expiration))).isNotNull();
+        assertThat(cache(uncachedTokenProvider)).isEmpty();
+    }
+
+    @Test
+    public void fullCacheEvictsLeastRecentlyUsedToken() {
+        Date expiration = new Date(System.currentTimeMillis() + 60000);
+        String first = createToken("first", expiration);
+        String second = createToken("second", expiration);
+        tokenProvider.getValidAuthentication(first);
+        tokenProvider.getValidAuthentication(second);
+        tokenProvider.getValidAuthentication(first);
+
+        tokenProvider.getValidAuthentication(createToken("third", expiration));
+
+        assertThat(cache(tokenProvider)).hasSize(2).containsKey(first).doesNotContainKey(second);
+        tokenProvider.getValidAuthentication(first);
+        assertThat(metricRegistry.getTimers().get("de.projectride.ride.security.jwt.TokenProvider.parses").getCount())
+            .isEqualTo(3);
+    }
+
+    private TokenProvider createTokenProvider(int cacheMaxEntries) {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret(SECRET);
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setCacheMaxEntries(cacheMaxEntries);
+        TokenProvider tokenProvider = new TokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jHipsterProperties", jHipsterProperties);
+        ReflectionTestUtils.setField(tokenProvider, "metricRegistry", cacheMaxEntries > 0 ? metricRegistry : new MetricRegistry());
+        tokenProvider.init();
+        return tokenProvider;
+    }
+
+    private String createToken(String login, Date expiration) {
+        return Jwts.builder()
+            .setSubject(login)
+            .claim("auth", "ROLE_USER,ROLE_ADMIN")
+            .signWith(SignatureAlgorithm.HS512, SECRET)
+            .setExpiration(expiration)
+            .compact();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, ?> cache(TokenProvider tokenProvider) {
+        return ((Cache<String, ?>) ReflectionTestUtils.getField(tokenProvider, "authenticationCache")).asMap();
+    }
+}
@@ -0,0 +1,166 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.dto.BulkItemResultDTO;
+import de.projectride.ride.service.dto.BulkItemResultDTO.Status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the bulk operations of the RideService and PlaceService services.
+ *
+ * <p>
+ * The bulk operations commit a transaction per chunk, so the test is not transactional and removes its data
+ * afterwards.
+ * </p>
+ *
+ * @see BulkService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class BulkServiceIntTest {
+
+    private static final int NUMBER_OF_RIDES = 2000;
+
+    private final Logger log = LoggerFactory.getLogger(BulkServiceIntTest.class);
+
+    @Inject
+    private RideService rideService;
+
+    @Inject
+    private PlaceService placeService;
+
+    @Inject
+    private RideArchiveService rideArchiveService;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Ride> rides = new ArrayList<>();
+
+    @After
+    public void cleanUp() {
+        List<Long> rideIds = rides.stream().map(Ride::getId).filter(id -> id != null).collect(Collectors.toList());
+        rideService.deleteAll(rideIds);
+        // the deleted rides still reference their places, until they are archived
+        rideArchiveService.archiveDeleted(ZonedDateTime.now().plusMinutes(1));
+        placeService.deleteAll(rides.stream()
+            .flatMap(ride -> Arrays.asList(ride.getStartPlace(), ride.getEndPlace()).stream())
+            .map(Place::getId)
+            .filter(id -> id != null && id != Long.MAX_VALUE)
+            .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void saveAllRidesInJdbcBatches() {
+        for (int i = 0; i < NUMBER_OF_RIDES; i++) {
+            rides.add(createRide());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        List<BulkItemResultDTO> results = rideService.saveAll(rides);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int rows = NUMBER_OF_RIDES * 3;
+        log.info("Saved {} rides with their places, {} rows in {} ms, {} rows/s, {} statements prepared",
+            NUMBER_OF_RIDES, rows, elapsedMillis, rows * 1000L / Math.max(1, elapsedMillis),
+            statistics.getPrepareStatementCount());
+
+        assertThat(results).hasSize(NUMBER_OF_RIDES);
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsOnly(Status.CREATED);
+        assertThat(results.get(42).getIndex()).isEqualTo(42);
+        assertThat(results.get(42).getId()).isEqualTo(rides.get(42).getId());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(rows);
+        // the inserts are sent in batches, instead of one statement per row
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(rows / 10);
+        assertThat(rideRepository.findOne(rides.get(42).getId()).getStartPlace().getGeohash()).isNotNull();
+    }
+
+    @Test
+    public void saveAllReportsEachRide() {
+        rides.add(createRide());
+        rides.add(createRide().numberOfSeats(9));
+        // the place doesn't exist, which fails the chunk
+        rides.add(createRide().startPlace(placeWithId(Long.MAX_VALUE)));
+        rides.add(createRide());
+
+        long count = rideRepository.count();
+        List<BulkItemResultDTO> results = rideService.saveAll(rides);
+
+        assertThat(results).extracting(BulkItemResultDTO::getStatus)
+            .containsExactly(Status.CREATED, Status.INVALID, Status.FAILED, Status.CREATED);
+        assertThat(results.get(1).getErrors()).hasSize(1);
+        assertThat(results.get(1).getErrors().get(0)).startsWith("numberOfSeats");
+        assertThat(results.get(2).getErrors()).isNotEmpty();
+        // the valid rides of the failed chunk are saved again, only once
+        assertThat(rideRepository.count()).isEqualTo(count + 2);
+        for (int index : new int[] {0, 3}) {
+            rides.set(index, rideRepository.findOne(results.get(index).getId()));
+            assertThat(rides.get(index)).isNotNull();
+        }
+
+        Ride update = rides.get(0).description("updated");
+        rides.get(3).setVersion(null);
+        Ride unknown = createRide();
+        unknown.setId(Long.MAX_VALUE);
+        unknown.setVersion(0L);
+        assertThat(rideService.saveAll(Arrays.asList(update, rides.get(3), unknown)))
+            .extracting(BulkItemResultDTO::getStatus).containsExactly(Status.UPDATED, Status.INVALID, Status.NOT_FOUND);
+        assertThat(rideRepository.findOne(update.getId()).getDescription()).isEqualTo("updated");
+        // the ride with an unknown id isn't created with another id
+        assertThat(rideRepository.count()).isEqualTo(count + 2);
+    }
+
+    @Test
+    public void deleteAllReportsEachId() {
+        Ride ride = createRide();
+        rides.add(ride);
+        rideService.saveAll(rides);
+
+        List<BulkItemResultDTO> results = rideService.deleteAll(Arrays.asList(ride.getId(), Long.MAX_VALUE));
+
+        assertThat(results).extracting(BulkItemResultDTO::getStatus).containsExactly(Status.DELETED, Status.NOT_FOUND);
+        assertThat(rideRepository.exists(ride.getId())).isFalse();
+    }
+
+    private static Ride createRide() {
+        return new Ride()
+            .numberOfSeats(3)
+            .deleted(false)
+            .startDateTime(ZonedDateTime.now().plusDays(1))
+            .startPlace(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660))
+            .endPlace(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050));
+    }
+
+    private static Place placeWithId(Long id) {
+        Place place = new Place();
+        place.setId(id);
+        return place;
+    }
+}
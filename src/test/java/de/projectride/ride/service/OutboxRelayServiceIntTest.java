@@ -0,0 +1,108 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Car;
+import de.projectride.ride.domain.OutboxEvent;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.enumeration.EventType;
+import de.projectride.ride.repository.OutboxEventRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.inject.Inject;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the OutboxService and OutboxRelayService services. The changes are committed, as the events are
+ * only appended when their transaction commits.
+ *
+ * @see OutboxService
+ * @see OutboxRelayService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class OutboxRelayServiceIntTest {
+
+    @Inject
+    private OutboxRelayService outboxRelayService;
+
+    @Inject
+    private OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    private CarService carService;
+
+    @Inject
+    private PlaceService placeService;
+
+    @Inject
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private long lastSequence;
+
+    @Before
+    public void publishPreviousEvents() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        outboxRelayService.publishAll();
+        Long last = outboxEventRepository.findLastSequenceNumber();
+        lastSequence = last == null ? 0 : last;
+    }
+
+    @Test
+    public void publishCommittedChangesInOrder() {
+        Car car = carService.save(new Car().userId(1L).brand("AAAAA").model("AAAAA").color("AAAAA"));
+        carService.save(car.color("BBBBB"));
+        carService.delete(car.getId());
+        // a change which is rolled back gives no event
+        transactionTemplate.execute(status -> {
+            carService.save(new Car().userId(1L).brand("CCCCC"));
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(outboxEventRepository.findUnpublished(new PageRequest(0, 10))).hasSize(3);
+
+        // in two batches of the tests
+        assertThat(outboxRelayService.publishAll()).isEqualTo(3);
+
+        List<OutboxEvent> events = outboxEventRepository.findBySequenceNumberGreaterThanOrderBySequenceNumber(
+            lastSequence, new PageRequest(0, 10));
+        assertThat(events).extracting(OutboxEvent::getSequenceNumber)
+            .containsExactly(lastSequence + 1, lastSequence + 2, lastSequence + 3);
+        assertThat(events).extracting(OutboxEvent::getEventType)
+            .containsExactly(EventType.CREATED, EventType.UPDATED, EventType.DELETED);
+        assertThat(events).extracting(OutboxEvent::getAggregateType).containsOnly("Car");
+        assertThat(events).extracting(OutboxEvent::getAggregateId).containsOnly(car.getId());
+        assertThat(events.get(0).getPayload()).contains("\"color\":\"AAAAA\"");
+        assertThat(events.get(1).getPayload()).contains("\"color\":\"BBBBB\"");
+        assertThat(events.get(2).getPayload()).isNull();
+        assertThat(events).extracting(OutboxEvent::getPublishedAt).doesNotContainNull();
+        assertThat(outboxEventRepository.findUnpublished(new PageRequest(0, 10))).isEmpty();
+    }
+
+    @Test
+    public void appendOneEventPerEntityAndTransaction() {
+        Place place = transactionTemplate.execute(status -> {
+            Place created = placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660));
+            return placeService.save(created.cityName("Heidelberg"));
+        });
+
+        List<OutboxEvent> events = outboxEventRepository.findUnpublished(new PageRequest(0, 10));
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getAggregateType()).isEqualTo("Place");
+        assertThat(events.get(0).getEventType()).isEqualTo(EventType.CREATED);
+        assertThat(events.get(0).getPayload()).contains("\"cityName\":\"Heidelberg\"");
+
+        placeService.delete(place.getId());
+    }
+}
@@ -0,0 +1,168 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Reservation;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.ReservationRepository;
+import de.projectride.ride.repository.RideRepository;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ReservationService service.
+ *
+ * <p>
+ * The seats are reserved from concurrent threads, each in its own committed transaction, so the test is not
+ * transactional and removes its data afterwards. Their throughput is measured by the ReservationThroughputBenchmark
+ * of src/jmh.
+ * </p>
+ *
+ * @see ReservationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class ReservationServiceIntTest {
+
+    private static final int THREADS = 64;
+
+    private static final int SEATS = 7;
+
+    @Inject
+    private ReservationService reservationService;
+
+    @Inject
+    private ReservationRepository reservationRepository;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Ride> rides = new ArrayList<>();
+
+    @After
+    public void cleanUp() {
+        for (Ride ride : rides) {
+            jdbcTemplate.update("delete from reservation where ride_id = ?", ride.getId());
+            // marked as deleted first, which evicts it from the caches, as the repository doesn't delete the row
+            rideRepository.delete(ride.getId());
+            jdbcTemplate.update("delete from ride where id = ?", ride.getId());
+        }
+    }
+
+    @Test
+    public void reserveSeatFrom64ThreadsNeverOverbooks() throws Exception {
+        Ride ride = createRide();
+        AtomicInteger full = new AtomicInteger();
+
+        List<Reservation> reservations = reserveConcurrently(THREADS, passenger -> {
+            try {
+                return reservationService.reserveSeat(ride.getId(), passenger);
+            } catch (NoSeatAvailableException e) {
+                full.incrementAndGet();
+                return null;
+            }
+        });
+
+        assertThat(reservations).hasSize(SEATS);
+        assertThat(full.get()).isEqualTo(THREADS - SEATS);
+        assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(SEATS);
+        assertThat(reservationRepository.findAll().stream()
+            .filter(reservation -> reservation.getRide() != null && ride.getId().equals(reservation.getRide().getId()))
+            .count()).isEqualTo(SEATS);
+    }
+
+    @Test
+    public void saveTakesAndReleasesSeats() {
+        Ride ride = createRide();
+        Reservation reservation = reservationService.save(new Reservation().passengerId(1L).cancled(false).ride(ride));
+        assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(1);
+
+        reservationService.save(reservation.cancled(true));
+        assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(0);
+
+        reservation = reservationService.save(reservation.cancled(false));
+        assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(1);
+
+        reservationService.delete(reservation.getId());
+        assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(0);
+    }
+
+    @Test
+    public void reserveSeatKeepsTheVersionOfTheRide() {
+        Ride ride = createRide();
+        Long version = ride.getVersion();
+
+        reservationService.reserveSeat(ride.getId(), 1L);
+
+        Ride reserved = rideRepository.findOne(ride.getId());
+        assertThat(reserved.getVersion()).isEqualTo(version);
+        assertThat(reserved.getSeatsVersion()).isEqualTo(ride.getSeatsVersion() + 1);
+        // the driver updates the ride read before the reservation, without conflict, nor releasing the seat
+        rideRepository.saveAndFlush(ride.description("Updated"));
+        assertThat(rideRepository.findOne(ride.getId()).getDescription()).isEqualTo("Updated");
+        assertThat(rideRepository.findOne(ride.getId()).getSeatsTaken()).isEqualTo(1);
+    }
+
+    private Ride createRide() {
+        Ride ride = rideRepository.saveAndFlush(new Ride().numberOfSeats(SEATS).deleted(false));
+        rides.add(ride);
+        return ride;
+    }
+
+    /**
+     * Reserve seats from {@link #THREADS} threads, all started at once.
+     *
+     * @return the successful reservations
+     */
+    private List<Reservation> reserveConcurrently(int attempts, PassengerReservation reservation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch startSignal = new CountDownLatch(1);
+            List<Future<Reservation>> futures = new ArrayList<>();
+            for (long passenger = 0; passenger < attempts; passenger++) {
+                long passengerId = passenger;
+                futures.add(executor.submit((Callable<Reservation>) () -> {
+                    startSignal.await();
+                    return reservation.reserve(passengerId);
+                }));
+            }
+            startSignal.countDown();
+            List<Reservation> reservations = new ArrayList<>();
+            for (Future<Reservation> future : futures) {
+                Reservation result = future.get(1, TimeUnit.MINUTES);
+                if (result != null) {
+                    reservations.add(result);
+                }
+            }
+            return reservations;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PassengerReservation {
+
+        Reservation reserve(long passengerId);
+    }
+}
@@ -0,0 +1,161 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Reservation;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.PlaceRepository;
+import de.projectride.ride.repository.ReservationRepository;
+import de.projectride.ride.repository.RideRepository;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RideArchiveService service.
+ *
+ * @see RideArchiveService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+@Transactional
+public class RideArchiveServiceIntTest {
+
+    @Inject
+    private RideArchiveService rideArchiveService;
+
+    @Inject
+    private RideService rideService;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private ReservationRepository reservationRepository;
+
+    @Inject
+    private PlaceRepository placeRepository;
+
+    @Inject
+    private EntityManager em;
+
+    @Test
+    public void archiveRidesDeletedBeforeTheRetention() {
+        ZonedDateTime now = ZonedDateTime.now();
+        // more rides than the batch size of the tests, with a reservation each
+        List<Long> oldIds = new ArrayList<>();
+        List<Long> reservationIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Ride ride = rideRepository.save(new Ride().numberOfSeats(3));
+            reservationIds.add(reservationRepository.save(new Reservation().passengerId(1L).ride(ride)).getId());
+            oldIds.add(ride.getId());
+        }
+        Ride recentlyDeleted = rideRepository.save(new Ride().numberOfSeats(3));
+        Ride live = rideRepository.save(new Ride().numberOfSeats(3));
+        em.flush();
+        em.clear();
+        oldIds.forEach(rideService::delete);
+        rideService.delete(recentlyDeleted.getId());
+        em.flush();
+        em.createNativeQuery("update ride set deleted_at = :deletedAt where id in (:ids)")
+            .setParameter("deletedAt", Timestamp.from(now.minusDays(40).toInstant()))
+            .setParameter("ids", oldIds)
+            .executeUpdate();
+
+        int archived = rideArchiveService.archiveDeleted(now.minusDays(30));
+
+        assertThat(archived).isEqualTo(oldIds.size());
+        assertThat(count("select count(*) from ride where id in (:ids)", oldIds)).isEqualTo(0);
+        assertThat(count("select count(*) from ride_archive where id in (:ids)", oldIds)).isEqualTo(oldIds.size());
+        assertThat(count("select count(*) from reservation where id in (:ids)", reservationIds)).isEqualTo(0);
+        assertThat(count("select count(*) from reservation_archive where id in (:ids)", reservationIds))
+            .isEqualTo(reservationIds.size());
+        // the ride deleted within the retention stays, as well as the live one
+        assertThat(count("select count(*) from ride where id = :ids", recentlyDeleted.getId())).isEqualTo(1);
+        assertThat(rideRepository.findOne(live.getId())).isNotNull();
+        assertThat(rideRepository.findOne(recentlyDeleted.getId())).isNull();
+        // deleted rides can't be read from the archive
+        assertThat(rideArchiveService.findArchived(oldIds.get(0))).isNull();
+    }
+
+    @Test
+    public void archiveRidesStartedBeforeTheRetention() {
+        ZonedDateTime now = ZonedDateTime.now();
+        Ride completed = rideRepository.save(new Ride().numberOfSeats(3).description("completed")
+            .startDateTime(now.minusDays(10)));
+        Reservation reservation = reservationRepository.save(new Reservation().passengerId(1L).ride(completed));
+        Ride recentlyStarted = rideRepository.save(new Ride().numberOfSeats(3).startDateTime(now.minusDays(1)));
+        Ride upcoming = rideRepository.save(new Ride().numberOfSeats(3).startDateTime(now.plusDays(1)));
+        em.flush();
+        em.clear();
+
+        rideArchiveService.archiveCompleted(now.minusDays(7));
+
+        assertThat(rideRepository.findOne(completed.getId())).isNull();
+        assertThat(reservationRepository.findOne(reservation.getId())).isNull();
+        assertThat(count("select count(*) from reservation_archive where ride_id = :ids", completed.getId()))
+            .isEqualTo(1);
+        assertThat(rideRepository.findOne(recentlyStarted.getId())).isNotNull();
+        assertThat(rideRepository.findOne(upcoming.getId())).isNotNull();
+        // the archived ride is still read by id
+        Ride archived = rideService.findOne(completed.getId());
+        assertThat(archived.getDescription()).isEqualTo("completed");
+        assertThat(archived.getNumberOfSeats()).isEqualTo(3);
+    }
+
+    @Test
+    public void findArchivedRideWithDeletedPlaces() {
+        ZonedDateTime now = ZonedDateTime.now();
+        Place startPlace = placeRepository.save(new Place().cityName("Mannheim"));
+        Place endPlace = placeRepository.save(new Place().cityName("Berlin"));
+        Ride completed = rideRepository.save(new Ride().numberOfSeats(3).description("completed")
+            .startDateTime(now.minusDays(10)).startPlace(startPlace).endPlace(endPlace));
+        em.flush();
+        em.clear();
+        rideArchiveService.archiveCompleted(now.minusDays(7));
+        // ride_archive has no foreign key to the place
+        em.createNativeQuery("delete from place where id = :id").setParameter("id", startPlace.getId()).executeUpdate();
+        em.clear();
+
+        Ride archived = rideArchiveService.findArchived(completed.getId());
+
+        assertThat(archived.getDescription()).isEqualTo("completed");
+        assertThat(archived.getStartPlace()).isNull();
+        assertThat(archived.getEndPlace().getCityName()).isEqualTo("Berlin");
+    }
+
+    @Test
+    public void reorganizePmaxSplitsTheNextMonths() {
+        assertThat(RideArchiveService.reorganizePmax("ride_archive", YearMonth.of(2017, 12), YearMonth.of(2017, 12),
+            YearMonth.of(2018, 2))).isEqualTo("ALTER TABLE ride_archive REORGANIZE PARTITION pmax INTO (" +
+            "PARTITION p201801 VALUES LESS THAN (UNIX_TIMESTAMP('2018-02-01 00:00:00')), " +
+            "PARTITION p201802 VALUES LESS THAN (UNIX_TIMESTAMP('2018-03-01 00:00:00')), " +
+            "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        // months without partition are merged into the one of the current month
+        assertThat(RideArchiveService.reorganizePmax("ride_archive", YearMonth.of(2017, 12), YearMonth.of(2019, 5),
+            YearMonth.of(2019, 5))).isEqualTo("ALTER TABLE ride_archive REORGANIZE PARTITION pmax INTO (" +
+            "PARTITION p201905 VALUES LESS THAN (UNIX_TIMESTAMP('2019-06-01 00:00:00')), " +
+            "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        assertThat(RideArchiveService.reorganizePmax("ride_archive", YearMonth.of(2018, 2), YearMonth.of(2017, 12),
+            YearMonth.of(2018, 2))).isNull();
+        // the tables aren't partitioned on H2
+        rideArchiveService.addArchivePartitions();
+    }
+
+    private long count(String sql, Object ids) {
+        return ((Number) em.createNativeQuery(sql).setParameter("ids", ids).getSingleResult()).longValue();
+    }
+}
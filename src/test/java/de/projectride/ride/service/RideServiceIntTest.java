@@ -0,0 +1,227 @@
+package de.projectride.ride.service;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.dto.RideSummaryDTO;
+import de.projectride.ride.service.util.GeoUtil;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RideService service.
+ *
+ * @see RideService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+@Transactional
+public class RideServiceIntTest {
+
+    private static final int NUMBER_OF_RIDES = 2000;
+
+    private final Logger log = LoggerFactory.getLogger(RideServiceIntTest.class);
+
+    @Inject
+    private RideService rideService;
+
+    @Inject
+    private PlaceService placeService;
+
+    @Inject
+    private RideIndexService rideIndexService;
+
+    @Inject
+    private RideRepository rideRepository;
+
+    @Inject
+    private EntityManager em;
+
+    @Test
+    public void findNearbyMatchesBruteForceSearch() {
+        // Rides starting all over Germany
+        Random random = new Random(42);
+        for (int i = 0; i < NUMBER_OF_RIDES; i++) {
+            Place startPlace = placeService.save(new Place()
+                .latitude(47.5 + random.nextDouble() * 7)
+                .longitude(6 + random.nextDouble() * 9));
+            rideRepository.save(new Ride().deleted(false).numberOfSeats(3).startPlace(startPlace));
+        }
+        em.flush();
+        em.clear();
+
+        double latitude = 49.4875;
+        double longitude = 8.4660;
+        double radiusKm = 25;
+
+        Set<Long> bruteForce = rideRepository.findAll().stream()
+            .filter(ride -> ride.getStartPlace() != null && ride.getStartPlace().getLatitude() != null)
+            .filter(ride -> GeoUtil.distanceKm(latitude, longitude,
+                ride.getStartPlace().getLatitude(), ride.getStartPlace().getLongitude()) <= radiusKm)
+            .map(Ride::getId)
+            .collect(Collectors.toSet());
+        em.clear();
+
+        Page<Ride> page = rideService.findNearby(latitude, longitude, radiusKm, new PageRequest(0, NUMBER_OF_RIDES));
+        List<Ride> nearby = page.getContent();
+        assertThat(bruteForce).isNotEmpty();
+        assertThat(nearby.stream().map(Ride::getId).collect(Collectors.toSet())).isEqualTo(bruteForce);
+        for (int i = 1; i < nearby.size(); i++) {
+            assertThat(distanceToStart(nearby.get(i), latitude, longitude))
+                .isGreaterThanOrEqualTo(distanceToStart(nearby.get(i - 1), latitude, longitude));
+        }
+
+        // a page is read from the nearest rides of each cell up to its end, and counts all the rides
+        Page<Ride> second = rideService.findNearby(latitude, longitude, radiusKm, new PageRequest(1, 3));
+        assertThat(second.getTotalElements()).isEqualTo(bruteForce.size());
+        assertThat(second.getContent()).extracting(Ride::getId)
+            .containsExactlyElementsOf(nearby.subList(Math.min(3, nearby.size()), Math.min(6, nearby.size())).stream()
+                .map(Ride::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void rebuildIndexesUpcomingRides() {
+        Place mannheim = placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660));
+        Place berlin = placeService.save(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050));
+        ZonedDateTime tomorrow = ZonedDateTime.now().plusDays(1);
+        Ride upcomingRide = rideRepository.save(new Ride().startDateTime(tomorrow)
+            .flexibleStartPlace(5).flexibleEndPlace(5).startPlace(mannheim).endPlace(berlin));
+        Place heidelberg = placeService.save(new Place().cityName("Heidelberg").latitude(49.3988).longitude(8.6724));
+        Place munich = placeService.save(new Place().cityName("Munich").latitude(48.1351).longitude(11.5820));
+        Ride pastRide = rideRepository.save(new Ride().startDateTime(tomorrow.minusDays(2))
+            .flexibleStartPlace(5).flexibleEndPlace(5).startPlace(heidelberg).endPlace(munich));
+        em.flush();
+
+        rideIndexService.rebuild();
+        // the rides are read aside, without clearing the persistence context of the test
+        assertThat(em.contains(upcomingRide)).isTrue();
+
+        assertThat(rideIndexService.findMatchingRideIds(49.49, 8.47, 52.52, 13.41, tomorrow.plusHours(1), Duration.ofHours(2)))
+            .containsExactly(upcomingRide.getId());
+        assertThat(rideIndexService.findMatchingRideIds(49.3988, 8.6724, 48.1351, 11.5820, tomorrow.minusDays(2), Duration.ofHours(2)))
+            .doesNotContain(pastRide.getId());
+
+        rideIndexService.remove(upcomingRide.getId());
+        assertThat(rideIndexService.findMatchingRideIds(49.49, 8.47, 52.52, 13.41, tomorrow, Duration.ofHours(2))).isEmpty();
+    }
+
+    @Test
+    public void updatePlaceIndexesItsRidesAgain() {
+        Place mannheim = placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660));
+        Place berlin = placeService.save(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050));
+        ZonedDateTime tomorrow = ZonedDateTime.now().plusDays(1);
+        Ride ride = rideRepository.save(new Ride().startDateTime(tomorrow)
+            .flexibleStartPlace(5).flexibleEndPlace(5).startPlace(mannheim).endPlace(berlin));
+        em.flush();
+        rideIndexService.update(ride);
+
+        // the start place moves to Heidelberg, without updating the ride
+        placeService.save(mannheim.cityName("Heidelberg").latitude(49.3988).longitude(8.6724));
+        em.flush();
+        // as once the place is committed
+        rideIndexService.updatePlace(mannheim.getId());
+
+        assertThat(rideIndexService.findMatchingRideIds(49.3988, 8.6724, 52.52, 13.41, tomorrow, Duration.ofHours(2)))
+            .containsExactly(ride.getId());
+        assertThat(rideIndexService.findMatchingRideIds(49.49, 8.47, 52.52, 13.41, tomorrow, Duration.ofHours(2)))
+            .isEmpty();
+        rideIndexService.remove(ride.getId());
+    }
+
+    @Test
+    public void listingStatementCountDoesNotDependOnPageSize() {
+        for (int i = 0; i < 1000; i++) {
+            Place startPlace = placeService.save(new Place().cityName("Listing Start").latitude(49.4875).longitude(8.4660));
+            Place endPlace = placeService.save(new Place().cityName("Listing End").latitude(52.5200).longitude(13.4050));
+            rideRepository.save(new Ride().deleted(false).numberOfSeats(3).price(10f)
+                .startDateTime(ZonedDateTime.now().plusDays(1)).startPlace(startPlace).endPlace(endPlace));
+        }
+        em.flush();
+
+        long searchTen = countStatements(() -> assertThat(rideService.search("Listing Start", null, null, null,
+            null, null, null, null, new PageRequest(0, 10)).getContent()).hasSize(10));
+        long searchThousand = countStatements(() -> assertThat(rideService.search("Listing Start", null, null, null,
+            null, null, null, null, new PageRequest(0, 1000)).getContent())
+            .extracting(ride -> ride.getEndPlace().getCityName()).containsOnly("Listing End"));
+        long summariesTen = countStatements(() -> assertThat(rideService.searchSummaries("Listing Start", null, null,
+            null, null, null, null, null, new PageRequest(0, 10)).getContent()).hasSize(10));
+        long summariesThousand = countStatements(() -> assertThat(rideService.searchSummaries("Listing Start", null,
+            null, null, null, null, null, null, new PageRequest(0, 1000)).getContent())
+            .extracting(RideSummaryDTO::getEndCityName).containsOnly("Listing End"));
+        int count = (int) rideRepository.count();
+        long all = countStatements(() -> assertThat(rideService.findAll()).hasSize(count));
+        log.info("Statements for a page of 10 and 1000 rides: search {} and {}, summaries {} and {}, find all {}",
+            searchTen, searchThousand, summariesTen, summariesThousand, all);
+
+        // the page query and the count query, whatever the page size
+        assertThat(searchThousand).isEqualTo(searchTen).isLessThanOrEqualTo(2);
+        assertThat(summariesThousand).isEqualTo(summariesTen).isLessThanOrEqualTo(2);
+        assertThat(all).isEqualTo(1);
+    }
+
+    /**
+     * Count the statements prepared by the given listing, with empty caches.
+     */
+    private long countStatements(Runnable listing) {
+        em.clear();
+        SessionFactory sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        listing.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void exportDetachesExportedRides() {
+        for (int i = 0; i < 100; i++) {
+            Place startPlace = placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660));
+            rideRepository.save(new Ride().deleted(false).numberOfSeats(3).startPlace(startPlace));
+        }
+        em.flush();
+        em.clear();
+        long count = rideRepository.count();
+        em.clear();
+
+        List<Long> ids = new ArrayList<>();
+        List<Integer> managedEntities = new ArrayList<>();
+        rideService.export(ride -> {
+            ids.add(ride.getId());
+            managedEntities.add(em.unwrap(Session.class).getStatistics().getEntityCount());
+        });
+
+        assertThat(ids).hasSize((int) count);
+        assertThat(ids).isSorted();
+        // the ride being exported and its places, never the rides exported before
+        assertThat(managedEntities.stream().mapToInt(Integer::intValue).max().getAsInt()).isLessThanOrEqualTo(3);
+    }
+
+    private static double distanceToStart(Ride ride, double latitude, double longitude) {
+        return GeoUtil.distanceKm(latitude, longitude,
+            ride.getStartPlace().getLatitude(), ride.getStartPlace().getLongitude());
+    }
+}
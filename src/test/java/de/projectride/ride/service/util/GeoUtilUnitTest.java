@@ -0,0 +1,55 @@
+package de.projectride.ride.service.util;
+
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for the GeoUtil utility class.
+ *
+ * @see GeoUtil
+ */
+public class GeoUtilUnitTest {
+
+    @Test
+    public void encodeKnownGeohash() {
+        assertThat(GeoUtil.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(GeoUtil.encode(-25.382708, -49.265506, 8)).isEqualTo("6gkzwgjz");
+    }
+
+    @Test
+    public void distanceBetweenCities() {
+        // Mannheim to Berlin
+        assertThat(GeoUtil.distanceKm(49.4875, 8.4660, 52.5200, 13.4050)).isCloseTo(487, within(5d));
+        assertThat(GeoUtil.distanceKm(49.4875, 8.4660, 49.4875, 8.4660)).isEqualTo(0);
+    }
+
+    @Test
+    public void coveringCellsContainEveryPointOfTheCircle() {
+        double latitude = 49.4875;
+        double longitude = 8.4660;
+        double radiusKm = 5;
+        Set<String> cells = GeoUtil.coveringCells(latitude, longitude, radiusKm);
+        int precision = GeoUtil.coveringPrecision(latitude, radiusKm);
+
+        assertThat(cells).hasSize(9).contains(GeoUtil.encode(latitude, longitude, precision));
+        for (int bearing = 0; bearing < 360; bearing += 15) {
+            // a point just inside the circle, in the given direction
+            double dLat = Math.cos(Math.toRadians(bearing)) * 0.999 * radiusKm / 111.195;
+            double dLon = Math.sin(Math.toRadians(bearing)) * 0.999 * radiusKm / (111.195 * Math.cos(Math.toRadians(latitude)));
+            String cell = GeoUtil.encode(latitude + dLat, longitude + dLon, precision);
+            assertThat(cells).contains(cell);
+        }
+    }
+
+    @Test
+    public void coveringCellsWrapAroundTheAntimeridian() {
+        Set<String> cells = GeoUtil.coveringCells(0, 179.99, 10);
+        int precision = GeoUtil.coveringPrecision(0, 10);
+
+        assertThat(cells).contains(GeoUtil.encode(0, -179.99, precision));
+    }
+}
@@ -0,0 +1,141 @@
+package de.projectride.ride.service.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the RideIndex data structure.
+ *
+ * @see RideIndex
+ */
+public class RideIndexUnitTest {
+
+    private static final long NOON = 1_500_000_000L;
+
+    private static final long TWO_HOURS = 2 * 3600;
+
+    private static final RideIndex.MatchScorer SCORER =
+        (detourKm, deviationSeconds, price) -> detourKm + deviationSeconds / 360.0 + price;
+
+    private RideIndex rideIndex;
+
+    @Before
+    public void initTest() {
+        rideIndex = new RideIndex();
+        // Mannheim to Berlin at noon, 5 km detour at both ends
+        rideIndex.put(1L, 49.4875, 8.4660, 52.5200, 13.4050, NOON, 5, 5, 10f);
+    }
+
+    @Test
+    public void queryMatchesWithinDetourAndWindow() {
+        assertThat(rideIndex.query(49.49, 8.47, 52.52, 13.41, NOON + 3600, TWO_HOURS)).containsExactly(1L);
+        assertThat(rideIndex.query(49.49, 8.47, 52.52, 13.41, NOON - TWO_HOURS, TWO_HOURS)).containsExactly(1L);
+    }
+
+    @Test
+    public void queryIgnoresRidesOutsideWindow() {
+        assertThat(rideIndex.query(49.49, 8.47, 52.52, 13.41, NOON + TWO_HOURS + 1, TWO_HOURS)).isEmpty();
+    }
+
+    @Test
+    public void queryIgnoresRidesBeyondDetour() {
+        // Heidelberg is about 18 km away from Mannheim
+        assertThat(rideIndex.query(49.3988, 8.6724, 52.52, 13.41, NOON, TWO_HOURS)).isEmpty();
+        assertThat(rideIndex.query(49.49, 8.47, 48.1351, 11.5820, NOON, TWO_HOURS)).isEmpty();
+    }
+
+    @Test
+    public void putReplacesAndRemoveDeletes() {
+        rideIndex.put(1L, 49.4875, 8.4660, 52.5200, 13.4050, NOON + 10 * TWO_HOURS, 5, 5, 10f);
+        assertThat(rideIndex.size()).isEqualTo(1);
+        assertThat(rideIndex.query(49.49, 8.47, 52.52, 13.41, NOON, TWO_HOURS)).isEmpty();
+
+        assertThat(rideIndex.remove(1L)).isTrue();
+        assertThat(rideIndex.remove(1L)).isFalse();
+        assertThat(rideIndex.size()).isEqualTo(0);
+        assertThat(rideIndex.contains(1L)).isFalse();
+    }
+
+    @Test
+    public void growsAndReusesSlots() {
+        for (long id = 2; id < 5000; id++) {
+            rideIndex.put(id, 49.4875, 8.4660, 52.5200, 13.4050, NOON + id * 60, 5, 5, 10f);
+        }
+        assertThat(rideIndex.size()).isEqualTo(4999);
+        assertThat(rideIndex.removeStartingBefore(NOON + 100 * 60)).isEqualTo(99);
+        rideIndex.put(10000L, 49.4875, 8.4660, 52.5200, 13.4050, NOON + 101 * 60, 5, 5, 10f);
+
+        assertThat(rideIndex.size()).isEqualTo(4901);
+        assertThat(rideIndex.query(49.49, 8.47, 52.52, 13.41, NOON + 100 * 60, 90)).containsOnly(100L, 101L, 10000L);
+    }
+
+    @Test
+    public void matchRanksByScoreAndKeepsTheBest() {
+        // Ludwigshafen, about 2 km from Mannheim, an hour later, cheaper
+        rideIndex.put(2L, 49.4774, 8.4452, 52.5200, 13.4050, NOON + 3600, 5, 5, 5f);
+        rideIndex.put(3L, 49.4875, 8.4660, 52.5200, 13.4050, NOON, 5, 5, 30f);
+        // too far from the requested start
+        rideIndex.put(4L, 49.3988, 8.6724, 52.5200, 13.4050, NOON, 5, 5, 1f);
+
+        List<RideIndex.Match> matches = rideIndex.match(49.4875, 8.4660, 52.52, 13.405, NOON, TWO_HOURS, 2,
+            SCORER, Runnable::run);
+
+        assertThat(matches).extracting(RideIndex.Match::getId).containsExactly(1L, 2L);
+        assertThat(matches.get(0).getDetourKm()).isLessThan(0.01);
+        assertThat(matches.get(1).getDeviationSeconds()).isEqualTo(3600);
+        assertThat(matches.get(1).getScore()).isGreaterThan(matches.get(0).getScore());
+    }
+
+    @Test
+    public void matchScoresLargeWindowsInParallel() {
+        for (long id = 2; id <= RideIndex.PARALLEL_THRESHOLD * 2; id++) {
+            rideIndex.put(id, 49.4875, 8.4660, 52.5200, 13.4050, NOON + id % 3600, 5, 5, id % 100);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Double> parallel = rideIndex.match(49.4875, 8.4660, 52.52, 13.405, NOON, TWO_HOURS, 20, SCORER,
+                executor).stream().map(RideIndex.Match::getScore).collect(Collectors.toList());
+            // with an executor rejecting every chunk, they are all scored by the calling thread
+            List<Double> rejected = rideIndex.match(49.4875, 8.4660, 52.52, 13.405, NOON, TWO_HOURS, 20, SCORER,
+                command -> {
+                    throw new RejectedExecutionException();
+                }).stream().map(RideIndex.Match::getScore).collect(Collectors.toList());
+
+            assertThat(parallel).hasSize(20).isEqualTo(rejected).isSorted();
+            // the free rides starting at noon
+            assertThat(parallel.get(0)).isLessThan(0.01);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void matchFailsWhenTheScorerThrowsInParallel() {
+        for (long id = 2; id <= RideIndex.PARALLEL_THRESHOLD * 2; id++) {
+            rideIndex.put(id, 49.4875, 8.4660, 52.5200, 13.4050, NOON + id % 3600, 5, 5, id % 100);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            rideIndex.match(49.4875, 8.4660, 52.52, 13.405, NOON, TWO_HOURS, 20, (detourKm, deviationSeconds, price) -> {
+                throw new IllegalStateException("no price");
+            }, executor);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("no price");
+        } finally {
+            executor.shutdownNow();
+        }
+        // the read lock is released
+        rideIndex.remove(2);
+        assertThat(rideIndex.contains(2)).isFalse();
+    }
+}
@@ -0,0 +1,99 @@
+package de.projectride.ride.service.util;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the SingleFlight utility class.
+ *
+ * @see SingleFlight
+ */
+public class SingleFlightUnitTest {
+
+    private static final int CALLERS = 8;
+
+    private MetricRegistry metricRegistry;
+
+    private SingleFlight<Long, String> singleFlight;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        singleFlight = new SingleFlight<>(metricRegistry, "test");
+    }
+
+    @Test
+    public void concurrentCallsShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.load(1L, key -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "ride " + key;
+            })));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 1; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.load(1L, key -> {
+                    loads.incrementAndGet();
+                    return "reloaded";
+                })));
+            }
+            while (metricRegistry.meter("test.coalesced").getCount() < CALLERS - 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("ride 1");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(metricRegistry.meter("test.loads").getCount()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the load is over, so the next call loads again
+        assertThat(singleFlight.load(1L, key -> "reloaded")).isEqualTo("reloaded");
+        assertThat(metricRegistry.meter("test.loads").getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void failedLoadIsNotKept() {
+        try {
+            singleFlight.load(1L, key -> {
+                throw new IllegalStateException("database unavailable");
+            });
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage("database unavailable");
+        }
+        assertThat(singleFlight.load(1L, key -> "ride " + key)).isEqualTo("ride 1");
+        assertThat(singleFlight.load(2L, key -> null)).isNull();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -12,9 +12,11 @@ import org.junit.runner.RunWith;
 import static org.hamcrest.Matchers.hasItem;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
@@ -156,6 +158,36 @@ public class CarResourceIntTest {
             .andExpect(jsonPath("$.color").value(DEFAULT_COLOR.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getCarNotModified() throws Exception {
+        // Initialize the database
+        carRepository.saveAndFlush(car);
+
+        // Get the car, with its version
+        MockHttpServletResponse response = restCarMockMvc.perform(get("/api/cars/{id}", car.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + car.getVersion() + "\""))
+            .andReturn().getResponse();
+        String eTag = response.getHeader(HttpHeaders.ETAG);
+        String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // Get it again, if it was modified
+        restCarMockMvc.perform(get("/api/cars/{id}", car.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+        restCarMockMvc.perform(get("/api/cars/{id}", car.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+
+        // Update the car, which changes its version
+        carService.save(carRepository.findOne(car.getId()).brand(UPDATED_BRAND));
+        em.flush();
+        restCarMockMvc.perform(get("/api/cars/{id}", car.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.brand").value(UPDATED_BRAND));
+    }
+
     @Test
     @Transactional
     public void getNonExistingCar() throws Exception {
@@ -195,6 +227,20 @@ public class CarResourceIntTest {
         assertThat(testCar.getColor()).isEqualTo(UPDATED_COLOR);
     }
 
+    @Test
+    @Transactional
+    public void updateCarWithoutVersion() throws Exception {
+        // Initialize the database
+        carService.save(car);
+        em.detach(car);
+        car.setVersion(null);
+
+        restCarMockMvc.perform(put("/api/cars")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(car)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void deleteCar() throws Exception {
@@ -0,0 +1,157 @@
+package de.projectride.ride.web.rest;
+
+import de.projectride.ride.RideApp;
+import de.projectride.ride.domain.Car;
+import de.projectride.ride.repository.OutboxEventRepository;
+import de.projectride.ride.service.CarService;
+import de.projectride.ride.service.EventStreamService;
+import de.projectride.ride.service.OutboxRelayService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the EventResource REST controller. The changes are committed and published, as they are streamed
+ * once published.
+ *
+ * @see EventResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = RideApp.class)
+public class EventResourceIntTest {
+
+    @Inject
+    private EventStreamService eventStreamService;
+
+    @Inject
+    private OutboxRelayService outboxRelayService;
+
+    @Inject
+    private OutboxEventRepository outboxEventRepository;
+
+    @Inject
+    private CarService carService;
+
+    @Inject
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private MockMvc restEventMockMvc;
+
+    private long lastSequence;
+
+    @PostConstruct
+    public void setup() {
+        EventResource eventResource = new EventResource();
+        ReflectionTestUtils.setField(eventResource, "eventStreamService", eventStreamService);
+        this.restEventMockMvc = MockMvcBuilders.standaloneSetup(eventResource)
+            .setMessageConverters(new StringHttpMessageConverter(), jacksonMessageConverter).build();
+    }
+
+    @Before
+    public void publishPreviousEvents() {
+        outboxRelayService.publishAll();
+        Long last = outboxEventRepository.findLastSequenceNumber();
+        lastSequence = last == null ? 0 : last;
+    }
+
+    @Test
+    public void resumeStreamAfterLastEventId() throws Exception {
+        Car car = carService.save(new Car().userId(1L).brand("AAAAA"));
+        carService.save(car.brand("BBBBB"));
+        carService.delete(car.getId());
+        outboxRelayService.publishAll();
+
+        // resumed after the creation, the update and the deletion are sent
+        MockHttpServletResponse response = restEventMockMvc.perform(get("/api/events")
+            .header("Last-Event-ID", lastSequence + 1))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+
+        String stream = awaitEvents(response, 2);
+        assertThat(response.getContentType()).startsWith("text/event-stream");
+        assertThat(stream).doesNotContain("id:" + (lastSequence + 1) + "\n");
+        assertThat(stream).contains("id:" + (lastSequence + 2) + "\nevent:Car\ndata:");
+        assertThat(stream).contains("\"type\":\"UPDATED\"");
+        assertThat(stream).contains("\"brand\":\"BBBBB\"");
+        assertThat(stream).contains("id:" + (lastSequence + 3) + "\nevent:Car\ndata:");
+        assertThat(stream).contains("\"type\":\"DELETED\"");
+    }
+
+    @Test
+    public void streamEventsPublishedAfterSubscribing() throws Exception {
+        MockHttpServletResponse response = restEventMockMvc.perform(get("/api/events"))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+
+        Car car = carService.save(new Car().userId(1L).brand("AAAAA"));
+        carService.delete(car.getId());
+        outboxRelayService.publishAll();
+
+        String stream = awaitEvents(response, 2);
+        assertThat(stream).contains("id:" + (lastSequence + 1) + "\nevent:Car\ndata:");
+        assertThat(stream).contains("\"type\":\"CREATED\"");
+        assertThat(stream).contains("id:" + (lastSequence + 2) + "\nevent:Car\ndata:");
+    }
+
+    @Test
+    public void resetStreamWhenTheEventsAfterLastEventIdWereDeleted() throws Exception {
+        Car car = carService.save(new Car().userId(1L).brand("AAAAA"));
+        carService.save(car.brand("BBBBB"));
+        outboxRelayService.publishAll();
+        // as after the retention
+        outboxEventRepository.delete(outboxEventRepository.findAll().stream()
+            .filter(event -> event.getSequenceNumber() != null)
+            .collect(Collectors.toList()));
+
+        MockHttpServletResponse response = restEventMockMvc.perform(get("/api/events")
+            .header("Last-Event-ID", lastSequence + 1))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andReturn().getResponse();
+
+        carService.delete(car.getId());
+        outboxRelayService.publishAll();
+
+        // the stream continues after the last event published, once reset
+        String stream = awaitEvents(response, 2);
+        assertThat(stream).startsWith("id:" + (lastSequence + 2) + "\nevent:" + EventStreamService.RESET_EVENT +
+            "\ndata:{\"lastEventId\":" + (lastSequence + 1) + "}");
+        assertThat(stream).doesNotContain("\"brand\":\"BBBBB\"");
+        assertThat(stream).contains("id:" + (lastSequence + 3) + "\nevent:Car\ndata:");
+        assertThat(stream).contains("\"type\":\"DELETED\"");
+    }
+
+    /**
+     * Wait for the events sent on the streamExecutor.
+     */
+    private static String awaitEvents(MockHttpServletResponse response, int count) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String stream = response.getContentAsString();
+            if (stream.split("\nevent:", -1).length > count) {
+                return stream;
+            }
+            Thread.sleep(50);
+        }
+        return response.getContentAsString();
+    }
+}
@@ -12,9 +12,11 @@ import org.junit.runner.RunWith;
 import static org.hamcrest.Matchers.hasItem;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
@@ -156,6 +158,36 @@ public class PlaceResourceIntTest {
             .andExpect(jsonPath("$.cityName").value(DEFAULT_CITY_NAME.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getPlaceNotModified() throws Exception {
+        // Initialize the database
+        placeRepository.saveAndFlush(place);
+
+        // Get the place, with its version
+        MockHttpServletResponse response = restPlaceMockMvc.perform(get("/api/places/{id}", place.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + place.getVersion() + "\""))
+            .andReturn().getResponse();
+        String eTag = response.getHeader(HttpHeaders.ETAG);
+        String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // Get it again, if it was modified
+        restPlaceMockMvc.perform(get("/api/places/{id}", place.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+        restPlaceMockMvc.perform(get("/api/places/{id}", place.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+
+        // Update the place, which changes its version
+        placeService.save(placeRepository.findOne(place.getId()).cityName(UPDATED_CITY_NAME));
+        em.flush();
+        restPlaceMockMvc.perform(get("/api/places/{id}", place.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cityName").value(UPDATED_CITY_NAME));
+    }
+
     @Test
     @Transactional
     public void getNonExistingPlace() throws Exception {
@@ -195,6 +227,20 @@ public class PlaceResourceIntTest {
         assertThat(testPlace.getCityName()).isEqualTo(UPDATED_CITY_NAME);
     }
 
+    @Test
+    @Transactional
+    public void updatePlaceWithoutVersion() throws Exception {
+        // Initialize the database
+        placeService.save(place);
+        em.detach(place);
+        place.setVersion(null);
+
+        restPlaceMockMvc.perform(put("/api/places")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(place)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void deletePlace() throws Exception {
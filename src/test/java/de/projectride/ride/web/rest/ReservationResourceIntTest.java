@@ -3,18 +3,27 @@ package de.projectride.ride.web.rest;
 import de.projectride.ride.RideApp;
 
 import de.projectride.ride.domain.Reservation;
+import de.projectride.ride.domain.Ride;
 import de.projectride.ride.repository.ReservationRepository;
+import de.projectride.ride.repository.RideRepository;
 import de.projectride.ride.service.ReservationService;
+import de.projectride.ride.web.rest.errors.ExceptionTranslator;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
@@ -54,6 +63,9 @@ public class ReservationResourceIntTest {
     @Inject
     private ReservationService reservationService;
 
+    @Inject
+    private RideRepository rideRepository;
+
     @Inject
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -63,6 +75,9 @@ public class ReservationResourceIntTest {
     @Inject
     private EntityManager em;
 
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
     private MockMvc restReservationMockMvc;
 
     private Reservation reservation;
@@ -74,6 +89,7 @@ public class ReservationResourceIntTest {
         ReflectionTestUtils.setField(reservationResource, "reservationService", reservationService);
         this.restReservationMockMvc = MockMvcBuilders.standaloneSetup(reservationResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(new ExceptionTranslator())
             .setMessageConverters(jacksonMessageConverter).build();
     }
 
@@ -133,6 +149,76 @@ public class ReservationResourceIntTest {
                 .andExpect(jsonPath("$.[*].cancled").value(hasItem(DEFAULT_CANCLED.booleanValue())));
     }
 
+    @Test
+    @Transactional
+    public void getPassengerReservations() throws Exception {
+        // Initialize the database
+        reservationRepository.saveAndFlush(reservation);
+        Reservation otherReservation = reservationRepository.saveAndFlush(createEntity(em).passengerId(UPDATED_PASSENGER_ID));
+
+        // Get the reservations of the passenger
+        restReservationMockMvc.perform(get("/api/reservations?passengerId={passengerId}&sort=id,desc", DEFAULT_PASSENGER_ID))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().string("Link", containsString("/api/reservations?passengerId=" + DEFAULT_PASSENGER_ID)))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(reservation.getId().intValue())))
+                .andExpect(jsonPath("$.[*].id").value(not(hasItem(otherReservation.getId().intValue()))))
+                .andExpect(jsonPath("$.[*].passengerId").value(everyItem(equalTo(DEFAULT_PASSENGER_ID.intValue()))));
+    }
+
+    @Test
+    @Transactional
+    public void seekRideReservations() throws Exception {
+        // Initialize the database
+        Ride ride = rideRepository.saveAndFlush(new Ride().numberOfSeats(3).deleted(false));
+        Reservation first = reservationRepository.saveAndFlush(reservation.ride(ride));
+        Reservation second = reservationRepository.saveAndFlush(createEntity(em).ride(ride));
+        Reservation third = reservationRepository.saveAndFlush(createEntity(em).ride(ride));
+
+        // Get the first page, of 2 reservations, and the next one with the continuation token of the Link header
+        String link = restReservationMockMvc.perform(get("/api/rides/{rideId}/reservations/seek?size=2", ride.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), second.getId().intValue())))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader("Link");
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        restReservationMockMvc.perform(get(next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(contains(third.getId().intValue())))
+                .andExpect(header().string("Link", not(containsString("rel=\"next\""))));
+    }
+
+    @Test
+    @Transactional
+    public void seekRideReservationsWithInvalidContinuation() throws Exception {
+        restReservationMockMvc.perform(get("/api/rides/{rideId}/reservations/seek?continuation=x", 1L))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getRideReservations() throws Exception {
+        // Initialize the database
+        Ride ride = rideRepository.saveAndFlush(new Ride().numberOfSeats(3).deleted(false));
+        reservationRepository.saveAndFlush(reservation.ride(ride));
+        Reservation cancledReservation = reservationRepository.saveAndFlush(createEntity(em).cancled(true).ride(ride));
+        Reservation otherReservation = reservationRepository.saveAndFlush(createEntity(em));
+
+        // Get the reservations of the ride
+        restReservationMockMvc.perform(get("/api/rides/{rideId}/reservations?sort=id,asc", ride.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(jsonPath("$.[0].id").value(reservation.getId().intValue()))
+                .andExpect(jsonPath("$.[1].id").value(cancledReservation.getId().intValue()))
+                .andExpect(jsonPath("$.[*].id").value(not(hasItem(otherReservation.getId().intValue()))));
+
+        // Count the reservations of the ride which are not cancled
+        restReservationMockMvc.perform(get("/api/rides/{rideId}/reservations/count", ride.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+    }
+
     @Test
     @Transactional
     public void getReservation() throws Exception {
@@ -203,4 +289,33 @@ public class ReservationResourceIntTest {
         List<Reservation> reservations = reservationRepository.findAll();
         assertThat(reservations).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    public void reserveSeat() throws Exception {
+        // Initialize the database, the seat is reserved in its own transaction
+        Ride ride = rideRepository.saveAndFlush(new Ride().numberOfSeats(1).deleted(false));
+        try {
+            restReservationMockMvc.perform(post("/api/rides/{rideId}/reservations?passengerId={passengerId}",
+                ride.getId(), DEFAULT_PASSENGER_ID))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.passengerId").value(DEFAULT_PASSENGER_ID.intValue()))
+                .andExpect(jsonPath("$.cancled").value(false))
+                .andExpect(jsonPath("$.ride.seatsTaken").value(1));
+
+            // The only seat is taken
+            restReservationMockMvc.perform(post("/api/rides/{rideId}/reservations?passengerId={passengerId}",
+                ride.getId(), UPDATED_PASSENGER_ID))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("error.noSeatAvailable"));
+
+            restReservationMockMvc.perform(post("/api/rides/{rideId}/reservations?passengerId={passengerId}",
+                Long.MAX_VALUE, DEFAULT_PASSENGER_ID))
+                .andExpect(status().isNotFound());
+        } finally {
+            jdbcTemplate.update("delete from reservation where ride_id = ?", ride.getId());
+            // marked as deleted first, which evicts it from the caches, as the repository doesn't delete the row
+            rideRepository.delete(ride.getId());
+            jdbcTemplate.update("delete from ride where id = ?", ride.getId());
+        }
+    }
 }
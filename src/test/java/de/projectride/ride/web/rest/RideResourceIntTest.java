@@ -1,23 +1,48 @@
 package de.projectride.ride.web.rest;
 
 import de.projectride.ride.RideApp;
+import de.projectride.ride.config.http.MappingJackson2CborHttpMessageConverter;
 
+import de.projectride.ride.domain.Place;
+import de.projectride.ride.domain.Reservation;
 import de.projectride.ride.domain.Ride;
+import de.projectride.ride.repository.PlaceRepository;
 import de.projectride.ride.repository.RideRepository;
+import de.projectride.ride.service.PlaceService;
+import de.projectride.ride.service.ReservationService;
+import de.projectride.ride.service.RideArchiveService;
+import de.projectride.ride.service.RideIndexService;
+import de.projectride.ride.service.RideMatchingService;
 import de.projectride.ride.service.RideService;
+import de.projectride.ride.service.SeatAvailabilityService;
+import de.projectride.ride.service.dto.TripDTO;
+import de.projectride.ride.web.rest.errors.ErrorConstants;
+import de.projectride.ride.web.rest.errors.ExceptionTranslator;
+import de.projectride.ride.web.rest.util.PaginationUtil;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,6 +56,9 @@ import java.time.ZoneId;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -70,25 +98,54 @@ public class RideResourceIntTest {
     private static final String DEFAULT_CREATED_AT_STR = DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(DEFAULT_CREATED_AT);
 
     private static final Boolean DEFAULT_DELETED = false;
-    private static final Boolean UPDATED_DELETED = true;
+    private static final Boolean UPDATED_DELETED = false;
 
     @Inject
     private RideRepository rideRepository;
 
+    @Inject
+    private PlaceRepository placeRepository;
+
     @Inject
     private RideService rideService;
 
+    @Inject
+    private RideMatchingService rideMatchingService;
+
+    @Inject
+    private RideIndexService rideIndexService;
+
+    @Inject
+    private PlaceService placeService;
+
+    @Inject
+    private RideArchiveService rideArchiveService;
+
+    @Inject
+    private ReservationService reservationService;
+
+    @Inject
+    private SeatAvailabilityService seatAvailabilityService;
+
     @Inject
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Inject
+    private Jackson2ObjectMapperBuilder jacksonObjectMapperBuilder;
+
     @Inject
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
     @Inject
     private EntityManager em;
 
+    @Inject
+    private JdbcTemplate jdbcTemplate;
+
     private MockMvc restRideMockMvc;
 
+    private MappingJackson2CborHttpMessageConverter cborMessageConverter;
+
     private Ride ride;
 
     @PostConstruct
@@ -96,9 +153,14 @@ public class RideResourceIntTest {
         MockitoAnnotations.initMocks(this);
         RideResource rideResource = new RideResource();
         ReflectionTestUtils.setField(rideResource, "rideService", rideService);
+        ReflectionTestUtils.setField(rideResource, "rideMatchingService", rideMatchingService);
+        ReflectionTestUtils.setField(rideResource, "objectMapper", jacksonMessageConverter.getObjectMapper());
+        ReflectionTestUtils.setField(rideResource, "seatAvailabilityService", seatAvailabilityService);
+        cborMessageConverter = new MappingJackson2CborHttpMessageConverter(jacksonObjectMapperBuilder);
         this.restRideMockMvc = MockMvcBuilders.standaloneSetup(rideResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
-            .setMessageConverters(jacksonMessageConverter).build();
+            .setControllerAdvice(new ExceptionTranslator())
+            .setMessageConverters(jacksonMessageConverter, cborMessageConverter, new StringHttpMessageConverter()).build();
     }
 
     /**
@@ -153,6 +215,46 @@ public class RideResourceIntTest {
         assertThat(testRide.isDeleted()).isEqualTo(DEFAULT_DELETED);
     }
 
+    @Test
+    @Transactional
+    public void exportRidesAsNdjson() throws Exception {
+        // Initialize the database
+        rideRepository.saveAndFlush(ride);
+
+        String content = restRideMockMvc.perform(get("/api/rides/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = content.split("\n");
+        assertThat(content).endsWith("\n");
+        assertThat(lines).hasSize(rideRepository.findAll().size());
+        assertThat(lines).contains(jacksonMessageConverter.getObjectMapper().writeValueAsString(ride));
+    }
+
+    @Test
+    @Transactional
+    public void exportRidesAsCsv() throws Exception {
+        // Initialize the database
+        rideRepository.saveAndFlush(ride.description("with, comma").startPlace(
+            placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660))));
+
+        restRideMockMvc.perform(get("/api/rides/export?format=csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string(containsString("id,driverId,startDateTime,")))
+                .andExpect(content().string(containsString(ride.getId() + "," + DEFAULT_DRIVER_ID + ",")))
+                .andExpect(content().string(containsString(",\"with, comma\",")))
+                .andExpect(content().string(containsString(",Mannheim,")));
+    }
+
+    @Test
+    @Transactional
+    public void exportRidesWithUnknownFormat() throws Exception {
+        restRideMockMvc.perform(get("/api/rides/export?format=xml"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getAllRides() throws Exception {
@@ -175,6 +277,32 @@ public class RideResourceIntTest {
                 .andExpect(jsonPath("$.[*].deleted").value(hasItem(DEFAULT_DELETED.booleanValue())));
     }
 
+    @Test
+    @Transactional
+    public void getAllRidesAsCbor() throws Exception {
+        // Initialize the database
+        rideRepository.saveAndFlush(ride);
+
+        // Get all the rides in CBOR
+        byte[] body = restRideMockMvc.perform(get("/api/rides").accept(MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MappingJackson2CborHttpMessageConverter.APPLICATION_CBOR_VALUE))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        // Same fields as in JSON
+        JsonNode rides = cborMessageConverter.getObjectMapper().readTree(body);
+        JsonNode created = null;
+        for (JsonNode node : rides) {
+            if (node.get("id").asLong() == ride.getId()) {
+                created = node;
+            }
+        }
+        assertThat(created).isNotNull();
+        assertThat(created.get("startDateTime").asText()).isEqualTo(DEFAULT_START_DATE_TIME_STR);
+        assertThat(created.get("description").asText()).isEqualTo(DEFAULT_DESCRIPTION);
+        assertThat(created.get("numberOfSeats").asInt()).isEqualTo(DEFAULT_NUMBER_OF_SEATS);
+    }
+
     @Test
     @Transactional
     public void getRide() throws Exception {
@@ -197,6 +325,286 @@ public class RideResourceIntTest {
             .andExpect(jsonPath("$.deleted").value(DEFAULT_DELETED.booleanValue()));
     }
 
+    @Test
+    @Transactional
+    public void searchRides() throws Exception {
+        // Initialize the database
+        Place startPlace = new Place().cityName("Mannheim").postcode(68159);
+        em.persist(startPlace);
+        Place endPlace = new Place().cityName("Berlin").postcode(10115);
+        em.persist(endPlace);
+        ride.startPlace(startPlace).endPlace(endPlace);
+        rideRepository.saveAndFlush(ride);
+
+        Place otherStartPlace = new Place().cityName("Mannheim").postcode(68159);
+        em.persist(otherStartPlace);
+        Ride deletedRide = createEntity(em).deleted(true).startPlace(otherStartPlace);
+        rideRepository.saveAndFlush(deletedRide);
+
+        // Search the rides
+        restRideMockMvc.perform(get("/api/rides/search?startCity=Mannheim&endCity=Berlin&maxPrice=5&minFreeSeats=1&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(header().string("Link", containsString("/api/rides/search?startCity=Mannheim&endCity=Berlin")))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(ride.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(deletedRide.getId().intValue()))))
+            .andExpect(jsonPath("$.[*].startPlace.cityName").value(hasItem("Mannheim")));
+
+        restRideMockMvc.perform(get("/api/rides/search?startCity=Mannheim&from=1969-12-31T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"));
+
+        restRideMockMvc.perform(get("/api/rides/search?startCity=Mannheim&from=2000-01-01T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"));
+
+        restRideMockMvc.perform(get("/api/rides/search?startCity=Mannheim&maxPrice=0.5"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"));
+    }
+
+    @Test
+    @Transactional
+    public void searchRideSummaries() throws Exception {
+        // Initialize the database
+        Place startPlace = new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660);
+        em.persist(startPlace);
+        Place endPlace = new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050);
+        em.persist(endPlace);
+        ride.startPlace(startPlace).endPlace(endPlace);
+        rideRepository.saveAndFlush(ride);
+
+        // Search the ride summaries
+        restRideMockMvc.perform(get("/api/rides/summaries?startCity=Mannheim&endCity=Berlin&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(header().string("Link", containsString("/api/rides/summaries?startCity=Mannheim&endCity=Berlin")))
+            .andExpect(jsonPath("$.[0].id").value(ride.getId().intValue()))
+            .andExpect(jsonPath("$.[0].startDateTime").value(DEFAULT_START_DATE_TIME_STR))
+            .andExpect(jsonPath("$.[0].numberOfSeats").value(DEFAULT_NUMBER_OF_SEATS))
+            .andExpect(jsonPath("$.[0].seatsTaken").value(0))
+            .andExpect(jsonPath("$.[0].startCityName").value("Mannheim"))
+            .andExpect(jsonPath("$.[0].startLatitude").value(49.4875))
+            .andExpect(jsonPath("$.[0].endCityName").value("Berlin"))
+            .andExpect(jsonPath("$.[0].endLongitude").value(13.4050))
+            .andExpect(jsonPath("$.[0].startPlace").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    public void getNearbyRides() throws Exception {
+        // Initialize the database
+        Place startPlace = placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660));
+        ride.startPlace(startPlace);
+        rideRepository.saveAndFlush(ride);
+
+        Place farPlace = placeService.save(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050));
+        Ride farRide = createEntity(em).startPlace(farPlace);
+        rideRepository.saveAndFlush(farRide);
+
+        // Get the rides starting within 5 km of Mannheim
+        restRideMockMvc.perform(get("/api/rides/nearby?lat=49.49&lon=8.47&radiusKm=5"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(ride.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(farRide.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    public void getNearbyRidesWithInvalidRadius() throws Exception {
+        restRideMockMvc.perform(get("/api/rides/nearby?lat=49.49&lon=8.47&radiusKm=0"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void matchRides() throws Exception {
+        // Initialize the database with rides from Mannheim to Berlin tomorrow
+        ZonedDateTime tomorrow = ZonedDateTime.now().plusDays(1).withNano(0);
+        Ride later = saveRideToBerlin(tomorrow.plusHours(1), 3);
+        Ride best = saveRideToBerlin(tomorrow, 3);
+        Ride full = saveRideToBerlin(tomorrow, 1);
+        rideRepository.takeSeat(full.getId());
+        // the seat is taken by an update query, read it again
+        em.clear();
+        Ride tooLate = saveRideToBerlin(tomorrow.plusHours(3), 3);
+        // the rides are indexed once their transaction commits, which it doesn't in this test
+        for (Ride saved : new Ride[] {later, best, full, tooLate}) {
+            rideIndexService.update(saved);
+        }
+
+        TripDTO trip = new TripDTO();
+        trip.setStartLatitude(49.49);
+        trip.setStartLongitude(8.47);
+        trip.setEndLatitude(52.52);
+        trip.setEndLongitude(13.41);
+        trip.setStartDateTime(tomorrow);
+        try {
+            restRideMockMvc.perform(post("/api/rides/match")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(trip)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.[0].ride.id").value(best.getId().intValue()))
+                .andExpect(jsonPath("$.[0].deviationMinutes").value(0))
+                .andExpect(jsonPath("$.[1].ride.id").value(later.getId().intValue()))
+                .andExpect(jsonPath("$.[1].deviationMinutes").value(60))
+                .andExpect(jsonPath("$.[*].ride.id").value(not(hasItem(full.getId().intValue()))))
+                .andExpect(jsonPath("$.[*].ride.id").value(not(hasItem(tooLate.getId().intValue()))));
+        } finally {
+            for (Ride saved : new Ride[] {later, best, full, tooLate}) {
+                rideIndexService.remove(saved.getId());
+            }
+        }
+    }
+
+    @Test
+    @Transactional
+    public void matchRidesWithInvalidTrip() throws Exception {
+        TripDTO trip = new TripDTO();
+        trip.setStartLatitude(91.0);
+        trip.setStartLongitude(8.47);
+        trip.setEndLatitude(52.52);
+        trip.setEndLongitude(13.41);
+        trip.setStartDateTime(ZonedDateTime.now());
+
+        restRideMockMvc.perform(post("/api/rides/match")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(trip)))
+            .andExpect(status().isBadRequest());
+    }
+
+    private Ride saveRideToBerlin(ZonedDateTime startDateTime, int numberOfSeats) {
+        Place startPlace = placeService.save(new Place().cityName("Mannheim").latitude(49.4875).longitude(8.4660));
+        Place endPlace = placeService.save(new Place().cityName("Berlin").latitude(52.5200).longitude(13.4050));
+        return rideRepository.saveAndFlush(createEntity(em)
+            .startDateTime(startDateTime)
+            .flexibleStartPlace(5)
+            .flexibleEndPlace(5)
+            .numberOfSeats(numberOfSeats)
+            .startPlace(startPlace)
+            .endPlace(endPlace));
+    }
+
+    @Test
+    @Transactional
+    public void seekRides() throws Exception {
+        // Initialize the database, with two rides starting at the same time
+        ZonedDateTime startDateTime = ZonedDateTime.now().plusYears(100).withNano(0);
+        Ride first = rideRepository.saveAndFlush(createEntity(em).startDateTime(startDateTime));
+        Ride second = rideRepository.saveAndFlush(createEntity(em).startDateTime(startDateTime));
+        Ride third = rideRepository.saveAndFlush(createEntity(em).startDateTime(startDateTime.plusHours(1)));
+        rideRepository.saveAndFlush(createEntity(em).startDateTime(startDateTime.plusHours(2)).deleted(true));
+
+        // Get the pages of 2 rides after the ones starting before, following the Link header
+        String continuation = PaginationUtil.encodeContinuation(startDateTime.minusSeconds(1).toEpochSecond(), 0, 0);
+        String link = restRideMockMvc.perform(get("/api/rides/seek?size=2&continuation={continuation}", continuation))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), second.getId().intValue())))
+            .andExpect(header().string("Link", containsString("rel=\"next\"")))
+            .andReturn().getResponse().getHeader("Link");
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        restRideMockMvc.perform(get(next))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(third.getId().intValue())))
+            .andExpect(header().string("Link", not(containsString("rel=\"next\""))));
+    }
+
+    @Test
+    @Transactional
+    public void seekRidesWithInvalidContinuation() throws Exception {
+        restRideMockMvc.perform(get("/api/rides/seek?continuation={continuation}",
+            PaginationUtil.encodeContinuation(42)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void seekRidesWithOutOfRangeContinuation() throws Exception {
+        restRideMockMvc.perform(get("/api/rides/seek?continuation={continuation}",
+            PaginationUtil.encodeContinuation(Long.MAX_VALUE, 0, 42)))
+            .andExpect(status().isBadRequest());
+        restRideMockMvc.perform(get("/api/rides/seek?continuation={continuation}",
+            PaginationUtil.encodeContinuation(0, Long.MAX_VALUE, 42)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getRideNotModified() throws Exception {
+        // Initialize the database
+        Place startPlace = placeService.save(new Place().cityName("Mannheim"));
+        rideRepository.saveAndFlush(ride.startPlace(startPlace));
+
+        // Get the ride, with its version, the version of its seats and the versions of its places
+        MockHttpServletResponse response = restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG,
+                "\"" + ride.getVersion() + "." + ride.getSeatsVersion() + "." + startPlace.getVersion() + ".-\""))
+            .andReturn().getResponse();
+        String eTag = response.getHeader(HttpHeaders.ETAG);
+        String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // Get it again, if it was modified
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+
+        // Take a seat, which changes the version of the seats only
+        rideRepository.takeSeat(ride.getId());
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk());
+
+        // Update the start place, which is part of the ride
+        eTag = restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        placeService.save(placeRepository.findOne(startPlace.getId()).cityName("Heidelberg"));
+        em.flush();
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.startPlace.cityName").value("Heidelberg"));
+
+        // Update the ride, which changes its version
+        rideService.save(rideRepository.findOne(ride.getId()).description(UPDATED_DESCRIPTION));
+        em.flush();
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.description").value(UPDATED_DESCRIPTION));
+    }
+
+    @Test
+    @Transactional
+    public void getRideModifiedSinceItsPlaceWasUpdated() throws Exception {
+        // Initialize the database, with a ride and a place modified an hour ago
+        Place startPlace = placeService.save(new Place().cityName("Mannheim"));
+        rideRepository.saveAndFlush(ride.startPlace(startPlace));
+        ZonedDateTime anHourAgo = ZonedDateTime.now().minusHours(1);
+        em.createQuery("update Ride ride set ride.lastModifiedDate = :date where ride.id = :id")
+            .setParameter("date", anHourAgo).setParameter("id", ride.getId()).executeUpdate();
+        em.createQuery("update Place place set place.lastModifiedDate = :date where place.id = :id")
+            .setParameter("date", anHourAgo).setParameter("id", startPlace.getId()).executeUpdate();
+        em.clear();
+        String lastModified = restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+
+        // Update the start place only, which modifies the representation of the ride
+        placeService.save(placeRepository.findOne(startPlace.getId()).cityName("Heidelberg"));
+        em.flush();
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.startPlace.cityName").value("Heidelberg"));
+    }
+
     @Test
     @Transactional
     public void getNonExistingRide() throws Exception {
@@ -205,6 +613,111 @@ public class RideResourceIntTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    public void getArchivedRide() throws Exception {
+        // Initialize the database, with a ride started before the retention
+        Place startPlace = new Place().cityName("Mannheim");
+        em.persist(startPlace);
+        rideRepository.saveAndFlush(ride.startPlace(startPlace));
+        rideArchiveService.archiveCompleted(ZonedDateTime.now());
+
+        // Get the ride, from the archive
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(ride.getId().intValue()))
+            .andExpect(jsonPath("$.description").value(DEFAULT_DESCRIPTION))
+            .andExpect(jsonPath("$.startPlace.id").value(ride.getStartPlace().getId().intValue()));
+    }
+
+    @Test
+    public void getRideAsync() throws Exception {
+        // The ride is read on the searchExecutor, so it is committed before, and deleted after the test
+        rideRepository.saveAndFlush(ride);
+        try {
+            MvcResult result = restRideMockMvc.perform(get("/api/rides/async/{id}", ride.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restRideMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.id").value(ride.getId().intValue()))
+                .andExpect(jsonPath("$.description").value(DEFAULT_DESCRIPTION));
+
+            result = restRideMockMvc.perform(get("/api/rides/async/search?to=1970-01-02T00:00:00Z&size=1000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restRideMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", containsString("/api/rides/async/search?to=1970-01-02T00:00:00Z")))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(ride.getId().intValue())));
+
+            result = restRideMockMvc.perform(get("/api/rides/async/{id}", Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restRideMockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+        } finally {
+            // marked as deleted first, which evicts it from the caches, as the repository doesn't delete the row
+            rideRepository.delete(ride.getId());
+            jdbcTemplate.update("delete from ride where id = ?", ride.getId());
+        }
+    }
+
+    @Test
+    public void getRideAsyncWhenTheSearchQueueIsFull() throws Exception {
+        RideService saturatedRideService = mock(RideService.class);
+        when(saturatedRideService.findOneAsync(anyLong())).thenThrow(new TaskRejectedException("searchExecutor is saturated"));
+        RideResource rideResource = new RideResource();
+        ReflectionTestUtils.setField(rideResource, "rideService", saturatedRideService);
+        MockMvc saturatedMockMvc = MockMvcBuilders.standaloneSetup(rideResource)
+            .setControllerAdvice(new ExceptionTranslator())
+            .setMessageConverters(jacksonMessageConverter).build();
+
+        saturatedMockMvc.perform(get("/api/rides/async/{id}", 1L))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, String.valueOf(ExceptionTranslator.RETRY_AFTER_SECONDS)))
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void streamSeatAvailability() throws Exception {
+        // The seats are read on the taskExecutor, so the ride is committed before, and deleted after the test
+        rideService.save(ride);
+        Reservation reservation = null;
+        try {
+            MockHttpServletResponse response = restRideMockMvc.perform(get("/api/rides/{id}/availability/stream", ride.getId()))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+            String stream = awaitEvents(response, 1);
+            assertThat(response.getContentType()).startsWith("text/event-stream");
+            assertThat(stream).contains("event:availability\ndata:");
+            assertThat(stream).contains("\"seatsAvailable\":" + DEFAULT_NUMBER_OF_SEATS);
+
+            // Taking the seat pushes the new seats
+            reservation = reservationService.reserveSeat(ride.getId(), 1L);
+            stream = awaitEvents(response, 2);
+            assertThat(stream.substring(stream.lastIndexOf("event:availability")))
+                .contains("\"seatsTaken\":1")
+                .contains("\"seatsAvailable\":0");
+        } finally {
+            if (reservation != null) {
+                reservationService.delete(reservation.getId());
+            }
+            // marked as deleted first, which evicts it from the caches, as the repository doesn't delete the row
+            rideService.delete(ride.getId());
+            jdbcTemplate.update("delete from ride where id = ?", ride.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    public void streamSeatAvailabilityOfNonExistingRide() throws Exception {
+        restRideMockMvc.perform(get("/api/rides/{id}/availability/stream", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     @Transactional
     public void updateRide() throws Exception {
@@ -262,5 +775,29 @@ public class RideResourceIntTest {
         // Validate the database is empty
         List<Ride> rides = rideRepository.findAll();
         assertThat(rides).hasSize(databaseSizeBeforeDelete - 1);
+
+        // The ride is only flagged as deleted, until it is archived
+        restRideMockMvc.perform(get("/api/rides/{id}", ride.getId()))
+            .andExpect(status().isNotFound());
+        em.flush();
+        Object[] row = (Object[]) em.createNativeQuery("select deleted, deleted_at from ride where id = :id")
+            .setParameter("id", ride.getId())
+            .getSingleResult();
+        assertThat(row[0]).isEqualTo(true);
+        assertThat(row[1]).isNotNull();
+    }
+
+    /**
+     * Wait for the events sent on the taskExecutor.
+     */
+    private static String awaitEvents(MockHttpServletResponse response, int count) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            String stream = response.getContentAsString();
+            if (stream.split("\nevent:", -1).length > count) {
+                return stream;
+            }
+            Thread.sleep(50);
+        }
+        return response.getContentAsString();
     }
 }